@@ -0,0 +1,130 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.StrategyType;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
+
+/**
+ * Cost of picking a backend the way {@link ProxyService} does on every request:
+ * select, reserve an in-flight slot, release it. Run across pool sizes, health
+ * ratios, strategies and 1 to 64 contending threads. {@code CONSISTENT_HASH} is
+ * fed a different request hash on each call, as if from many clients; the other
+ * strategies select without a key, as they do in the proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackendSelectionBenchmark {
+
+    @Param({"2", "8", "64"})
+    private int poolSize;
+
+    @Param({"1.0", "0.5"})
+    private double healthyRatio;
+
+    @Param({"WEIGHTED_ROUND_ROBIN", "LEAST_REQUESTS", "POWER_OF_TWO_CHOICES", "PEAK_EWMA", "CONSISTENT_HASH"})
+    private StrategyType strategy;
+
+    private BackendPool backendPool;
+    private boolean keyed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setStrategy(strategy);
+        for (int i = 0; i < poolSize; i++) {
+            BackendDefinition definition = new BackendDefinition();
+            definition.setHost("backend-" + i);
+            definition.setPort(8080 + i);
+            definition.setWeight(1 + i % 3);
+            properties.getBackends().add(definition);
+        }
+        backendPool = new BackendPool(properties);
+        keyed = strategy == StrategyType.CONSISTENT_HASH;
+
+        List<BackendNode> nodes = backendPool.allBackends();
+        int healthy = Math.max(1, (int) Math.round(nodes.size() * healthyRatio));
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).setHealthy(i < healthy);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BackendNode select1Thread(RequestKeys keys) {
+        return selectAndRelease(keys);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BackendNode select4Threads(RequestKeys keys) {
+        return selectAndRelease(keys);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BackendNode select16Threads(RequestKeys keys) {
+        return selectAndRelease(keys);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public BackendNode select64Threads(RequestKeys keys) {
+        return selectAndRelease(keys);
+    }
+
+    private BackendNode selectAndRelease(RequestKeys keys) {
+        long requestHash = keyed ? keys.next() : LoadBalancingStrategy.NO_KEY;
+        BackendNode backend = backendPool.selectNextHealthyBackend(requestHash).orElseThrow();
+        if (backend.tryBeginRequest() != null) {
+            backend.endRequest();
+        }
+        return backend;
+    }
+
+    /**
+     * Per-thread ring of random request hashes, so keyed selection spreads over the
+     * pool without paying for a random number on every call.
+     */
+    @State(Scope.Thread)
+    public static class RequestKeys {
+
+        private final long[] hashes = new long[1024];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom();
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = random.nextLong();
+            }
+        }
+
+        long next() {
+            return hashes[next++ & (hashes.length - 1)];
+        }
+    }
+}
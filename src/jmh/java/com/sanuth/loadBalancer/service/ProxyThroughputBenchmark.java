@@ -0,0 +1,109 @@
+package com.sanuth.loadBalancer.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * End-to-end blocking proxy throughput against in-process stub backends, covering
+ * selection, request building, the upstream exchange and response streaming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyThroughputBenchmark {
+
+    private static final int BACKENDS = 2;
+
+    @Param({"128", "65536"})
+    private int responseBytes;
+
+    private HttpServer[] servers;
+    private ProxyService proxyService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Without TCP_NODELAY the stub's separate header and body writes meet the
+        // client's delayed ACK and every request stalls for tens of milliseconds.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        byte[] payload = new byte[responseBytes];
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setRequestTimeoutMs(5000);
+        servers = new HttpServer[BACKENDS];
+        for (int i = 0; i < BACKENDS; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(200, payload.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(payload);
+                }
+            });
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            servers[i] = server;
+
+            BackendDefinition definition = new BackendDefinition();
+            definition.setHost("localhost");
+            definition.setPort(server.getAddress().getPort());
+            properties.getBackends().add(definition);
+        }
+        BackendPool backendPool = new BackendPool(properties);
+        proxyService = new ProxyService(backendPool, HttpClient.newHttpClient(), properties,
+            new OutlierDetector(backendPool, properties));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int proxy1Thread() {
+        return proxyOnce();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int proxy16Threads() {
+        return proxyOnce();
+    }
+
+    private int proxyOnce() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bench");
+        request.addHeader("Accept", "*/*");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        proxyService.forward(request, response);
+        return response.getContentAsByteArray().length;
+    }
+}
@@ -0,0 +1,69 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sanuth.loadBalancer.ratelimit.GcraTable;
+
+/**
+ * Cost of one {@link GcraTable#tryAcquire} with many threads checking 10,000 client
+ * keys, against a single shared lock around the same arithmetic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private GcraTable table;
+    private String[] keys;
+    private final Object lock = new Object();
+    private final Map<String, Long> locked = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        table = new GcraTable(1_000, 1_000, 64, 100_000, false);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long shardedGcra() {
+        return table.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)], System.nanoTime());
+    }
+
+    @Benchmark
+    public long singleLock() {
+        String key = keys[ThreadLocalRandom.current().nextInt(KEYS)];
+        long now = System.nanoTime();
+        synchronized (lock) {
+            long arrival = Math.max(locked.getOrDefault(key, now), now);
+            if (arrival - now > 999_000_000L) {
+                return arrival - now;
+            }
+            locked.put(key, arrival + 1_000_000L);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Group;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Route;
+
+/**
+ * Cost of {@link UpstreamRouter#route} as the number of configured routes grows.
+ * Half the routes are host-specific; the requests hit a host route, a host-agnostic
+ * route and no route at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteMatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int routeCount;
+
+    private UpstreamRouter router;
+    private MockHttpServletRequest hostRoute;
+    private MockHttpServletRequest pathRoute;
+    private MockHttpServletRequest unrouted;
+
+    @Setup
+    public void setUp() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("default-1"));
+        for (int i = 0; i < 4; i++) {
+            Group group = new Group();
+            group.getBackends().add(backend("group-" + i));
+            properties.getGroups().put("group-" + i, group);
+        }
+        for (int i = 0; i < routeCount; i++) {
+            Route route = new Route();
+            route.setGroup("group-" + i % 4);
+            route.setPathPrefix("/service-" + i + "/v1");
+            if (i % 2 == 0) {
+                route.setHosts(List.of("tenant-" + i + ".example.com"));
+            }
+            properties.getRoutes().add(route);
+        }
+        BackendPool backendPool = new BackendPool(properties);
+        router = new UpstreamRouter(backendPool, new OutlierDetector(backendPool, properties),
+            HttpClient.newHttpClient(), properties);
+
+        int last = routeCount - 1;
+        int lastHostRoute = last - last % 2;
+        hostRoute = request("tenant-" + lastHostRoute + ".example.com", "/service-" + lastHostRoute + "/v1/orders/42");
+        pathRoute = request("lb.example.com", "/service-" + (lastHostRoute - 1) + "/v1/orders/42");
+        unrouted = request("lb.example.com", "/static/app.js");
+    }
+
+    @Benchmark
+    public UpstreamGroup hostRoute() {
+        return router.route(hostRoute);
+    }
+
+    @Benchmark
+    public UpstreamGroup pathRoute() {
+        return router.route(pathRoute);
+    }
+
+    @Benchmark
+    public UpstreamGroup unrouted() {
+        return router.route(unrouted);
+    }
+
+    private static MockHttpServletRequest request(String host, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServerName(host);
+        return request;
+    }
+
+    private static BackendDefinition backend(String host) {
+        BackendDefinition definition = new BackendDefinition();
+        definition.setHost(host);
+        definition.setPort(8080);
+        return definition;
+    }
+}
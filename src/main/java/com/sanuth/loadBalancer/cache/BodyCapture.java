@@ -0,0 +1,60 @@
+package com.sanuth.loadBalancer.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Collects a copy of a response body as it streams to the client, giving up as soon
+ * as it grows past {@code limit} so oversized responses cost nothing further. A
+ * direct capture keeps the bytes off the heap from the first write, so an off-heap
+ * cache entry never has a heap copy of its body.
+ */
+public final class BodyCapture {
+
+    private final int limit;
+    private final boolean direct;
+    private ByteBuffer buffer;
+    private boolean overflowed;
+
+    /**
+     * @param expectedLength the {@code Content-Length}, or {@code -1} if unknown
+     */
+    public BodyCapture(int limit, long expectedLength, boolean direct) {
+        this.limit = limit;
+        this.direct = direct;
+        this.overflowed = expectedLength > limit;
+        this.buffer = overflowed ? null : allocate((int) (expectedLength >= 0 ? expectedLength : Math.min(limit, 8192)));
+    }
+
+    public void write(byte[] bytes, int offset, int length) {
+        if (overflowed) {
+            return;
+        }
+        if (buffer.position() + length > limit) {
+            overflowed = true;
+            buffer = null;
+            return;
+        }
+        if (length > buffer.remaining()) {
+            int needed = buffer.position() + length;
+            buffer = allocate(Math.min(limit, Math.max(needed, buffer.capacity() * 2))).put(buffer.flip());
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    public boolean isComplete() {
+        return !overflowed;
+    }
+
+    /**
+     * The captured bytes, trimmed to their length so a cache entry's weight is what
+     * it actually holds.
+     */
+    public ByteBuffer toBuffer() {
+        buffer.flip();
+        return buffer.limit() == buffer.capacity() ? buffer : allocate(buffer.limit()).put(buffer).flip();
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
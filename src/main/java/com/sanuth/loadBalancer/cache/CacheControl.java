@@ -0,0 +1,63 @@
+package com.sanuth.loadBalancer.cache;
+
+import java.util.Locale;
+
+/**
+ * The {@code Cache-Control} directives a shared cache acts on (RFC 9111). Delta
+ * seconds are {@code -1} when the directive is absent.
+ */
+record CacheControl(
+    boolean noStore,
+    boolean noCache,
+    boolean isPrivate,
+    long maxAgeSeconds,
+    long sharedMaxAgeSeconds,
+    long staleWhileRevalidateSeconds
+) {
+
+    static final CacheControl NONE = new CacheControl(false, false, false, -1, -1, -1);
+
+    static CacheControl parse(Iterable<String> headerValues) {
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean isPrivate = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        long staleWhileRevalidate = -1;
+        for (String headerValue : headerValues) {
+            for (String directive : headerValue.split(",")) {
+                String trimmed = directive.trim();
+                int equals = trimmed.indexOf('=');
+                String name = (equals < 0 ? trimmed : trimmed.substring(0, equals)).trim().toLowerCase(Locale.ROOT);
+                String argument = equals < 0 ? null : trimmed.substring(equals + 1).trim();
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    // A qualified no-cache/private names fields; treating it as the
+                    // unqualified form is stricter and therefore still correct.
+                    case "no-cache" -> noCache = true;
+                    case "private" -> isPrivate = true;
+                    case "max-age" -> maxAge = deltaSeconds(argument);
+                    case "s-maxage" -> sharedMaxAge = deltaSeconds(argument);
+                    case "stale-while-revalidate" -> staleWhileRevalidate = deltaSeconds(argument);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, isPrivate, maxAge, sharedMaxAge, staleWhileRevalidate);
+    }
+
+    private static long deltaSeconds(String argument) {
+        if (argument == null) {
+            return -1;
+        }
+        String unquoted = argument.startsWith("\"") && argument.endsWith("\"") && argument.length() > 1
+            ? argument.substring(1, argument.length() - 1)
+            : argument;
+        try {
+            return Math.max(0, Long.parseLong(unquoted));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sanuth.loadBalancer.cache;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable stored response. The body lives in a heap or direct {@link ByteBuffer}
+ * and is handed out as independent read-only views, so any number of clients can be
+ * served from it concurrently without copying.
+ */
+public final class CachedResponse {
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final ByteBuffer body;
+    private final List<String> varyNames;
+    private final List<String> varyValues;
+    private final long storedAtNanos;
+    private final long initialAgeNanos;
+    private final long freshnessNanos;
+    private final long staleWhileRevalidateNanos;
+    private volatile boolean referenced;
+
+    CachedResponse(int status, HttpHeaders headers, ByteBuffer body, List<String> varyNames, List<String> varyValues,
+        long storedAtNanos, long initialAgeNanos, long freshnessNanos, long staleWhileRevalidateNanos) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body.asReadOnlyBuffer();
+        this.varyNames = varyNames;
+        this.varyValues = varyValues;
+        this.storedAtNanos = storedAtNanos;
+        this.initialAgeNanos = initialAgeNanos;
+        this.freshnessNanos = freshnessNanos;
+        this.staleWhileRevalidateNanos = staleWhileRevalidateNanos;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    public ByteBuffer body() {
+        return body.duplicate();
+    }
+
+    public int bodyLength() {
+        return body.remaining();
+    }
+
+    public boolean isFresh(long nowNanos) {
+        return ageNanos(nowNanos) < freshnessNanos;
+    }
+
+    /**
+     * Past its freshness lifetime but still inside the {@code stale-while-revalidate}
+     * window, so it may be served while a refresh runs in the background.
+     */
+    public boolean isServableStale(long nowNanos) {
+        return ageNanos(nowNanos) < freshnessNanos + staleWhileRevalidateNanos;
+    }
+
+    public long ageSeconds(long nowNanos) {
+        return ageNanos(nowNanos) / 1_000_000_000L;
+    }
+
+    /**
+     * Whether the request headers named by the stored response's {@code Vary} have
+     * the same values as on the request that produced it.
+     */
+    public boolean matches(UnaryOperator<String> requestHeaders) {
+        for (int i = 0; i < varyNames.size(); i++) {
+            if (!Objects.equals(varyValues.get(i), requestHeaders.apply(varyNames.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long weight() {
+        return body.capacity() + 512L;
+    }
+
+    boolean isReferenced() {
+        return referenced;
+    }
+
+    void markReferenced() {
+        if (!referenced) {
+            referenced = true;
+        }
+    }
+
+    void clearReferenced() {
+        referenced = false;
+    }
+
+    private long ageNanos(long nowNanos) {
+        return initialAgeNanos + (nowNanos - storedAtNanos);
+    }
+}
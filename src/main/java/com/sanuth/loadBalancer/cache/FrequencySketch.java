@@ -0,0 +1,80 @@
+package com.sanuth.loadBalancer.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TinyLFU frequency sketch: a count-min sketch of 4-bit counters, sixteen to a
+ * {@code long}, that is halved periodically so old popularity fades. It is used
+ * only to decide whether a newcomer deserves the space of an eviction victim, so
+ * over-estimates from hash collisions are harmless.
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final AtomicLongArray table;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger(0);
+
+    FrequencySketch(int expectedEntries) {
+        int length = Integer.highestOneBit(Math.max(64, expectedEntries) - 1) << 1;
+        this.table = new AtomicLongArray(length);
+        this.mask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    int frequency(int keyHash) {
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = counterIndex(keyHash, row);
+            int count = (int) ((table.get(counter >>> 4) >>> ((counter & 15) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int keyHash) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            added |= incrementAt(counterIndex(keyHash, row));
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int counter) {
+        int index = counter >>> 4;
+        int shift = (counter & 15) << 2;
+        while (true) {
+            long word = table.get(index);
+            if (((word >>> shift) & 0xfL) == 0xfL) {
+                return false;
+            }
+            if (table.compareAndSet(index, word, word + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        // Racing resets only halve a few counters twice, which just ages them faster.
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            long word = table.get(i);
+            table.compareAndSet(i, word, (word >>> 1) & RESET_MASK);
+        }
+    }
+
+    private int counterIndex(int keyHash, int row) {
+        long hash = (keyHash + SEEDS[row]) * SEEDS[row];
+        hash ^= hash >>> 32;
+        // Sixteen counters per word, so the table holds (mask + 1) * 16 of them.
+        return (int) hash & ((mask << 4) | 15);
+    }
+}
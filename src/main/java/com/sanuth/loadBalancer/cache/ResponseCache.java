@@ -0,0 +1,336 @@
+package com.sanuth.loadBalancer.cache;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Shared HTTP response cache (RFC 9111 subset) for GET requests.
+ *
+ * <p>Only responses with explicit freshness ({@code s-maxage}, {@code max-age} or
+ * {@code Expires}) are stored, and never ones marked {@code no-store},
+ * {@code no-cache} or {@code private}, ones that set cookies or ones that vary on
+ * {@code *}. Each URL keeps one variant, matched against the request headers
+ * named by {@code Vary}.
+ *
+ * <p>Lookups are a single {@link ConcurrentHashMap} read. The byte budget is
+ * enforced by a CLOCK (second-chance) sweep, so hits only set a flag instead of
+ * reordering a list under a lock, and a TinyLFU frequency sketch refuses to evict
+ * an entry for a newcomer that has been asked for less often. Concurrent misses for
+ * one key are coalesced onto a single fill.
+ */
+@Component
+public class ResponseCache {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Set<Integer> CACHEABLE_STATUSES = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+
+    private final Cache config;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedResponse>> fills = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // Guarded by evictionLock: holds exactly the keys of `entries`, oldest first.
+    private final LinkedHashSet<String> clock = new LinkedHashSet<>();
+    private long usedBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(LoadBalancerProperties properties) {
+        this.config = properties.getCache();
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, config.getMaxBytes() / 4096));
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Starts capturing a storable response's body, off the heap when
+     * {@code lb.cache.off-heap} is set.
+     */
+    public BodyCapture newCapture(HttpHeaders headers) {
+        return new BodyCapture(config.getMaxEntryBytes(), headers.firstValueAsLong("content-length").orElse(-1),
+            config.isOffHeap());
+    }
+
+    /**
+     * @param group name of the upstream group the request routes to; routes can send
+     *              the same URL to different groups, which must not share entries
+     * @return the cache key for {@code request}, or {@code null} if the request must
+     *         bypass the cache entirely
+     */
+    public String keyFor(String group, HttpServletRequest request) {
+        if (!config.isEnabled() || !"GET".equals(request.getMethod())
+            || request.getHeader("Authorization") != null
+            || request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null
+            || requestDirectives(request).noStore()) {
+            return null;
+        }
+        String query = request.getQueryString();
+        String prefix = group + ' ' + request.getServerName();
+        return query == null ? prefix + request.getRequestURI() : prefix + request.getRequestURI() + '?' + query;
+    }
+
+    /**
+     * Returns the stored response for {@code key} if it may still be served, fresh or
+     * stale-while-revalidate, to a request with these headers.
+     */
+    public CachedResponse lookup(String key, HttpServletRequest request, long nowNanos) {
+        sketch.increment(key.hashCode());
+        CachedResponse entry = entries.get(key);
+        // A client asking for no-cache gets a fresh fetch, which then refreshes the entry.
+        if (entry == null || !entry.matches(request::getHeader) || requestDirectives(request).noCache()
+            || "no-cache".equalsIgnoreCase(request.getHeader("Pragma"))) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.isServableStale(nowNanos)) {
+            invalidate(key, entry);
+            misses.increment();
+            return null;
+        }
+        entry.markReferenced();
+        (entry.isFresh(nowNanos) ? hits : staleHits).increment();
+        return entry;
+    }
+
+    /**
+     * Registers interest in filling {@code key}.
+     *
+     * @return {@code null} if the caller is now responsible for the fill and must
+     *         call {@link #completeFill}; otherwise the fill already in progress
+     */
+    public CompletableFuture<CachedResponse> joinFill(String key) {
+        return fills.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    public void completeFill(String key, CachedResponse stored) {
+        CompletableFuture<CachedResponse> fill = fills.remove(key);
+        if (fill != null) {
+            fill.complete(stored);
+        }
+    }
+
+    /**
+     * Cheap pre-check made before a body is captured.
+     */
+    public boolean isStorable(int status, HttpHeaders headers) {
+        return config.isEnabled() && freshness(status, headers) != null
+            && headers.firstValueAsLong("content-length").orElse(0) <= config.getMaxEntryBytes();
+    }
+
+    /**
+     * Stores a complete response if its headers allow it and the budget admits it.
+     *
+     * @param requestHeaders header lookup on the request that produced the response,
+     *                       used to record the values named by {@code Vary}
+     * @param body           the body as captured by {@link #newCapture}, kept as is
+     * @return the stored entry, or {@code null} if it was not stored
+     */
+    public CachedResponse store(String key, UnaryOperator<String> requestHeaders, int status, HttpHeaders headers,
+        ByteBuffer body) {
+        long[] lifetime = freshness(status, headers);
+        if (lifetime == null || body.remaining() > config.getMaxEntryBytes()) {
+            return null;
+        }
+        List<String> varyNames = varyNames(headers);
+        List<String> varyValues = new ArrayList<>(varyNames.size());
+        for (String name : varyNames) {
+            varyValues.add(requestHeaders.apply(name));
+        }
+        long initialAgeNanos = Math.min(headers.firstValueAsLong("age").orElse(0), Integer.MAX_VALUE) * 1_000_000_000L;
+        CachedResponse entry = new CachedResponse(status, headers, body, varyNames, varyValues, System.nanoTime(),
+            initialAgeNanos, lifetime[0] * 1_000_000_000L, lifetime[1] * 1_000_000_000L);
+        return admit(key, entry) ? entry : null;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getUsedBytes() {
+        evictionLock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean admit(String key, CachedResponse entry) {
+        if (entry.weight() > config.getMaxBytes()) {
+            return false;
+        }
+        evictionLock.lock();
+        try {
+            CachedResponse previous = entries.remove(key);
+            if (previous != null) {
+                // A refresh of a key already worth keeping skips the admission check.
+                clock.remove(key);
+                usedBytes -= previous.weight();
+            }
+            int candidateFrequency = sketch.frequency(key.hashCode());
+            while (usedBytes + entry.weight() > config.getMaxBytes()) {
+                Iterator<String> hand = clock.iterator();
+                String victimKey = hand.next();
+                CachedResponse victim = entries.get(victimKey);
+                hand.remove();
+                if (victim.isReferenced()) {
+                    victim.clearReferenced();
+                    clock.add(victimKey);
+                    continue;
+                }
+                if (previous == null && sketch.frequency(victimKey.hashCode()) > candidateFrequency) {
+                    clock.add(victimKey);
+                    return false;
+                }
+                entries.remove(victimKey);
+                usedBytes -= victim.weight();
+                evictions.increment();
+            }
+            entries.put(key, entry);
+            clock.add(key);
+            usedBytes += entry.weight();
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void invalidate(String key, CachedResponse entry) {
+        evictionLock.lock();
+        try {
+            if (entries.remove(key, entry)) {
+                clock.remove(key);
+                usedBytes -= entry.weight();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Whether a response is meant for one client only: it sets a cookie or is marked
+     * {@code private} or {@code no-store}. Such responses must never be handed to
+     * another client, whether from the cache or a shared upstream call.
+     */
+    public static boolean isPersonal(HttpHeaders headers) {
+        if (headers.firstValue("set-cookie").isPresent()) {
+            return true;
+        }
+        CacheControl directives = CacheControl.parse(headers.allValues("cache-control"));
+        return directives.noStore() || directives.isPrivate();
+    }
+
+    /**
+     * @return {@code [freshness, staleWhileRevalidate]} in seconds, or {@code null}
+     *         if the response must not be stored
+     */
+    private static long[] freshness(int status, HttpHeaders headers) {
+        if (!CACHEABLE_STATUSES.contains(status) || isPersonal(headers)) {
+            return null;
+        }
+        CacheControl directives = CacheControl.parse(headers.allValues("cache-control"));
+        if (directives.noCache()) {
+            return null;
+        }
+        for (String vary : headers.allValues("vary")) {
+            if (vary.contains("*")) {
+                return null;
+            }
+        }
+        long lifetime;
+        if (directives.sharedMaxAgeSeconds() >= 0) {
+            lifetime = directives.sharedMaxAgeSeconds();
+        } else if (directives.maxAgeSeconds() >= 0) {
+            lifetime = directives.maxAgeSeconds();
+        } else {
+            lifetime = expiresLifetime(headers);
+        }
+        if (lifetime <= 0) {
+            return null;
+        }
+        // Clamped so the values still fit in a long once converted to nanoseconds.
+        return new long[] {
+            Math.min(lifetime, Integer.MAX_VALUE),
+            Math.min(Math.max(0, directives.staleWhileRevalidateSeconds()), Integer.MAX_VALUE)
+        };
+    }
+
+    private static long expiresLifetime(HttpHeaders headers) {
+        Optional<String> expires = headers.firstValue("expires");
+        if (expires.isEmpty()) {
+            return -1;
+        }
+        try {
+            ZonedDateTime expiresAt = ZonedDateTime.parse(expires.get(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            ZonedDateTime date = headers.firstValue("date")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME))
+                .orElseGet(ZonedDateTime::now);
+            return expiresAt.toEpochSecond() - date.toEpochSecond();
+        } catch (DateTimeParseException ex) {
+            // An invalid Expires means "already expired".
+            return -1;
+        }
+    }
+
+    private static List<String> varyNames(HttpHeaders headers) {
+        List<String> names = new ArrayList<>();
+        for (String vary : headers.allValues("vary")) {
+            for (String name : vary.split(",")) {
+                String trimmed = name.trim().toLowerCase(Locale.ROOT);
+                if (!trimmed.isEmpty()) {
+                    names.add(trimmed);
+                }
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    private static CacheControl requestDirectives(HttpServletRequest request) {
+        String header = request.getHeader("Cache-Control");
+        return header == null ? CacheControl.NONE : CacheControl.parse(List.of(header));
+    }
+}
@@ -0,0 +1,32 @@
+package com.sanuth.loadBalancer.compression;
+
+/**
+ * Content codings the balancer can apply to a response body.
+ */
+public enum ContentCoding {
+    GZIP("gzip", true),
+    DEFLATE("deflate", false);
+
+    private final String token;
+    private final boolean rawDeflate;
+
+    ContentCoding(String token, boolean rawDeflate) {
+        this.token = token;
+        this.rawDeflate = rawDeflate;
+    }
+
+    /**
+     * Value for the {@code Content-Encoding} header.
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * Whether the deflate stream is raw and framed by this class (gzip), rather than
+     * zlib-wrapped as HTTP's {@code deflate} coding requires.
+     */
+    boolean rawDeflate() {
+        return rawDeflate;
+    }
+}
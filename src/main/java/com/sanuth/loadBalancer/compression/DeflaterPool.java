@@ -0,0 +1,35 @@
+package com.sanuth.loadBalancer.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of {@link Deflater}s for one format. A deflater holds native zlib
+ * state of a few hundred kilobytes, so reusing them avoids both the allocation and
+ * the wait for its cleaner. Deflaters beyond {@code maxPooled} are ended on release.
+ */
+final class DeflaterPool {
+
+    private final int level;
+    private final boolean nowrap;
+    private final BlockingQueue<Deflater> idle;
+
+    DeflaterPool(int level, boolean nowrap, int maxPooled) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    Deflater acquire() {
+        Deflater deflater = idle.poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.sanuth.loadBalancer.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.sanuth.loadBalancer.service.BufferPool;
+
+/**
+ * Compresses a streamed body into gzip or zlib format with a pooled deflater and
+ * output buffer. {@link #flush()} performs a zlib sync flush so bytes already
+ * received from the backend reach the client without waiting for the rest.
+ *
+ * <p>{@link #finish()} completes the stream but leaves the underlying stream open;
+ * {@link #release()} must always be called afterwards, also on failure, to return
+ * the deflater and buffer to their pools.
+ */
+public final class DeflatingOutputStream extends OutputStream {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final DeflaterPool deflaterPool;
+    private final BufferPool bufferPool;
+    private final CRC32 crc;
+    private final byte[] single = new byte[1];
+    private Deflater deflater;
+    private byte[] buffer;
+    private boolean finished;
+
+    DeflatingOutputStream(OutputStream out, ContentCoding coding, DeflaterPool deflaterPool, BufferPool bufferPool)
+        throws IOException {
+        this.out = out;
+        this.deflaterPool = deflaterPool;
+        this.bufferPool = bufferPool;
+        this.deflater = deflaterPool.acquire();
+        this.buffer = bufferPool.acquire();
+        this.crc = coding.rawDeflate() ? new CRC32() : null;
+        if (crc != null) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Compressed stream already finished");
+        }
+        if (length == 0) {
+            return;
+        }
+        if (crc != null) {
+            crc.update(bytes, offset, length);
+        }
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            // A sync flush is complete once it leaves spare room in the buffer.
+            while (drain(Deflater.SYNC_FLUSH) == buffer.length) {
+                // keep draining
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining compressed data and, for gzip, the trailer.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(Deflater.NO_FLUSH);
+        }
+        if (crc != null) {
+            writeIntLittleEndian((int) crc.getValue());
+            writeIntLittleEndian((int) deflater.getBytesRead());
+        }
+    }
+
+    /**
+     * Returns the deflater and buffer to their pools; the stream is unusable after.
+     */
+    public void release() {
+        finished = true;
+        if (deflater != null) {
+            deflaterPool.release(deflater);
+            deflater = null;
+        }
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            release();
+        }
+    }
+
+    private int drain(int flushMode) throws IOException {
+        int produced = deflater.deflate(buffer, 0, buffer.length, flushMode);
+        if (produced > 0) {
+            out.write(buffer, 0, produced);
+        }
+        return produced;
+    }
+
+    private void writeIntLittleEndian(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,202 @@
+package com.sanuth.loadBalancer.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.util.List;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Compression;
+import com.sanuth.loadBalancer.service.BufferPool;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * On-the-fly gzip/deflate compression of proxied responses. A response is
+ * compressible when it is a full, unencoded body of a configured content type that
+ * is not known to be smaller than {@code minSizeBytes} and does not forbid
+ * transformation; the coding is then chosen from the client's {@code Accept-Encoding},
+ * preferring gzip.
+ */
+public final class ResponseCompressor {
+
+    private final boolean enabled;
+    private final String[] mimeTypes;
+    private final int minSizeBytes;
+    private final BufferPool bufferPool;
+    private final DeflaterPool gzipDeflaters;
+    private final DeflaterPool zlibDeflaters;
+
+    public ResponseCompressor(Compression config, BufferPool bufferPool) {
+        this.enabled = config.isEnabled();
+        this.mimeTypes = config.getMimeTypes().stream().map(String::trim).toArray(String[]::new);
+        this.minSizeBytes = config.getMinSizeBytes();
+        this.bufferPool = bufferPool;
+        int level = Math.clamp(config.getLevel(), 1, 9);
+        this.gzipDeflaters = new DeflaterPool(level, true, config.getDeflaterPoolSize());
+        this.zlibDeflaters = new DeflaterPool(level, false, config.getDeflaterPoolSize());
+    }
+
+    /**
+     * Whether this response would be compressed for a client that accepts it. Such
+     * responses vary on {@code Accept-Encoding} whatever this client accepts.
+     */
+    public boolean isCompressible(HttpServletRequest request, int status, HttpHeaders headers) {
+        if (!enabled || "HEAD".equals(request.getMethod())) {
+            return false;
+        }
+        if (status < 200 || status == 204 || status == 206 || status == 304) {
+            return false;
+        }
+        String contentEncoding = headers.firstValue("Content-Encoding").orElse(null);
+        if (contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) {
+            return false;
+        }
+        if (headers.firstValue("Content-Range").isPresent()) {
+            return false;
+        }
+        for (String cacheControl : headers.allValues("Cache-Control")) {
+            if (containsIgnoreCase(cacheControl, "no-transform")) {
+                return false;
+            }
+        }
+        long contentLength = headers.firstValueAsLong("Content-Length").orElse(-1);
+        if (contentLength >= 0 && contentLength < minSizeBytes) {
+            return false;
+        }
+        return headers.firstValue("Content-Type").map(this::isCompressibleType).orElse(false);
+    }
+
+    /**
+     * Picks the coding for a client's {@code Accept-Encoding}, or {@code null} if it
+     * accepts neither gzip nor deflate.
+     */
+    public ContentCoding select(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        int length = acceptEncoding.length();
+        int start = 0;
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int parameters = acceptEncoding.indexOf(';', start);
+            int codingEnd = parameters >= 0 && parameters < end ? parameters : end;
+            double quality = parameters >= 0 && parameters < end ? quality(acceptEncoding, parameters, end) : 1.0;
+            if (matchesToken(acceptEncoding, start, codingEnd, "gzip")) {
+                gzip = quality;
+            } else if (matchesToken(acceptEncoding, start, codingEnd, "deflate")) {
+                deflate = quality;
+            } else if (matchesToken(acceptEncoding, start, codingEnd, "*")) {
+                wildcard = quality;
+            }
+            start = end + 1;
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return ContentCoding.GZIP;
+        }
+        return deflate > 0 ? ContentCoding.DEFLATE : null;
+    }
+
+    /**
+     * Adds the headers describing a compressible response: {@code Vary}, and the
+     * {@code Content-Encoding} when {@code coding} is applied.
+     */
+    public void addHeaders(HttpServletResponse response, HttpHeaders backendHeaders, ContentCoding coding) {
+        if (coding != null) {
+            response.setHeader("Content-Encoding", coding.token());
+        }
+        List<String> vary = backendHeaders.allValues("Vary");
+        for (String value : vary) {
+            if (containsIgnoreCase(value, "Accept-Encoding") || value.trim().equals("*")) {
+                return;
+            }
+        }
+        response.addHeader("Vary", "Accept-Encoding");
+    }
+
+    public DeflatingOutputStream open(OutputStream out, ContentCoding coding) throws IOException {
+        DeflaterPool deflaters = coding.rawDeflate() ? gzipDeflaters : zlibDeflaters;
+        return new DeflatingOutputStream(out, coding, deflaters, bufferPool);
+    }
+
+    /**
+     * A compressed body is a different representation, so a strong validator of the
+     * original must not be reused for it.
+     */
+    public static String weakenETag(String etag) {
+        return etag.startsWith("W/") ? etag : "W/" + etag;
+    }
+
+    private boolean isCompressibleType(String contentType) {
+        int end = contentType.indexOf(';');
+        if (end < 0) {
+            end = contentType.length();
+        }
+        while (end > 0 && contentType.charAt(end - 1) == ' ') {
+            end--;
+        }
+        // Structured syntax suffixes (application/problem+json) compress like their base type.
+        int plus = contentType.lastIndexOf('+', end);
+        for (String mimeType : mimeTypes) {
+            if (mimeType.length() == end && contentType.regionMatches(true, 0, mimeType, 0, end)) {
+                return true;
+            }
+            if (plus > 0 && mimeType.startsWith("application/")) {
+                int suffixLength = end - plus - 1;
+                int subtypeLength = mimeType.length() - "application/".length();
+                if (suffixLength == subtypeLength
+                    && contentType.regionMatches(true, plus + 1, mimeType, "application/".length(), suffixLength)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double quality(String header, int parameters, int end) {
+        int q = header.indexOf("q=", parameters);
+        if (q < 0 || q >= end) {
+            q = header.indexOf("Q=", parameters);
+        }
+        if (q < 0 || q >= end) {
+            return 1.0;
+        }
+        try {
+            return Double.parseDouble(header.substring(q + 2, end).trim());
+        } catch (NumberFormatException ex) {
+            return 0.0;
+        }
+    }
+
+    private static boolean matchesToken(String header, int start, int end, String token) {
+        while (start < end && header.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && header.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end - start == token.length() && header.regionMatches(true, start, token, 0, token.length());
+    }
+
+    private static boolean containsIgnoreCase(String value, String part) {
+        int last = value.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (value.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
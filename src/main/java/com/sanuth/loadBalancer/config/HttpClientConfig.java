@@ -2,17 +2,80 @@ package com.sanuth.loadBalancer.config;
 
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Upstream;
 
 @Configuration
 public class HttpClientConfig {
 
+    public static final String HEALTH_CHECK_CLIENT = "healthCheckHttpClient";
+    public static final String UPSTREAM_EXECUTOR = "upstreamHttpExecutor";
+    public static final String HEALTH_CHECK_EXECUTOR = "healthCheckHttpExecutor";
+
+    /**
+     * Client used for proxied traffic. Its keep-alive pool is sized by
+     * {@link UpstreamPoolEnvironmentPostProcessor} before any client exists.
+     */
     @Bean
-    public HttpClient httpClient(LoadBalancerProperties properties) {
+    @Primary
+    public HttpClient httpClient(LoadBalancerProperties properties,
+        @Qualifier(UPSTREAM_EXECUTOR) ExecutorService executor) {
+        Upstream upstream = properties.getUpstream();
         return HttpClient.newBuilder()
             .connectTimeout(Duration.ofMillis(properties.getRequestTimeoutMs()))
+            // HTTP/2 over cleartext is negotiated with an h2c upgrade on the first request
+            // of each connection, after which requests to that backend are multiplexed.
+            .version(upstream.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Separate client for health probes so probes never wait behind proxied traffic for
+     * a connection or an executor thread.
+     */
+    @Bean(HEALTH_CHECK_CLIENT)
+    public HttpClient healthCheckHttpClient(LoadBalancerProperties properties,
+        @Qualifier(HEALTH_CHECK_EXECUTOR) ExecutorService executor) {
+        return HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(properties.getHealthCheckTimeoutMs()))
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
             .build();
     }
+
+    /**
+     * Runs the proxy client's I/O callbacks. A client never shuts down an executor it
+     * was given, so the executors are beans and stop with the context. They are not
+     * default candidates, which keeps them from replacing the application task executor.
+     */
+    @Bean(name = UPSTREAM_EXECUTOR, destroyMethod = "shutdown", defaultCandidate = false)
+    public ExecutorService upstreamHttpExecutor(LoadBalancerProperties properties) {
+        return executor(properties, properties.getUpstream().getExecutorThreads(), "lb-http-");
+    }
+
+    @Bean(name = HEALTH_CHECK_EXECUTOR, destroyMethod = "shutdown", defaultCandidate = false)
+    public ExecutorService healthCheckHttpExecutor(LoadBalancerProperties properties) {
+        return executor(properties, 2, "lb-health-");
+    }
+
+    /**
+     * Virtual threads if enabled, else {@code threads} platform threads, else a cached
+     * pool like the one a client creates for itself.
+     */
+    private ExecutorService executor(LoadBalancerProperties properties, int threads, String namePrefix) {
+        if (properties.getVirtualThreads().isEnabled()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+        }
+        ThreadFactory factory = Thread.ofPlatform().name(namePrefix, 0).daemon().factory();
+        return threads > 0 ? Executors.newFixedThreadPool(threads, factory) : Executors.newCachedThreadPool(factory);
+    }
 }
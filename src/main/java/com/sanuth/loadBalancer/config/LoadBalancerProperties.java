@@ -1,7 +1,11 @@
 package com.sanuth.loadBalancer.config;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -9,9 +13,38 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class LoadBalancerProperties {
 
     private List<BackendDefinition> backends = new ArrayList<>();
+    private List<PathRewrite> pathRewrites = new ArrayList<>();
+    private Map<String, Group> groups = new LinkedHashMap<>();
+    private List<Route> routes = new ArrayList<>();
     private String healthCheckPath = "/health";
     private long healthCheckIntervalMs = 5000;
+    private long healthCheckTimeoutMs = 2000;
+    private long healthCheckJitterMs = 0;
+    private int healthCheckRise = 2;
+    private int healthCheckFall = 3;
     private long requestTimeoutMs = 5000;
+    private int proxyBufferSize = 16 * 1024;
+    private int proxyBufferPoolSize = 256;
+    private ProxyMode proxyMode = ProxyMode.BLOCKING;
+    private long asyncTimeoutMs = 60_000;
+    private StrategyType strategy = StrategyType.WEIGHTED_ROUND_ROBIN;
+    private long latencyDecayMs = 10_000;
+    private OutlierDetection outlierDetection = new OutlierDetection();
+    private Retry retry = new Retry();
+    private VirtualThreads virtualThreads = new VirtualThreads();
+    private Upstream upstream = new Upstream();
+    private ConsistentHash consistentHash = new ConsistentHash();
+    private Cache cache = new Cache();
+    private SingleFlight singleFlight = new SingleFlight();
+    private AdaptiveConcurrency adaptiveConcurrency = new AdaptiveConcurrency();
+    private DynamicBackends dynamicBackends = new DynamicBackends();
+    private SlowStart slowStart = new SlowStart();
+    private Headers headers = new Headers();
+    private Compression compression = new Compression();
+    private Tcp tcp = new Tcp();
+    private Hedging hedging = new Hedging();
+    private RateLimit rateLimit = new RateLimit();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
 
     public List<BackendDefinition> getBackends() {
         return backends;
@@ -21,6 +54,38 @@ public class LoadBalancerProperties {
         this.backends = backends;
     }
 
+    /**
+     * Path prefix rules applied to the target URI of every proxied request; the first
+     * matching rule wins.
+     */
+    public List<PathRewrite> getPathRewrites() {
+        return pathRewrites;
+    }
+
+    public void setPathRewrites(List<PathRewrite> pathRewrites) {
+        this.pathRewrites = pathRewrites;
+    }
+
+    /**
+     * Named upstream groups that {@link #getRoutes() routes} can send traffic to, in
+     * addition to the default group formed by {@link #getBackends()}.
+     */
+    public Map<String, Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Group> groups) {
+        this.groups = groups;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
     public String getHealthCheckPath() {
         return healthCheckPath;
     }
@@ -37,6 +102,38 @@ public class LoadBalancerProperties {
         this.healthCheckIntervalMs = healthCheckIntervalMs;
     }
 
+    public long getHealthCheckTimeoutMs() {
+        return healthCheckTimeoutMs;
+    }
+
+    public void setHealthCheckTimeoutMs(long healthCheckTimeoutMs) {
+        this.healthCheckTimeoutMs = healthCheckTimeoutMs;
+    }
+
+    public long getHealthCheckJitterMs() {
+        return healthCheckJitterMs;
+    }
+
+    public void setHealthCheckJitterMs(long healthCheckJitterMs) {
+        this.healthCheckJitterMs = healthCheckJitterMs;
+    }
+
+    public int getHealthCheckRise() {
+        return healthCheckRise;
+    }
+
+    public void setHealthCheckRise(int healthCheckRise) {
+        this.healthCheckRise = healthCheckRise;
+    }
+
+    public int getHealthCheckFall() {
+        return healthCheckFall;
+    }
+
+    public void setHealthCheckFall(int healthCheckFall) {
+        this.healthCheckFall = healthCheckFall;
+    }
+
     public long getRequestTimeoutMs() {
         return requestTimeoutMs;
     }
@@ -45,11 +142,231 @@ public class LoadBalancerProperties {
         this.requestTimeoutMs = requestTimeoutMs;
     }
 
+    public int getProxyBufferSize() {
+        return proxyBufferSize;
+    }
+
+    public void setProxyBufferSize(int proxyBufferSize) {
+        this.proxyBufferSize = proxyBufferSize;
+    }
+
+    public int getProxyBufferPoolSize() {
+        return proxyBufferPoolSize;
+    }
+
+    public void setProxyBufferPoolSize(int proxyBufferPoolSize) {
+        this.proxyBufferPoolSize = proxyBufferPoolSize;
+    }
+
+    public ProxyMode getProxyMode() {
+        return proxyMode;
+    }
+
+    public void setProxyMode(ProxyMode proxyMode) {
+        this.proxyMode = proxyMode;
+    }
+
+    /**
+     * Longest an async-mode request may hold its connection and in-flight slots,
+     * streaming the response body included, before the exchange is cancelled. Never
+     * shorter than the group's request timeout.
+     */
+    public long getAsyncTimeoutMs() {
+        return asyncTimeoutMs;
+    }
+
+    public void setAsyncTimeoutMs(long asyncTimeoutMs) {
+        this.asyncTimeoutMs = asyncTimeoutMs;
+    }
+
+    public StrategyType getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(StrategyType strategy) {
+        this.strategy = strategy;
+    }
+
+    public long getLatencyDecayMs() {
+        return latencyDecayMs;
+    }
+
+    public void setLatencyDecayMs(long latencyDecayMs) {
+        this.latencyDecayMs = latencyDecayMs;
+    }
+
+    public OutlierDetection getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    public void setOutlierDetection(OutlierDetection outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public void setRetry(Retry retry) {
+        this.retry = retry;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(VirtualThreads virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public Upstream getUpstream() {
+        return upstream;
+    }
+
+    public void setUpstream(Upstream upstream) {
+        this.upstream = upstream;
+    }
+
+    public ConsistentHash getConsistentHash() {
+        return consistentHash;
+    }
+
+    public void setConsistentHash(ConsistentHash consistentHash) {
+        this.consistentHash = consistentHash;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public void setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    public AdaptiveConcurrency getAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(AdaptiveConcurrency adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public DynamicBackends getDynamicBackends() {
+        return dynamicBackends;
+    }
+
+    public void setDynamicBackends(DynamicBackends dynamicBackends) {
+        this.dynamicBackends = dynamicBackends;
+    }
+
+    public SlowStart getSlowStart() {
+        return slowStart;
+    }
+
+    public void setSlowStart(SlowStart slowStart) {
+        this.slowStart = slowStart;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Headers headers) {
+        this.headers = headers;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Tcp getTcp() {
+        return tcp;
+    }
+
+    public void setTcp(Tcp tcp) {
+        this.tcp = tcp;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public enum ProxyMode {
+        BLOCKING,
+        ASYNC
+    }
+
+    public enum StrategyType {
+        WEIGHTED_ROUND_ROBIN,
+        LEAST_REQUESTS,
+        POWER_OF_TWO_CHOICES,
+        PEAK_EWMA,
+        CONSISTENT_HASH
+    }
+
+    public enum HashKeySource {
+        CLIENT_IP,
+        HEADER,
+        COOKIE,
+        PATH_SEGMENT
+    }
+
+    public enum LimitAlgorithm {
+        GRADIENT,
+        AIMD
+    }
+
+    public enum ForwardedMode {
+        NONE,
+        X_FORWARDED,
+        FORWARDED,
+        BOTH
+    }
+
+    public enum RateLimitKeySource {
+        CLIENT_IP,
+        HEADER,
+        ROUTE
+    }
+
     public static class BackendDefinition {
         private String host;
         private int port;
         private String scheme = "http";
         private int weight = 1;
+        private Integer maxConnections;
 
         public String getHost() {
             return host;
@@ -83,8 +400,1305 @@ public class LoadBalancerProperties {
             this.weight = weight;
         }
 
+        /**
+         * Per-backend override of {@code lb.upstream.max-connections-per-backend}.
+         */
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
         public String baseUrl() {
             return scheme + "://" + host + ":" + port;
         }
     }
+
+    /**
+     * Replaces a leading path {@code prefix}, matched on segment boundaries, with
+     * {@code replacement}; an empty replacement strips the prefix.
+     */
+    public static class PathRewrite {
+        private String prefix = "/";
+        private String replacement = "";
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public void setPrefix(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getReplacement() {
+            return replacement;
+        }
+
+        public void setReplacement(String replacement) {
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * A named set of backends with its own selection strategy, health-check path and
+     * timeouts. Unset values fall back to the top-level {@code lb.*} settings.
+     */
+    public static class Group {
+        private List<BackendDefinition> backends = new ArrayList<>();
+        private StrategyType strategy;
+        private String healthCheckPath;
+        private Long healthCheckTimeoutMs;
+        private Long requestTimeoutMs;
+        private List<PathRewrite> pathRewrites = new ArrayList<>();
+
+        public List<BackendDefinition> getBackends() {
+            return backends;
+        }
+
+        public void setBackends(List<BackendDefinition> backends) {
+            this.backends = backends;
+        }
+
+        public StrategyType getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(StrategyType strategy) {
+            this.strategy = strategy;
+        }
+
+        public String getHealthCheckPath() {
+            return healthCheckPath;
+        }
+
+        public void setHealthCheckPath(String healthCheckPath) {
+            this.healthCheckPath = healthCheckPath;
+        }
+
+        public Long getHealthCheckTimeoutMs() {
+            return healthCheckTimeoutMs;
+        }
+
+        public void setHealthCheckTimeoutMs(Long healthCheckTimeoutMs) {
+            this.healthCheckTimeoutMs = healthCheckTimeoutMs;
+        }
+
+        public Long getRequestTimeoutMs() {
+            return requestTimeoutMs;
+        }
+
+        public void setRequestTimeoutMs(Long requestTimeoutMs) {
+            this.requestTimeoutMs = requestTimeoutMs;
+        }
+
+        public List<PathRewrite> getPathRewrites() {
+            return pathRewrites;
+        }
+
+        public void setPathRewrites(List<PathRewrite> pathRewrites) {
+            this.pathRewrites = pathRewrites;
+        }
+    }
+
+    /**
+     * Sends matching requests to {@code group}. Every condition that is set must hold:
+     * one of {@code hosts} (exact, case-insensitive), the {@code pathPrefix} on segment
+     * boundaries, one of {@code methods}, and every entry of {@code headers}, where a
+     * value of {@code *} only requires the header to be present. The route with the
+     * longest matching prefix wins, host-specific routes before host-agnostic ones, and
+     * declaration order breaks ties.
+     */
+    public static class Route {
+        private List<String> hosts = new ArrayList<>();
+        private String pathPrefix = "/";
+        private List<String> methods = new ArrayList<>();
+        private Map<String, String> headers = new LinkedHashMap<>();
+        private String group;
+
+        public List<String> getHosts() {
+            return hosts;
+        }
+
+        public void setHosts(List<String> hosts) {
+            this.hosts = hosts;
+        }
+
+        public String getPathPrefix() {
+            return pathPrefix;
+        }
+
+        public void setPathPrefix(String pathPrefix) {
+            this.pathPrefix = pathPrefix;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(Map<String, String> headers) {
+            this.headers = headers;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public void setGroup(String group) {
+            this.group = group;
+        }
+    }
+
+    public static class OutlierDetection {
+        private boolean enabled = true;
+        private long intervalMs = 1000;
+        private int consecutiveFailures = 5;
+        private double failureRateThreshold = 0.5;
+        private int minimumRequests = 20;
+        private double latencyFactor = 5.0;
+        private long baseEjectionTimeMs = 30_000;
+        private long maxEjectionTimeMs = 300_000;
+        private int maxEjectionPercent = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getMinimumRequests() {
+            return minimumRequests;
+        }
+
+        public void setMinimumRequests(int minimumRequests) {
+            this.minimumRequests = minimumRequests;
+        }
+
+        public double getLatencyFactor() {
+            return latencyFactor;
+        }
+
+        public void setLatencyFactor(double latencyFactor) {
+            this.latencyFactor = latencyFactor;
+        }
+
+        public long getBaseEjectionTimeMs() {
+            return baseEjectionTimeMs;
+        }
+
+        public void setBaseEjectionTimeMs(long baseEjectionTimeMs) {
+            this.baseEjectionTimeMs = baseEjectionTimeMs;
+        }
+
+        public long getMaxEjectionTimeMs() {
+            return maxEjectionTimeMs;
+        }
+
+        public void setMaxEjectionTimeMs(long maxEjectionTimeMs) {
+            this.maxEjectionTimeMs = maxEjectionTimeMs;
+        }
+
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+    }
+
+    public static class Retry {
+        private boolean enabled = true;
+        private int maxRetries = 2;
+        private Set<String> idempotentMethods = new LinkedHashSet<>(
+            List.of("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+        private double budgetRatio = 0.2;
+        private int minRetriesPerSecond = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Set<String> getIdempotentMethods() {
+            return idempotentMethods;
+        }
+
+        public void setIdempotentMethods(Set<String> idempotentMethods) {
+            this.idempotentMethods = idempotentMethods;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+    }
+
+    public static class VirtualThreads {
+        private boolean enabled = false;
+        private int maxConcurrentRequests = 10_000;
+        private long acquireTimeoutMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public long getAcquireTimeoutMs() {
+            return acquireTimeoutMs;
+        }
+
+        public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+            this.acquireTimeoutMs = acquireTimeoutMs;
+        }
+    }
+
+    public static class Upstream {
+        private boolean http2 = false;
+        private int maxConnectionsPerBackend = 0;
+        private long idleTimeoutMs = 30_000;
+        private int maxIdleConnections = 0;
+        private int warmupConnections = 0;
+        private int executorThreads = 0;
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public int getMaxConnectionsPerBackend() {
+            return maxConnectionsPerBackend;
+        }
+
+        public void setMaxConnectionsPerBackend(int maxConnectionsPerBackend) {
+            this.maxConnectionsPerBackend = maxConnectionsPerBackend;
+        }
+
+        public long getIdleTimeoutMs() {
+            return idleTimeoutMs;
+        }
+
+        public void setIdleTimeoutMs(long idleTimeoutMs) {
+            this.idleTimeoutMs = idleTimeoutMs;
+        }
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public int getWarmupConnections() {
+            return warmupConnections;
+        }
+
+        public void setWarmupConnections(int warmupConnections) {
+            this.warmupConnections = warmupConnections;
+        }
+
+        public int getExecutorThreads() {
+            return executorThreads;
+        }
+
+        public void setExecutorThreads(int executorThreads) {
+            this.executorThreads = executorThreads;
+        }
+    }
+
+    public static class ConsistentHash {
+        private HashKeySource keySource = HashKeySource.CLIENT_IP;
+        private String keyName;
+        private int pathSegment = 0;
+        private int tableSize = 65_537;
+
+        public HashKeySource getKeySource() {
+            return keySource;
+        }
+
+        public void setKeySource(HashKeySource keySource) {
+            this.keySource = keySource;
+        }
+
+        public String getKeyName() {
+            return keyName;
+        }
+
+        public void setKeyName(String keyName) {
+            this.keyName = keyName;
+        }
+
+        public int getPathSegment() {
+            return pathSegment;
+        }
+
+        public void setPathSegment(int pathSegment) {
+            this.pathSegment = pathSegment;
+        }
+
+        public int getTableSize() {
+            return tableSize;
+        }
+
+        public void setTableSize(int tableSize) {
+            this.tableSize = tableSize;
+        }
+    }
+
+    public static class Cache {
+        private boolean enabled = false;
+        private long maxBytes = 64L * 1024 * 1024;
+        private int maxEntryBytes = 1024 * 1024;
+        private boolean offHeap = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxEntryBytes() {
+            return maxEntryBytes;
+        }
+
+        public void setMaxEntryBytes(int maxEntryBytes) {
+            this.maxEntryBytes = maxEntryBytes;
+        }
+
+        public boolean isOffHeap() {
+            return offHeap;
+        }
+
+        public void setOffHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+    }
+
+    public static class SingleFlight {
+        private boolean enabled = false;
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+        private List<String> keyHeaders = new ArrayList<>(List.of("Accept", "Accept-Encoding"));
+        private int maxBodyBytes = 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+
+        public int getMaxBodyBytes() {
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+
+    public static class AdaptiveConcurrency {
+        private boolean enabled = false;
+        private LimitAlgorithm algorithm = LimitAlgorithm.GRADIENT;
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 500;
+        private int globalInitialLimit = 200;
+        private int globalMaxLimit = 5000;
+        private long aimdLatencyThresholdMs = 1000;
+        private String priorityHeader = "X-Request-Priority";
+        private List<String> priorityTrustedProxies = new ArrayList<>();
+        private List<String> criticalPaths = new ArrayList<>();
+        private List<String> sheddablePaths = new ArrayList<>();
+        private double sheddableShare = 0.8;
+        private double criticalHeadroom = 0.2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public LimitAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(LimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getGlobalInitialLimit() {
+            return globalInitialLimit;
+        }
+
+        public void setGlobalInitialLimit(int globalInitialLimit) {
+            this.globalInitialLimit = globalInitialLimit;
+        }
+
+        public int getGlobalMaxLimit() {
+            return globalMaxLimit;
+        }
+
+        public void setGlobalMaxLimit(int globalMaxLimit) {
+            this.globalMaxLimit = globalMaxLimit;
+        }
+
+        public long getAimdLatencyThresholdMs() {
+            return aimdLatencyThresholdMs;
+        }
+
+        public void setAimdLatencyThresholdMs(long aimdLatencyThresholdMs) {
+            this.aimdLatencyThresholdMs = aimdLatencyThresholdMs;
+        }
+
+        public String getPriorityHeader() {
+            return priorityHeader;
+        }
+
+        public void setPriorityHeader(String priorityHeader) {
+            this.priorityHeader = priorityHeader;
+        }
+
+        /**
+         * Addresses or CIDR ranges (such as an internal gateway) whose priority header
+         * is honoured. Anyone else is classified by path, so by default the header is
+         * ignored.
+         */
+        public List<String> getPriorityTrustedProxies() {
+            return priorityTrustedProxies;
+        }
+
+        public void setPriorityTrustedProxies(List<String> priorityTrustedProxies) {
+            this.priorityTrustedProxies = priorityTrustedProxies;
+        }
+
+        public List<String> getCriticalPaths() {
+            return criticalPaths;
+        }
+
+        public void setCriticalPaths(List<String> criticalPaths) {
+            this.criticalPaths = criticalPaths;
+        }
+
+        public List<String> getSheddablePaths() {
+            return sheddablePaths;
+        }
+
+        public void setSheddablePaths(List<String> sheddablePaths) {
+            this.sheddablePaths = sheddablePaths;
+        }
+
+        public double getSheddableShare() {
+            return sheddableShare;
+        }
+
+        public void setSheddableShare(double sheddableShare) {
+            this.sheddableShare = sheddableShare;
+        }
+
+        public double getCriticalHeadroom() {
+            return criticalHeadroom;
+        }
+
+        public void setCriticalHeadroom(double criticalHeadroom) {
+            this.criticalHeadroom = criticalHeadroom;
+        }
+    }
+
+    public static class DynamicBackends {
+        private boolean adminEnabled = false;
+        private String adminToken;
+        private String file;
+        private long fileCheckIntervalMs = 2000;
+
+        /**
+         * Whether {@code /lb/admin/backends} is served at all. It shares the proxy
+         * port, so it also requires {@link #getAdminToken() adminToken}.
+         */
+        public boolean isAdminEnabled() {
+            return adminEnabled;
+        }
+
+        public void setAdminEnabled(boolean adminEnabled) {
+            this.adminEnabled = adminEnabled;
+        }
+
+        /**
+         * Bearer token every {@code /lb/admin/backends} call must present in its
+         * {@code Authorization} header; required when the admin API is enabled.
+         */
+        public String getAdminToken() {
+            return adminToken;
+        }
+
+        public void setAdminToken(String adminToken) {
+            this.adminToken = adminToken;
+        }
+
+        /**
+         * Properties file holding {@code lb.backends[...]} entries that replace the
+         * backend list whenever it changes, or {@code null} to watch nothing.
+         */
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public long getFileCheckIntervalMs() {
+            return fileCheckIntervalMs;
+        }
+
+        public void setFileCheckIntervalMs(long fileCheckIntervalMs) {
+            this.fileCheckIntervalMs = fileCheckIntervalMs;
+        }
+    }
+
+    public static class SlowStart {
+        private long windowMs = 0;
+        private double minWeightFraction = 0.1;
+        private double aggression = 1.0;
+
+        /**
+         * How long a recovered or newly added backend takes to reach its full weight,
+         * or {@code 0} to give it full weight at once.
+         */
+        public long getWindowMs() {
+            return windowMs;
+        }
+
+        public void setWindowMs(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        /**
+         * Share of its weight a backend gets at the start of the window.
+         */
+        public double getMinWeightFraction() {
+            return minWeightFraction;
+        }
+
+        public void setMinWeightFraction(double minWeightFraction) {
+            this.minWeightFraction = minWeightFraction;
+        }
+
+        /**
+         * Shape of the ramp: {@code 1} is linear, larger values hold traffic back for
+         * longer before rising.
+         */
+        public double getAggression() {
+            return aggression;
+        }
+
+        public void setAggression(double aggression) {
+            this.aggression = aggression;
+        }
+    }
+
+    public static class Headers {
+        private ForwardedMode forwarded = ForwardedMode.NONE;
+        private HeaderRules request = new HeaderRules();
+        private HeaderRules response = new HeaderRules();
+
+        /**
+         * Forwarding headers to add for this hop. Off by default: turn it on only when
+         * the backends need the client address and trust this balancer to supply it.
+         */
+        public ForwardedMode getForwarded() {
+            return forwarded;
+        }
+
+        public void setForwarded(ForwardedMode forwarded) {
+            this.forwarded = forwarded;
+        }
+
+        public HeaderRules getRequest() {
+            return request;
+        }
+
+        public void setRequest(HeaderRules request) {
+            this.request = request;
+        }
+
+        public HeaderRules getResponse() {
+            return response;
+        }
+
+        public void setResponse(HeaderRules response) {
+            this.response = response;
+        }
+    }
+
+    /**
+     * Header edits applied to every proxied message in one direction. Header names
+     * match case-insensitively; use {@code [Name]} keys so names keep their case.
+     */
+    public static class HeaderRules {
+        private List<String> remove = new ArrayList<>();
+        private Map<String, String> set = new LinkedHashMap<>();
+        private Map<String, String> add = new LinkedHashMap<>();
+
+        /**
+         * Headers dropped entirely.
+         */
+        public List<String> getRemove() {
+            return remove;
+        }
+
+        public void setRemove(List<String> remove) {
+            this.remove = remove;
+        }
+
+        /**
+         * Headers whose values are replaced, whether or not they were present.
+         */
+        public Map<String, String> getSet() {
+            return set;
+        }
+
+        public void setSet(Map<String, String> set) {
+            this.set = set;
+        }
+
+        /**
+         * Header values appended to any that are already present.
+         */
+        public Map<String, String> getAdd() {
+            return add;
+        }
+
+        public void setAdd(Map<String, String> add) {
+            this.add = add;
+        }
+    }
+
+    public static class Compression {
+        private boolean enabled = false;
+        private List<String> mimeTypes = new ArrayList<>(List.of("text/html", "text/plain", "text/css", "text/csv",
+            "text/xml", "application/json", "application/javascript", "application/xml", "image/svg+xml"));
+        private int minSizeBytes = 1024;
+        private int level = 6;
+        private int deflaterPoolSize = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Content types worth compressing; {@code +json} and {@code +xml} suffix types
+         * match their base type.
+         */
+        public List<String> getMimeTypes() {
+            return mimeTypes;
+        }
+
+        public void setMimeTypes(List<String> mimeTypes) {
+            this.mimeTypes = mimeTypes;
+        }
+
+        /**
+         * Responses declaring a smaller {@code Content-Length} are sent as they are.
+         */
+        public int getMinSizeBytes() {
+            return minSizeBytes;
+        }
+
+        public void setMinSizeBytes(int minSizeBytes) {
+            this.minSizeBytes = minSizeBytes;
+        }
+
+        /**
+         * Deflate level from 1 (fastest) to 9 (smallest).
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public int getDeflaterPoolSize() {
+            return deflaterPoolSize;
+        }
+
+        public void setDeflaterPoolSize(int deflaterPoolSize) {
+            this.deflaterPoolSize = deflaterPoolSize;
+        }
+    }
+
+    public static class Tcp {
+        private boolean enabled = false;
+        private String bindAddress = "0.0.0.0";
+        private int port = 9000;
+        private int maxConnections = 10_000;
+        private long idleTimeoutMs = 300_000;
+        private long connectTimeoutMs = 5000;
+        private int bufferSize = 64 * 1024;
+        private int ioThreads = 0;
+        private String group = "default";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getBindAddress() {
+            return bindAddress;
+        }
+
+        public void setBindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        /**
+         * Port of the TCP listener, or {@code 0} for any free port.
+         */
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        /**
+         * Most client connections open at once; further ones are closed on accept.
+         */
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        /**
+         * Connections with no bytes moving in either direction for this long are closed.
+         */
+        public long getIdleTimeoutMs() {
+            return idleTimeoutMs;
+        }
+
+        public void setIdleTimeoutMs(long idleTimeoutMs) {
+            this.idleTimeoutMs = idleTimeoutMs;
+        }
+
+        public long getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        /**
+         * Size of each of the two direct buffers per connection.
+         */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        /**
+         * Selector threads, or {@code 0} for one per available processor.
+         */
+        public int getIoThreads() {
+            return ioThreads;
+        }
+
+        public void setIoThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+        }
+
+        /**
+         * Upstream group the listener balances over; {@code default} is {@code lb.backends}.
+         */
+        public String getGroup() {
+            return group;
+        }
+
+        public void setGroup(String group) {
+            this.group = group;
+        }
+    }
+
+    /**
+     * Request hedging: a request still waiting for response headers after the hedge
+     * delay is also sent to a second backend, and whichever answers first is used.
+     */
+    public static class Hedging {
+        private boolean enabled = false;
+        private Set<String> methods = new LinkedHashSet<>(List.of("GET", "HEAD"));
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+        private long delayMs = 100;
+        private boolean adaptiveDelay = false;
+        private double delayPercentile = 95;
+        private long minDelayMs = 10;
+        private long minSamples = 100;
+        private double budgetRatio = 0.05;
+        private int minHedgesPerSecond = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Set<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Set<String> methods) {
+            this.methods = methods;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        /**
+         * Fixed hedge delay, and the delay used while an adaptive backend has fewer
+         * than {@code minSamples} time-to-first-byte samples.
+         */
+        public long getDelayMs() {
+            return delayMs;
+        }
+
+        public void setDelayMs(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        /**
+         * Derive the delay from the first backend's time-to-first-byte
+         * {@code delayPercentile} over roughly the last 10 to 20 seconds instead of
+         * using {@code delayMs}.
+         */
+        public boolean isAdaptiveDelay() {
+            return adaptiveDelay;
+        }
+
+        public void setAdaptiveDelay(boolean adaptiveDelay) {
+            this.adaptiveDelay = adaptiveDelay;
+        }
+
+        public double getDelayPercentile() {
+            return delayPercentile;
+        }
+
+        public void setDelayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+        }
+
+        public long getMinDelayMs() {
+            return minDelayMs;
+        }
+
+        public void setMinDelayMs(long minDelayMs) {
+            this.minDelayMs = minDelayMs;
+        }
+
+        /**
+         * Recent time-to-first-byte samples needed before the adaptive delay is used.
+         */
+        public long getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(long minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        /**
+         * Most hedges as a fraction of hedge-eligible requests.
+         */
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getMinHedgesPerSecond() {
+            return minHedgesPerSecond;
+        }
+
+        public void setMinHedgesPerSecond(int minHedgesPerSecond) {
+            this.minHedgesPerSecond = minHedgesPerSecond;
+        }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = false;
+        private int shards = 64;
+        private int maxEntries = 100_000;
+        private long syncIntervalMs = 1000;
+        private List<RateLimitRule> rules = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+
+        /**
+         * Most keys tracked per rule. Keys whose bucket is full again are evicted first;
+         * a new key beyond this bound is let through untracked.
+         */
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * How often idle keys are evicted and, with a {@code RateLimitSync} bean, counts
+         * are exchanged with the other load balancer nodes.
+         */
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+
+        public List<RateLimitRule> getRules() {
+            return rules;
+        }
+
+        public void setRules(List<RateLimitRule> rules) {
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * Allows each key {@code requestsPerSecond} on average with bursts of up to
+     * {@code burst} requests, for requests on {@code paths}.
+     */
+    public static class RateLimitRule {
+        private String name;
+        private RateLimitKeySource keySource = RateLimitKeySource.CLIENT_IP;
+        private String keyName;
+        private RateLimitKeySource fallbackKeySource = RateLimitKeySource.CLIENT_IP;
+        private double requestsPerSecond = 100;
+        private int burst = 100;
+        private List<String> paths = new ArrayList<>(List.of("/**"));
+
+        /**
+         * Identifies the rule to other nodes when syncing; defaults to its position.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public RateLimitKeySource getKeySource() {
+            return keySource;
+        }
+
+        public void setKeySource(RateLimitKeySource keySource) {
+            this.keySource = keySource;
+        }
+
+        /**
+         * Header holding the key when {@code keySource} is {@code header}, e.g. an API key.
+         */
+        public String getKeyName() {
+            return keyName;
+        }
+
+        public void setKeyName(String keyName) {
+            this.keyName = keyName;
+        }
+
+        /**
+         * Key for requests that lack the {@code keyName} header, so omitting it does
+         * not bypass the rule: {@code client-ip} or {@code route}.
+         */
+        public RateLimitKeySource getFallbackKeySource() {
+            return fallbackKeySource;
+        }
+
+        public void setFallbackKeySource(RateLimitKeySource fallbackKeySource) {
+            this.fallbackKeySource = fallbackKeySource;
+        }
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+
+    /**
+     * Per-backend circuit breaker. A closed circuit opens when, over the last
+     * {@code windowSize} calls, the failure rate or the rate of calls slower than
+     * {@code slowCallDurationMs} reaches its threshold. After {@code openDurationMs}
+     * it half-opens and lets {@code halfOpenCalls} trial calls through, which close it
+     * again or reopen it.
+     */
+    public static class CircuitBreaker {
+        private boolean enabled = false;
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 1.0;
+        private long slowCallDurationMs = 5000;
+        private long openDurationMs = 30_000;
+        private int halfOpenCalls = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Calls the window must hold before its rates can open the circuit.
+         */
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        /**
+         * Share of failed calls (errors, timeouts and 5xx responses) that opens the circuit.
+         */
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        /**
+         * Share of slow calls that opens the circuit; {@code 1.0} only trips when every
+         * call in the window is slow.
+         */
+        public double getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        /**
+         * Time to response headers from which a call counts as slow.
+         */
+        public long getSlowCallDurationMs() {
+            return slowCallDurationMs;
+        }
+
+        public void setSlowCallDurationMs(long slowCallDurationMs) {
+            this.slowCallDurationMs = slowCallDurationMs;
+        }
+
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
 }
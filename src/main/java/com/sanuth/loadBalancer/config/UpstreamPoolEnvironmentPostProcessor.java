@@ -0,0 +1,35 @@
+package com.sanuth.loadBalancer.config;
+
+import org.springframework.boot.EnvironmentPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Upstream;
+
+/**
+ * Turns {@code lb.upstream.idle-timeout-ms} and {@code max-idle-connections} into the
+ * {@code jdk.httpclient} keep-alive settings. {@code java.net.http} reads those
+ * system properties once, when the first client in the JVM is created, so they are
+ * set here while the environment is prepared, before any bean exists. Values given
+ * on the command line with {@code -D} win.
+ */
+public class UpstreamPoolEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Upstream upstream = Binder.get(environment).bind("lb.upstream", Upstream.class).orElseGet(Upstream::new);
+        long idleSeconds = Math.max(1, (upstream.getIdleTimeoutMs() + 999) / 1000);
+        setIfAbsent("jdk.httpclient.keepalive.timeout", Long.toString(idleSeconds));
+        setIfAbsent("jdk.httpclient.keepalive.timeout.h2", Long.toString(idleSeconds));
+        if (upstream.getMaxIdleConnections() > 0) {
+            setIfAbsent("jdk.httpclient.connectionPoolSize", Integer.toString(upstream.getMaxIdleConnections()));
+        }
+    }
+
+    private void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
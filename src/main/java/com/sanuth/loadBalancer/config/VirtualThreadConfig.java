@@ -0,0 +1,22 @@
+package com.sanuth.loadBalancer.config;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs every servlet request on its own virtual thread when
+ * {@code lb.virtual-threads.enabled=true}, so a request blocked on a slow backend
+ * parks a cheap virtual thread instead of a Tomcat worker.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "lb.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("lb-request-"));
+    }
+}
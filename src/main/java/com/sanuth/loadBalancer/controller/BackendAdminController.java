@@ -0,0 +1,157 @@
+package com.sanuth.loadBalancer.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.service.BackendReconfigurer;
+import com.sanuth.loadBalancer.service.UpstreamGroup;
+import com.sanuth.loadBalancer.service.UpstreamRouter;
+
+/**
+ * Runtime view and control of the backend lists. Reads cover every upstream group;
+ * changes apply to the group named by the {@code group} query parameter, the
+ * default {@code lb.backends} group if it is omitted. These endpoints share the
+ * public proxy port, so every call, reads included, needs
+ * {@code lb.dynamic-backends.admin-enabled} and the configured
+ * {@code lb.dynamic-backends.admin-token} as a bearer token.
+ */
+@RestController
+public class BackendAdminController {
+
+    private final UpstreamRouter router;
+    private final BackendReconfigurer reconfigurer;
+    private final boolean enabled;
+    private final byte[] expectedAuthorization;
+
+    public BackendAdminController(UpstreamRouter router, BackendReconfigurer reconfigurer,
+        LoadBalancerProperties properties) {
+        this.router = router;
+        this.reconfigurer = reconfigurer;
+        this.enabled = properties.getDynamicBackends().isAdminEnabled();
+        String token = properties.getDynamicBackends().getAdminToken();
+        if (enabled && (token == null || token.isBlank())) {
+            throw new IllegalStateException(
+                "lb.dynamic-backends.admin-enabled requires lb.dynamic-backends.admin-token");
+        }
+        this.expectedAuthorization = token != null ? ("Bearer " + token).getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @GetMapping("/lb/admin/backends")
+    public List<BackendView> backends(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+        String authorization) {
+        requireAdmin(authorization);
+        return views();
+    }
+
+    @PutMapping("/lb/admin/backends")
+    public List<BackendView> replace(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+        String authorization, @RequestParam(defaultValue = UpstreamGroup.DEFAULT) String group,
+        @RequestBody List<BackendDefinition> definitions) {
+        requireAdmin(authorization);
+        reconfigurer.replace(group, definitions);
+        return views();
+    }
+
+    @PostMapping("/lb/admin/backends")
+    public List<BackendView> add(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+        String authorization, @RequestParam(defaultValue = UpstreamGroup.DEFAULT) String group,
+        @RequestBody BackendDefinition definition) {
+        requireAdmin(authorization);
+        reconfigurer.add(group, definition);
+        return views();
+    }
+
+    @DeleteMapping("/lb/admin/backends/{host}/{port}")
+    public ResponseEntity<List<BackendView>> remove(@RequestHeader(value = HttpHeaders.AUTHORIZATION,
+        required = false) String authorization, @RequestParam(defaultValue = UpstreamGroup.DEFAULT) String group,
+        @PathVariable String host, @PathVariable int port) {
+        requireAdmin(authorization);
+        if (!reconfigurer.remove(group, host, port)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(views());
+    }
+
+    private List<BackendView> views() {
+        List<BackendView> views = new ArrayList<>();
+        for (UpstreamGroup group : router.groups()) {
+            for (BackendNode node : group.getPool().allBackends()) {
+                views.add(BackendView.of(group, node, "active"));
+            }
+            for (BackendNode node : group.getPool().drainingBackends()) {
+                views.add(BackendView.of(group, node, "draining"));
+            }
+        }
+        return views;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidBackend(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AdminDisabledException.class)
+    public ResponseEntity<String> handleAdminDisabled(AdminDisabledException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AdminUnauthorizedException.class)
+    public ResponseEntity<String> handleUnauthorized(AdminUnauthorizedException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+            .body(ex.getMessage());
+    }
+
+    private void requireAdmin(String authorization) {
+        if (!enabled) {
+            throw new AdminDisabledException();
+        }
+        // Constant-time comparison so the token cannot be guessed byte by byte.
+        if (authorization == null
+            || !MessageDigest.isEqual(expectedAuthorization, authorization.getBytes(StandardCharsets.UTF_8))) {
+            throw new AdminUnauthorizedException();
+        }
+    }
+
+    public record BackendView(String group, String host, int port, String scheme, int weight, String state,
+        boolean healthy, boolean ejected, String circuit, int inFlight) {
+
+        static BackendView of(UpstreamGroup group, BackendNode node, String state) {
+            return new BackendView(group.getName(), node.getHost(), node.getPort(), node.getDefinition().getScheme(),
+                node.getWeight(), state, node.isHealthy(), node.isEjected(), node.getCircuitState().name().toLowerCase(Locale.ROOT),
+                node.getInFlight());
+        }
+    }
+
+    private static final class AdminDisabledException extends RuntimeException {
+        private AdminDisabledException() {
+            super("The backend admin API is disabled; set lb.dynamic-backends.admin-enabled=true");
+        }
+    }
+
+    private static final class AdminUnauthorizedException extends RuntimeException {
+        private AdminUnauthorizedException() {
+            super("Missing or invalid admin token");
+        }
+    }
+}
@@ -2,27 +2,42 @@ package com.sanuth.loadBalancer.controller;
 
 import java.util.Map;
 
+import org.apache.coyote.CloseNowException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ProxyMode;
 import com.sanuth.loadBalancer.exception.BackendProxyException;
 import com.sanuth.loadBalancer.exception.NoHealthyBackendException;
+import com.sanuth.loadBalancer.exception.RateLimitedException;
+import com.sanuth.loadBalancer.exception.ResponseAbortedException;
+import com.sanuth.loadBalancer.service.MetricsExporter;
 import com.sanuth.loadBalancer.service.ProxyService;
+import com.sanuth.loadBalancer.service.RateLimitService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 public class LoadBalancerController {
 
     private final ProxyService proxyService;
+    private final MetricsExporter metricsExporter;
+    private final LoadBalancerProperties properties;
+    private final RateLimitService rateLimitService;
 
-    public LoadBalancerController(ProxyService proxyService) {
+    public LoadBalancerController(ProxyService proxyService, MetricsExporter metricsExporter,
+        LoadBalancerProperties properties, RateLimitService rateLimitService) {
         this.proxyService = proxyService;
+        this.metricsExporter = metricsExporter;
+        this.properties = properties;
+        this.rateLimitService = rateLimitService;
     }
 
     @GetMapping("/lb/health")
@@ -30,9 +45,33 @@ public class LoadBalancerController {
         return Map.of("status", "ok");
     }
 
+    @GetMapping(value = "/lb/metrics", produces = MetricsExporter.CONTENT_TYPE)
+    public String metrics() {
+        return metricsExporter.scrape();
+    }
+
+    /**
+     * @throws CloseNowException if the response broke off after it was committed;
+     *                           Tomcat answers it by closing the connection, so a
+     *                           chunked body is not ended as if it were complete.
+     *                           An async exchange reports this by dispatching back
+     *                           here with {@link ProxyService#ABORTED_ATTRIBUTE} set.
+     */
     @RequestMapping("/**")
-    public ResponseEntity<byte[]> proxy(HttpServletRequest request, @RequestBody(required = false) byte[] body) {
-        return proxyService.forward(request, body);
+    public void proxy(HttpServletRequest request, HttpServletResponse response) throws CloseNowException {
+        if (request.getAttribute(ProxyService.ABORTED_ATTRIBUTE) instanceof ResponseAbortedException aborted) {
+            throw new CloseNowException(aborted.getMessage());
+        }
+        rateLimitService.check(request);
+        try {
+            if (properties.getProxyMode() == ProxyMode.ASYNC) {
+                proxyService.forwardAsync(request, response);
+            } else {
+                proxyService.forward(request, response);
+            }
+        } catch (ResponseAbortedException ex) {
+            throw new CloseNowException(ex.getMessage());
+        }
     }
 
     @ExceptionHandler(NoHealthyBackendException.class)
@@ -40,6 +79,13 @@ public class LoadBalancerController {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
     }
 
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<String> handleRateLimited(RateLimitedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+            .body(ex.getMessage());
+    }
+
     @ExceptionHandler(BackendProxyException.class)
     public ResponseEntity<String> handleProxyFailure(BackendProxyException ex) {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(ex.getMessage());
@@ -0,0 +1,12 @@
+package com.sanuth.loadBalancer.exception;
+
+/**
+ * Raised when a request is shed because the proxy is at its concurrency limit.
+ * Surfaces as {@code 503 Service Unavailable} like {@link NoHealthyBackendException}.
+ */
+public class ProxyOverloadedException extends NoHealthyBackendException {
+
+    public ProxyOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.sanuth.loadBalancer.exception;
+
+/**
+ * Raised when a client is over one of its rate limits. Surfaces as
+ * {@code 429 Too Many Requests} with a {@code Retry-After} header. Rejections are
+ * expected under abuse, so no stack trace is captured.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sanuth.loadBalancer.exception;
+
+/**
+ * Raised when proxying fails after the response was committed, so no error status
+ * can be sent any more. The connection has to be dropped instead, letting the
+ * client see that the body is incomplete.
+ */
+public class ResponseAbortedException extends RuntimeException {
+
+    public ResponseAbortedException(String message) {
+        super(message);
+    }
+}
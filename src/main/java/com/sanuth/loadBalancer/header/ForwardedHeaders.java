@@ -0,0 +1,107 @@
+package com.sanuth.loadBalancer.header;
+
+import java.util.Enumeration;
+import java.util.List;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ForwardedMode;
+import com.sanuth.loadBalancer.header.HeaderFilter.HeaderSink;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Adds this hop to the {@code X-Forwarded-*} and/or RFC 7239 {@code Forwarded}
+ * headers of a proxied request. Client-supplied chains are kept and extended, while
+ * the protocol, host and port describe the connection this balancer accepted.
+ */
+public final class ForwardedHeaders {
+
+    static final String FORWARDED = "Forwarded";
+    static final String X_FORWARDED_FOR = "X-Forwarded-For";
+    static final String X_FORWARDED_PROTO = "X-Forwarded-Proto";
+    static final String X_FORWARDED_HOST = "X-Forwarded-Host";
+    static final String X_FORWARDED_PORT = "X-Forwarded-Port";
+    static final List<String> X_FORWARDED_HEADERS = List.of(X_FORWARDED_FOR, X_FORWARDED_PROTO, X_FORWARDED_HOST,
+        X_FORWARDED_PORT);
+
+    private final boolean xForwarded;
+    private final boolean forwarded;
+    // Almost every request arrives on the same port, so its text is kept rather than rebuilt.
+    private Port lastPort = new Port(-1, "");
+
+    public ForwardedHeaders(ForwardedMode mode) {
+        this.xForwarded = mode == ForwardedMode.X_FORWARDED || mode == ForwardedMode.BOTH;
+        this.forwarded = mode == ForwardedMode.FORWARDED || mode == ForwardedMode.BOTH;
+    }
+
+    public boolean isEnabled() {
+        return xForwarded || forwarded;
+    }
+
+    public void apply(HttpServletRequest request, HeaderSink sink) {
+        if (!isEnabled()) {
+            return;
+        }
+        String client = request.getRemoteAddr();
+        String host = request.getHeader("Host");
+        String scheme = request.getScheme();
+        if (xForwarded) {
+            sink.add(X_FORWARDED_FOR, appendHop(request, X_FORWARDED_FOR, client));
+            sink.add(X_FORWARDED_PROTO, scheme);
+            if (host != null) {
+                sink.add(X_FORWARDED_HOST, host);
+            }
+            sink.add(X_FORWARDED_PORT, portText(request.getServerPort()));
+        }
+        if (forwarded) {
+            StringBuilder element = new StringBuilder("for=").append(forwardedNode(client));
+            if (host != null) {
+                element.append(";host=").append(quoteIfNeeded(host));
+            }
+            element.append(";proto=").append(scheme);
+            sink.add(FORWARDED, appendHop(request, FORWARDED, element.toString()));
+        }
+    }
+
+    private String portText(int port) {
+        Port last = lastPort;
+        if (last.port() != port) {
+            last = new Port(port, Integer.toString(port));
+            lastPort = last;
+        }
+        return last.text();
+    }
+
+    private static String appendHop(HttpServletRequest request, String name, String hop) {
+        // Most requests carry no chain yet; only walk the values when there is one.
+        if (request.getHeader(name) == null) {
+            return hop;
+        }
+        Enumeration<String> existing = request.getHeaders(name);
+        StringBuilder chain = new StringBuilder();
+        while (existing.hasMoreElements()) {
+            chain.append(existing.nextElement()).append(", ");
+        }
+        return chain.append(hop).toString();
+    }
+
+    private static String forwardedNode(String address) {
+        // IPv6 addresses must be bracketed and quoted (RFC 7239, section 6).
+        if (address.indexOf(':') >= 0) {
+            return "\"[" + address + "]\"";
+        }
+        return address;
+    }
+
+    private static String quoteIfNeeded(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_')) {
+                return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            }
+        }
+        return value;
+    }
+
+    private record Port(int port, String text) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.sanuth.loadBalancer.header;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ForwardedMode;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.HeaderRules;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Headers;
+
+/**
+ * Precompiled header policy for one direction of the proxy. Decides which incoming
+ * headers are forwarded and which configured headers are added, so the per-request
+ * work is a table lookup per header name with no regex, lowercasing or copying.
+ *
+ * <p>Hop-by-hop headers (RFC 7230, section 6.1) are always dropped, together with any
+ * header the message's own {@code Connection} header nominates.
+ */
+public final class HeaderFilter {
+
+    static final List<String> HOP_BY_HOP = List.of("Connection", "Keep-Alive", "Proxy-Connection",
+        "Proxy-Authenticate", "Proxy-Authorization", "TE", "Trailer", "Transfer-Encoding", "Upgrade");
+
+    // HttpClient frames requests itself and rejects these outright.
+    private static final List<String> CLIENT_MANAGED = List.of("Host", "Content-Length", "Expect");
+
+    private final HeaderNameSet dropped;
+    private final String[] addedNames;
+    private final String[] addedValues;
+
+    private HeaderFilter(List<String> dropped, HeaderRules rules) {
+        List<String> names = new ArrayList<>(dropped);
+        names.addAll(rules.getRemove());
+        names.addAll(rules.getSet().keySet());
+        this.dropped = HeaderNameSet.of(names);
+
+        int count = rules.getSet().size() + rules.getAdd().size();
+        this.addedNames = new String[count];
+        this.addedValues = new String[count];
+        int i = 0;
+        for (Map<String, String> added : List.of(rules.getSet(), rules.getAdd())) {
+            for (Map.Entry<String, String> entry : added.entrySet()) {
+                addedNames[i] = entry.getKey();
+                addedValues[i] = entry.getValue();
+                i++;
+            }
+        }
+    }
+
+    public static HeaderFilter forRequests(Headers config) {
+        List<String> dropped = new ArrayList<>(HOP_BY_HOP);
+        dropped.addAll(CLIENT_MANAGED);
+        // Forwarding headers are rebuilt by ForwardedHeaders with this hop appended.
+        ForwardedMode mode = config.getForwarded();
+        if (mode == ForwardedMode.X_FORWARDED || mode == ForwardedMode.BOTH) {
+            dropped.addAll(ForwardedHeaders.X_FORWARDED_HEADERS);
+        }
+        if (mode == ForwardedMode.FORWARDED || mode == ForwardedMode.BOTH) {
+            dropped.add(ForwardedHeaders.FORWARDED);
+        }
+        return new HeaderFilter(dropped, config.getRequest());
+    }
+
+    public static HeaderFilter forResponses(Headers config) {
+        return new HeaderFilter(HOP_BY_HOP, config.getResponse());
+    }
+
+    /**
+     * @param connection value of the message's {@code Connection} header, or {@code null}
+     */
+    public boolean forwards(String name, String connection) {
+        return !dropped.contains(name) && (connection == null || !nominates(connection, name));
+    }
+
+    /**
+     * @param connection values of the message's {@code Connection} header, or {@code null}
+     */
+    public boolean forwards(String name, List<String> connection) {
+        if (dropped.contains(name)) {
+            return false;
+        }
+        if (connection != null) {
+            for (int i = 0; i < connection.size(); i++) {
+                if (nominates(connection.get(i), name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean addsHeaders() {
+        return addedNames.length > 0;
+    }
+
+    /**
+     * Emits the configured {@code set} and {@code add} headers.
+     */
+    public void addConfigured(HeaderSink sink) {
+        for (int i = 0; i < addedNames.length; i++) {
+            sink.add(addedNames[i], addedValues[i]);
+        }
+    }
+
+    /**
+     * Whether the comma-separated token list {@code connection} names {@code header}.
+     */
+    static boolean nominates(String connection, String header) {
+        int length = connection.length();
+        int start = 0;
+        while (start < length) {
+            int end = connection.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int tokenStart = start;
+            int tokenEnd = end;
+            while (tokenStart < tokenEnd && connection.charAt(tokenStart) == ' ') {
+                tokenStart++;
+            }
+            while (tokenEnd > tokenStart && connection.charAt(tokenEnd - 1) == ' ') {
+                tokenEnd--;
+            }
+            if (HeaderNameSet.sameName(header, connection, tokenStart, tokenEnd)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface HeaderSink {
+        void add(String name, String value);
+    }
+}
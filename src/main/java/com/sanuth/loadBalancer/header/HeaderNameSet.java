@@ -0,0 +1,71 @@
+package com.sanuth.loadBalancer.header;
+
+import java.util.Collection;
+
+/**
+ * Immutable set of header names with case-insensitive lookup that neither lowercases
+ * nor allocates. Names are folded to lower case one character at a time while
+ * hashing into an open-addressed table, and candidates are confirmed with
+ * {@link String#regionMatches(boolean, int, String, int, int)}.
+ */
+public final class HeaderNameSet {
+
+    private final String[] table;
+    private final int mask;
+
+    private HeaderNameSet(String[] table) {
+        this.table = table;
+        this.mask = table.length - 1;
+    }
+
+    public static HeaderNameSet of(Collection<String> names) {
+        // Keep the table at most half full so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(2, names.size()) * 2) * 2;
+        String[] table = new String[capacity];
+        for (String name : names) {
+            int index = hash(name, 0, name.length()) & (capacity - 1);
+            while (table[index] != null && !sameName(table[index], name, 0, name.length())) {
+                index = (index + 1) & (capacity - 1);
+            }
+            table[index] = name;
+        }
+        return new HeaderNameSet(table);
+    }
+
+    public boolean contains(String name) {
+        return contains(name, 0, name.length());
+    }
+
+    /**
+     * Whether {@code source[from, to)} is one of the names in this set.
+     */
+    public boolean contains(String source, int from, int to) {
+        int index = hash(source, from, to) & mask;
+        while (true) {
+            String candidate = table[index];
+            if (candidate == null) {
+                return false;
+            }
+            if (sameName(candidate, source, from, to)) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    static boolean sameName(String name, String source, int from, int to) {
+        return name.length() == to - from && name.regionMatches(true, 0, source, from, to - from);
+    }
+
+    private static int hash(String source, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            hash = 31 * hash + c;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sanuth.loadBalancer.limit;
+
+/**
+ * Additive-increase / multiplicative-decrease limit, the TCP Reno rule applied to
+ * request concurrency. Every answer faster than {@code latencyThresholdNanos} adds
+ * one while at least half the limit is in use; a failure or a slower answer
+ * multiplies the limit by {@code 0.9}.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final DoubleCell limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = new DoubleCell(clamp(initialLimit));
+    }
+
+    @Override
+    public int current() {
+        return (int) limit.get();
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight) {
+        if (rttNanos > latencyThresholdNanos) {
+            onDropped();
+            return;
+        }
+        limit.update(current -> inFlight * 2 >= current ? clamp(current + 1) : current);
+    }
+
+    @Override
+    public void onDropped() {
+        limit.update(current -> clamp(current * BACKOFF));
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,25 @@
+package com.sanuth.loadBalancer.limit;
+
+/**
+ * An adaptive cap on concurrent requests, adjusted from the round-trip times and
+ * failures of the requests it admits. Implementations are lock-free and shared by
+ * all request threads.
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * The number of requests currently allowed in flight.
+     */
+    int current();
+
+    /**
+     * @param rttNanos time until the backend answered
+     * @param inFlight requests in flight when the sample was taken
+     */
+    void onSample(long rttNanos, int inFlight);
+
+    /**
+     * A request failed or timed out: a sign of overload.
+     */
+    void onDropped();
+}
@@ -0,0 +1,25 @@
+package com.sanuth.loadBalancer.limit;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.AdaptiveConcurrency;
+
+public final class ConcurrencyLimits {
+
+    private ConcurrencyLimits() {
+    }
+
+    public static ConcurrencyLimit create(AdaptiveConcurrency config, int initialLimit, int maxLimit) {
+        return switch (config.getAlgorithm()) {
+            case GRADIENT -> new GradientLimit(initialLimit, config.getMinLimit(), maxLimit);
+            case AIMD -> new AimdLimit(initialLimit, config.getMinLimit(), maxLimit,
+                config.getAimdLatencyThresholdMs() * 1_000_000L);
+        };
+    }
+
+    public static ConcurrencyLimit perBackend(AdaptiveConcurrency config) {
+        return create(config, config.getInitialLimit(), config.getMaxLimit());
+    }
+
+    public static ConcurrencyLimit global(AdaptiveConcurrency config) {
+        return create(config, config.getGlobalInitialLimit(), config.getGlobalMaxLimit());
+    }
+}
@@ -0,0 +1,31 @@
+package com.sanuth.loadBalancer.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A {@code double} updated by CAS on its raw bits. Writers racing on the same value
+ * simply retry, so no sample is lost and readers never block.
+ */
+final class DoubleCell {
+
+    private final AtomicLong bits;
+
+    DoubleCell(double initial) {
+        this.bits = new AtomicLong(Double.doubleToRawLongBits(initial));
+    }
+
+    double get() {
+        return Double.longBitsToDouble(bits.get());
+    }
+
+    double update(DoubleUnaryOperator function) {
+        while (true) {
+            long previousBits = bits.get();
+            double next = function.applyAsDouble(Double.longBitsToDouble(previousBits));
+            if (bits.compareAndSet(previousBits, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+    }
+}
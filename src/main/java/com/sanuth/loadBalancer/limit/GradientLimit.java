@@ -0,0 +1,64 @@
+package com.sanuth.loadBalancer.limit;
+
+/**
+ * Delay-gradient limit after Netflix's Gradient2. A slow moving average of RTT
+ * stands in for the no-load latency and a fast one for the current latency; their
+ * ratio (clamped to {@code [0.5, 1]}) scales the limit down as queues build, while a
+ * {@code sqrt(limit)} allowance lets it probe upwards when latency is flat.
+ *
+ * <p>The limit only grows while at least half of it is in use, so an idle period
+ * cannot inflate it to a level the backend has never actually sustained.
+ */
+public class GradientLimit implements ConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final DoubleCell limit;
+    private final DoubleCell longRtt = new DoubleCell(0);
+    private final DoubleCell shortRtt = new DoubleCell(0);
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = new DoubleCell(clamp(initialLimit));
+    }
+
+    @Override
+    public int current() {
+        return (int) limit.get();
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight) {
+        double rtt = Math.max(1, rttNanos);
+        double shortAverage = shortRtt.update(previous -> previous == 0 ? rtt : previous + SHORT_ALPHA * (rtt - previous));
+        double longAverage = longRtt.update(previous -> {
+            double next = previous == 0 ? rtt : previous + LONG_ALPHA * (rtt - previous);
+            // Let the baseline come down quickly once a congested period is over.
+            return next > 2 * shortAverage ? next * 0.95 : next;
+        });
+        limit.update(current -> {
+            if (inFlight < current / 2) {
+                return current;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longAverage / shortAverage));
+            double target = current * gradient + Math.sqrt(current);
+            return clamp(current * (1 - SMOOTHING) + target * SMOOTHING);
+        });
+    }
+
+    @Override
+    public void onDropped() {
+        limit.update(current -> clamp(current * DROP_BACKOFF));
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,110 @@
+package com.sanuth.loadBalancer.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-backend traffic counters and latency histograms. Everything here is updated on
+ * the proxy hot path with striped adders and atomic array slots, never a lock.
+ *
+ * <p>{@code java.net.http} does not report when a connection was established, so the
+ * first latency phase is time to response headers (which includes any connect), and
+ * connect failures are counted separately.
+ */
+public class BackendMetrics {
+
+    private static final long RECENT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder[] statusClasses = {
+        new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()
+    };
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder otherFailures = new LongAdder();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final WindowedLatencyHistogram recentTimeToFirstByte = new WindowedLatencyHistogram(RECENT_WINDOW_NANOS);
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+    private final LongAdder probeSuccesses = new LongAdder();
+    private final LongAdder probeFailures = new LongAdder();
+    private final LatencyHistogram probeTime = new LatencyHistogram();
+
+    public void recordResponseHeaders(int statusCode, long elapsedNanos) {
+        requests.increment();
+        int statusClass = statusCode / 100;
+        if (statusClass >= 1 && statusClass <= 5) {
+            statusClasses[statusClass - 1].increment();
+        }
+        timeToFirstByte.recordNanos(elapsedNanos);
+        recentTimeToFirstByte.recordNanos(elapsedNanos);
+    }
+
+    public void recordCompleted(long elapsedNanos) {
+        totalTime.recordNanos(elapsedNanos);
+    }
+
+    public void recordFailure(boolean connectFailure, long elapsedNanos) {
+        requests.increment();
+        if (connectFailure) {
+            connectFailures.increment();
+        } else {
+            otherFailures.increment();
+        }
+        totalTime.recordNanos(elapsedNanos);
+    }
+
+    public void recordProbe(boolean success, long elapsedNanos) {
+        if (success) {
+            probeSuccesses.increment();
+        } else {
+            probeFailures.increment();
+        }
+        probeTime.recordNanos(elapsedNanos);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @param statusClass 1 to 5 for 1xx to 5xx
+     */
+    public long getStatusClassCount(int statusClass) {
+        return statusClasses[statusClass - 1].sum();
+    }
+
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    public long getOtherFailures() {
+        return otherFailures.sum();
+    }
+
+    public LatencyHistogram getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * Time to response headers over the last 10 to 20 seconds, for decisions that must
+     * follow the backend's current latency rather than its lifetime average.
+     */
+    public WindowedLatencyHistogram getRecentTimeToFirstByte() {
+        return recentTimeToFirstByte;
+    }
+
+    public LatencyHistogram getTotalTime() {
+        return totalTime;
+    }
+
+    public long getProbeSuccesses() {
+        return probeSuccesses.sum();
+    }
+
+    public long getProbeFailures() {
+        return probeFailures.sum();
+    }
+
+    public LatencyHistogram getProbeTime() {
+        return probeTime;
+    }
+}
@@ -1,16 +1,85 @@
 package com.sanuth.loadBalancer.model;
 
+import java.net.URI;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.limit.ConcurrencyLimit;
 
 public class BackendNode {
 
+    public static final long NOT_WARMING = Long.MIN_VALUE;
+
+    private static final Runnable NO_OP = () -> { };
+    private static final CircuitBreaker.Permit UNGUARDED = new CircuitBreaker.Permit() { };
+    private static final long DEFAULT_LATENCY_DECAY_MS = 10_000;
+
     private final BackendDefinition definition;
+    private final String baseUrl;
+    private final URI baseUri;
     private final AtomicBoolean healthy = new AtomicBoolean(true);
+    private final AtomicBoolean ejected = new AtomicBoolean(false);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicLong warmingSinceNanos = new AtomicLong(NOT_WARMING);
+    private final PeakEwma latency;
+    private final BackendMetrics metrics = new BackendMetrics();
+    private final int maxInFlight;
+    private final ConcurrencyLimit adaptiveLimit;
+    private final CircuitBreaker circuitBreaker;
+    private final Runnable stateListener;
 
     public BackendNode(BackendDefinition definition) {
+        this(definition, NO_OP);
+    }
+
+    public BackendNode(BackendDefinition definition, Runnable stateListener) {
+        this(definition, stateListener, DEFAULT_LATENCY_DECAY_MS, 0);
+    }
+
+    /**
+     * @param stateListener invoked whenever this node's routing state actually changes,
+     *                      so owners can refresh anything derived from it
+     * @param latencyDecayMs time constant of the peak-EWMA latency estimate
+     * @param maxInFlight most requests (and so HTTP/1.1 connections) allowed at once,
+     *                    or {@code 0} for no limit
+     */
+    public BackendNode(BackendDefinition definition, Runnable stateListener, long latencyDecayMs, int maxInFlight) {
+        this(definition, stateListener, latencyDecayMs, maxInFlight, null);
+    }
+
+    /**
+     * @param adaptiveLimit limit learned from this node's latency, applied on top of
+     *                      {@code maxInFlight}, or {@code null} for none
+     */
+    public BackendNode(BackendDefinition definition, Runnable stateListener, long latencyDecayMs, int maxInFlight,
+        ConcurrencyLimit adaptiveLimit) {
+        this(definition, stateListener, latencyDecayMs, maxInFlight, adaptiveLimit, null);
+    }
+
+    /**
+     * @param circuitBreaker breaker fed by {@link #recordCallOutcome}, or {@code null}
+     *                       for none
+     */
+    public BackendNode(BackendDefinition definition, Runnable stateListener, long latencyDecayMs, int maxInFlight,
+        ConcurrencyLimit adaptiveLimit, CircuitBreaker circuitBreaker) {
         this.definition = definition;
+        // Parsed once here so a bad definition fails when it is loaded, not per request.
+        this.baseUrl = definition.baseUrl();
+        this.baseUri = URI.create(baseUrl);
+        if (baseUri.getHost() == null) {
+            throw new IllegalArgumentException("Invalid backend address: " + baseUrl);
+        }
+        this.stateListener = stateListener;
+        this.latency = new PeakEwma(latencyDecayMs);
+        this.maxInFlight = Math.max(0, maxInFlight);
+        this.adaptiveLimit = adaptiveLimit;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public BackendDefinition getDefinition() {
+        return definition;
     }
 
     public String getHost() {
@@ -25,8 +94,23 @@ public class BackendNode {
         return definition.getWeight();
     }
 
+    /**
+     * {@code scheme://host:port} of this backend, without a trailing slash.
+     */
     public String getBaseUrl() {
-        return definition.baseUrl();
+        return baseUrl;
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    /**
+     * The connection limit configured on this backend itself, or {@code null} if it
+     * uses the pool-wide default.
+     */
+    public Integer getDefinedMaxConnections() {
+        return definition.getMaxConnections();
     }
 
     public boolean isHealthy() {
@@ -34,6 +118,195 @@ public class BackendNode {
     }
 
     public void setHealthy(boolean isHealthy) {
-        healthy.set(isHealthy);
+        if (healthy.getAndSet(isHealthy) != isHealthy) {
+            if (isHealthy) {
+                startWarming();
+            }
+            stateListener.run();
+        }
+    }
+
+    public boolean isEjected() {
+        return ejected.get();
+    }
+
+    /**
+     * Temporarily removes a node that is still passing active health checks from
+     * rotation because live traffic shows it misbehaving.
+     */
+    public void setEjected(boolean isEjected) {
+        if (ejected.getAndSet(isEjected) != isEjected) {
+            if (!isEjected) {
+                startWarming();
+            }
+            stateListener.run();
+        }
+    }
+
+    /**
+     * Marks the node as just (re)entering rotation, so slow start ramps its share of
+     * traffic up from now.
+     */
+    public void startWarming() {
+        warmingSinceNanos.set(System.nanoTime());
+    }
+
+    /**
+     * When the node last started warming up, or {@link #NOT_WARMING}.
+     */
+    public long getWarmingSinceNanos() {
+        return warmingSinceNanos.get();
+    }
+
+    /**
+     * Ends the warm-up that began at {@code sinceNanos}, unless a newer one has started.
+     */
+    public void finishWarming(long sinceNanos) {
+        warmingSinceNanos.compareAndSet(sinceNanos, NOT_WARMING);
+    }
+
+    /**
+     * Whether the node may receive new requests right now.
+     */
+    public boolean isAvailable() {
+        return healthy.get() && !ejected.get() && getCircuitState() != CircuitBreaker.State.OPEN;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker != null ? circuitBreaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Whether the circuit lets a request through: it is closed, or half-open with
+     * trial calls to spare.
+     */
+    public boolean isCallPermitted() {
+        return circuitBreaker == null || circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Half-opens the circuit if it is open and its open period is over.
+     *
+     * @return whether the node is still held out by an open circuit
+     */
+    public boolean checkCircuitOpen(long nowNanos) {
+        if (circuitBreaker == null || circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+            return false;
+        }
+        if (circuitBreaker.tryHalfOpen(nowNanos)) {
+            stateListener.run();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * When an open circuit will half-open.
+     */
+    public long getCircuitOpenUntilNanos() {
+        return circuitBreaker != null ? circuitBreaker.getOpenUntilNanos() : 0;
+    }
+
+    /**
+     * Feeds the outcome of a request to the circuit breaker.
+     *
+     * @param permit what {@link #tryBeginRequest()} returned for the request
+     * @param failed whether the request failed or timed out, or got a server error
+     * @param elapsedNanos time until the backend answered, or gave up
+     */
+    public void recordCallOutcome(CircuitBreaker.Permit permit, boolean failed, long elapsedNanos) {
+        if (circuitBreaker != null && circuitBreaker.onResult(permit, failed, elapsedNanos, System.nanoTime())) {
+            if (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) {
+                startWarming();
+            }
+            stateListener.run();
+        }
+    }
+
+    /**
+     * Reserves an in-flight slot for a proxied request, unless the node is already at
+     * its connection or adaptive concurrency limit, or its half-open circuit has no
+     * trial calls left. A successful call must be paired with {@link #endRequest()}.
+     *
+     * @return the circuit permit to report the request's outcome with, or {@code null}
+     *         if the request may not go through
+     */
+    public CircuitBreaker.Permit tryBeginRequest() {
+        int limit = getConcurrencyLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (limit > 0 && current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        if (circuitBreaker == null) {
+            return UNGUARDED;
+        }
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission(System.nanoTime());
+        if (permit == null) {
+            inFlight.decrementAndGet();
+        }
+        return permit;
+    }
+
+    /**
+     * Records the time from {@code startNanos} until the backend answered.
+     */
+    public void recordLatency(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        latency.record(elapsed);
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onSample(elapsed, inFlight.get());
+        }
+    }
+
+    /**
+     * Records a request that got no answer, which shrinks the adaptive limit.
+     */
+    public void recordDropped() {
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onDropped();
+        }
+    }
+
+    public void endRequest() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Ends a request that was reserved but abandoned before it produced an outcome,
+     * handing back its half-open trial permit if it held one.
+     */
+    public void cancelRequest(CircuitBreaker.Permit permit) {
+        endRequest();
+        if (circuitBreaker != null) {
+            circuitBreaker.releasePermission(permit);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The most requests this node accepts right now, or {@code 0} for no limit.
+     */
+    public int getConcurrencyLimit() {
+        if (adaptiveLimit == null) {
+            return maxInFlight;
+        }
+        int adaptive = adaptiveLimit.current();
+        return maxInFlight > 0 ? Math.min(maxInFlight, adaptive) : adaptive;
+    }
+
+    public double getLatencyEstimateNanos() {
+        return latency.currentNanos();
+    }
+
+    public BackendMetrics getMetrics() {
+        return metrics;
     }
 }
@@ -0,0 +1,242 @@
+package com.sanuth.loadBalancer.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+
+/**
+ * Closed / open / half-open circuit breaker for one backend, driven by the failure
+ * and slow-call rates over a sliding window of its most recent calls.
+ *
+ * <p>Nothing here takes a lock. Each state is an immutable phase object swapped in by
+ * compare-and-set, and the phase carries its own counters: a closed phase owns a ring
+ * buffer of call outcomes with running totals, a half-open phase owns its trial
+ * permits and results. A transition therefore starts from fresh counts without
+ * having to reset shared ones under a race. Each call that is let through gets the
+ * phase that admitted it as its {@link Permit}; its outcome, or the permit itself if
+ * the call is abandoned, only counts while that phase is still current. A call that
+ * started while closed and stalls past a trip therefore never stands in for a
+ * half-open trial, and cannot hand back a trial permit it never took.
+ *
+ * <p>Transitions are reported to the caller rather than to listeners, so the owning
+ * node decides how to publish them.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Ties a call to the phase that let it through.
+     */
+    public interface Permit {
+    }
+
+    private static final int FAILED = 1;
+    private static final int SLOW = 2;
+    private static final int RECORDED = 4;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final AtomicReference<Phase> phase;
+
+    public CircuitBreaker(LoadBalancerProperties.CircuitBreaker config) {
+        this.windowSize = Math.max(1, config.getWindowSize());
+        this.minimumCalls = Math.clamp(config.getMinimumCalls(), 1, windowSize);
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getSlowCallDurationMs()));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getOpenDurationMs()));
+        this.halfOpenCalls = Math.max(1, config.getHalfOpenCalls());
+        this.phase = new AtomicReference<>(closed());
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * Whether a call would be let through right now, without claiming a trial permit.
+     */
+    public boolean isCallPermitted() {
+        Phase current = phase.get();
+        return switch (current.state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> current.permits.get() > 0;
+        };
+    }
+
+    /**
+     * Lets a call through, claiming one of the trial permits if the circuit is
+     * half-open. A half-open round whose permits were all claimed but never answered
+     * (the calls were abandoned) is restarted once it has lasted a full open period.
+     *
+     * @return the call's permit, or {@code null} if it may not go through
+     */
+    public Permit tryAcquirePermission(long nowNanos) {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED -> {
+                    return current;
+                }
+                case OPEN -> {
+                    return null;
+                }
+                case HALF_OPEN -> {
+                    int permits = current.permits.get();
+                    if (permits > 0) {
+                        if (current.permits.compareAndSet(permits, permits - 1)) {
+                            return current;
+                        }
+                    } else if (nowNanos - current.sinceNanos >= openNanos) {
+                        phase.compareAndSet(current, halfOpen(nowNanos));
+                    } else {
+                        return null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands back the trial permit of a call that was never made, if the half-open
+     * round that issued it is still running.
+     */
+    public void releasePermission(Permit permit) {
+        Phase current = phase.get();
+        if (permit == current && current.state == State.HALF_OPEN) {
+            current.permits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Half-opens an open circuit whose open period has passed.
+     *
+     * @return whether the state changed
+     */
+    public boolean tryHalfOpen(long nowNanos) {
+        Phase current = phase.get();
+        return current.state == State.OPEN && nowNanos - current.sinceNanos >= openNanos
+            && phase.compareAndSet(current, halfOpen(nowNanos));
+    }
+
+    /**
+     * When an open circuit may half-open; only meaningful while it is open.
+     */
+    public long getOpenUntilNanos() {
+        return phase.get().sinceNanos + openNanos;
+    }
+
+    /**
+     * Records the outcome of a call, unless the phase that let it through has since
+     * been replaced.
+     *
+     * @param permit what {@link #tryAcquirePermission} returned for the call
+     * @param failed whether the call failed or timed out, or the backend answered with
+     *               a server error
+     * @param elapsedNanos time until the backend answered, or gave up
+     * @return whether the state changed
+     */
+    public boolean onResult(Permit permit, boolean failed, long elapsedNanos, long nowNanos) {
+        Phase current = phase.get();
+        if (permit != current) {
+            return false;
+        }
+        int outcome = RECORDED | (failed ? FAILED : 0) | (elapsedNanos >= slowCallNanos ? SLOW : 0);
+        switch (current.state) {
+            case CLOSED -> {
+                current.record(outcome);
+                int calls = current.calls.get();
+                if (calls >= minimumCalls && tripped(current, calls)) {
+                    return phase.compareAndSet(current, open(nowNanos));
+                }
+                return false;
+            }
+            case HALF_OPEN -> {
+                int calls = current.calls.incrementAndGet();
+                current.count(outcome, 1);
+                if (calls != halfOpenCalls) {
+                    return false;
+                }
+                Phase next = tripped(current, calls) ? open(nowNanos) : closed();
+                return phase.compareAndSet(current, next);
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private boolean tripped(Phase current, int calls) {
+        return current.failures.get() >= failureRateThreshold * calls
+            || current.slowCalls.get() >= slowCallRateThreshold * calls;
+    }
+
+    private Phase closed() {
+        return new Phase(State.CLOSED, 0, windowSize, 0);
+    }
+
+    private Phase open(long nowNanos) {
+        return new Phase(State.OPEN, nowNanos, 0, 0);
+    }
+
+    private Phase halfOpen(long nowNanos) {
+        return new Phase(State.HALF_OPEN, nowNanos, 0, halfOpenCalls);
+    }
+
+    private static final class Phase implements Permit {
+        private final State state;
+        private final long sinceNanos;
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+        private final AtomicInteger permits;
+
+        Phase(State state, long sinceNanos, int windowSize, int permits) {
+            this.state = state;
+            this.sinceNanos = sinceNanos;
+            this.outcomes = windowSize > 0 ? new AtomicIntegerArray(windowSize) : null;
+            this.permits = new AtomicInteger(permits);
+        }
+
+        /**
+         * Writes an outcome into the ring, replacing the oldest one, and moves the
+         * running totals by the difference.
+         */
+        void record(int outcome) {
+            int slot = (int) (cursor.getAndIncrement() % outcomes.length());
+            int evicted = outcomes.getAndSet(slot, outcome);
+            if (evicted == 0) {
+                calls.incrementAndGet();
+            } else {
+                count(evicted, -1);
+            }
+            count(outcome, 1);
+        }
+
+        void count(int outcome, int delta) {
+            if ((outcome & FAILED) != 0) {
+                failures.addAndGet(delta);
+            }
+            if ((outcome & SLOW) != 0) {
+                slowCalls.addAndGet(delta);
+            }
+        }
+    }
+}
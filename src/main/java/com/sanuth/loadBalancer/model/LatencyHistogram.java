@@ -0,0 +1,119 @@
+package com.sanuth.loadBalancer.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram. Values are
+ * kept in microseconds; each power of two is split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, bounding the relative error of any reported value to about 6%.
+ * Recording is an index computation plus one atomic increment and never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 microseconds is about 12 days; anything slower is clamped into the last bucket.
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public double sumSeconds() {
+        return totalMicros.sum() / 1_000_000.0;
+    }
+
+    /**
+     * Number of recorded values no greater than {@code seconds}. Only buckets lying
+     * wholly at or below the bound are counted, so the result never includes a value
+     * above it, as Prometheus {@code le} requires; values in the bucket straddling the
+     * bound are left to the next boundary.
+     */
+    public long countAtOrBelow(double seconds) {
+        long micros = (long) (seconds * 1_000_000);
+        int lastIndex = indexOf(micros);
+        if (upperBoundMicros(lastIndex) > micros) {
+            lastIndex--;
+        }
+        long cumulative = 0;
+        for (int i = 0; i <= lastIndex; i++) {
+            cumulative += counts.get(i);
+        }
+        return cumulative;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound in nanoseconds of the bucket holding that percentile, or
+     *         {@code 0} if nothing has been recorded
+     */
+    public long valueAtPercentileNanos(double percentile) {
+        return valueAtPercentileNanos(percentile, this);
+    }
+
+    /**
+     * {@link #valueAtPercentileNanos(double)} over the values of all {@code histograms}
+     * taken together.
+     */
+    static long valueAtPercentileNanos(double percentile, LatencyHistogram... histograms) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += countAt(i, histograms);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += countAt(i, histograms);
+            if (cumulative >= target) {
+                return upperBoundMicros(i) * 1_000;
+            }
+        }
+        return upperBoundMicros(BUCKET_COUNT - 1) * 1_000;
+    }
+
+    private static long countAt(int index, LatencyHistogram[] histograms) {
+        long count = 0;
+        for (LatencyHistogram histogram : histograms) {
+            count += histogram.counts.get(index);
+        }
+        return count;
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
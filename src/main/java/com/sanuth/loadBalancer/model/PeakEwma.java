@@ -0,0 +1,55 @@
+package com.sanuth.loadBalancer.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peak-sensitive exponentially weighted moving average of request latency, as used
+ * by Finagle and Linkerd. A sample above the current average replaces it outright,
+ * lower samples are blended in with a weight that depends on the time since the last
+ * sample, so a node that turns slow is penalised at once and recovers gradually.
+ *
+ * <p>Updates are a CAS loop on the raw double bits; concurrent writers may drop a
+ * sample under contention, which is acceptable for a load signal.
+ */
+public class PeakEwma {
+
+    private final double decayNanos;
+    private final AtomicLong costBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+    private volatile long lastSampleNanos = System.nanoTime();
+
+    public PeakEwma(long decayMs) {
+        this.decayNanos = Math.max(1, decayMs) * 1_000_000.0;
+    }
+
+    public void record(long latencyNanos) {
+        long now = System.nanoTime();
+        while (true) {
+            long previousBits = costBits.get();
+            double previous = Double.longBitsToDouble(previousBits);
+            double next;
+            if (latencyNanos > previous) {
+                next = latencyNanos;
+            } else {
+                double weight = decayWeight(now);
+                next = previous * weight + latencyNanos * (1.0 - weight);
+            }
+            if (costBits.compareAndSet(previousBits, Double.doubleToRawLongBits(next))) {
+                lastSampleNanos = now;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Current estimate in nanoseconds, decayed towards zero for the time elapsed since
+     * the last sample so an idle node is eventually retried.
+     */
+    public double currentNanos() {
+        return Double.longBitsToDouble(costBits.get()) * decayWeight(System.nanoTime());
+    }
+
+    private double decayWeight(long now) {
+        long elapsed = Math.max(0, now - lastSampleNanos);
+        return Math.exp(-elapsed / decayNanos);
+    }
+}
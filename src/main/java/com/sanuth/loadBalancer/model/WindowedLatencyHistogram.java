@@ -0,0 +1,75 @@
+package com.sanuth.loadBalancer.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link LatencyHistogram} over recent traffic only. Values go into the current
+ * window; once it is a window old it becomes the previous window and a fresh one
+ * starts, so queries always see between one and two windows of history and a shift in
+ * latency is fully reflected within two windows. Rotation happens lazily on the next
+ * record or query and allocates one histogram per window.
+ */
+public class WindowedLatencyHistogram {
+
+    private static final LatencyHistogram EMPTY = new LatencyHistogram();
+
+    private final long windowNanos;
+    private final AtomicReference<Windows> windows;
+    private volatile Percentile cachedPercentile;
+
+    public WindowedLatencyHistogram(long windowNanos) {
+        this.windowNanos = windowNanos;
+        this.windows = new AtomicReference<>(new Windows(new LatencyHistogram(), EMPTY, System.nanoTime()));
+    }
+
+    public void recordNanos(long nanos) {
+        // A recorder racing a rotation lands in what just became the previous window,
+        // which is still counted.
+        rotate(System.nanoTime()).current().recordNanos(nanos);
+    }
+
+    public long count() {
+        Windows current = rotate(System.nanoTime());
+        return current.current().count() + current.previous().count();
+    }
+
+    /**
+     * Percentile over the current and previous windows, as of at most
+     * {@code maxAgeNanos} ago, for callers on the request path that cannot afford a
+     * full bucket scan each time.
+     *
+     * @param percentile between 0 and 100
+     * @return nanoseconds, or {@code 0} if nothing has been recorded recently
+     */
+    public long cachedValueAtPercentileNanos(double percentile, long maxAgeNanos) {
+        long now = System.nanoTime();
+        Percentile cached = cachedPercentile;
+        if (cached != null && cached.percentile() == percentile && now - cached.computedAtNanos() < maxAgeNanos) {
+            return cached.valueNanos();
+        }
+        Windows current = rotate(now);
+        long value = LatencyHistogram.valueAtPercentileNanos(percentile, current.current(), current.previous());
+        cachedPercentile = new Percentile(percentile, value, now);
+        return value;
+    }
+
+    private Windows rotate(long nowNanos) {
+        Windows current = windows.get();
+        while (nowNanos - current.startedAtNanos() >= windowNanos) {
+            // After a whole idle window the old values are too stale to keep.
+            LatencyHistogram previous = nowNanos - current.startedAtNanos() < 2 * windowNanos ? current.current() : EMPTY;
+            Windows rotated = new Windows(new LatencyHistogram(), previous, nowNanos);
+            if (windows.compareAndSet(current, rotated)) {
+                return rotated;
+            }
+            current = windows.get();
+        }
+        return current;
+    }
+
+    private record Windows(LatencyHistogram current, LatencyHistogram previous, long startedAtNanos) {
+    }
+
+    private record Percentile(double percentile, long valueNanos, long computedAtNanos) {
+    }
+}
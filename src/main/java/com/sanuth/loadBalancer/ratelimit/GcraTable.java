@@ -0,0 +1,193 @@
+package com.sanuth.loadBalancer.ratelimit;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key rate limits using the generic cell rate algorithm (GCRA), the continuous
+ * form of a token bucket. Each key keeps a single "theoretical arrival time": a
+ * request is allowed if that time is no more than the burst tolerance ahead of now,
+ * and then pushes it one emission interval further. Checking a key is a map lookup
+ * plus one compare-and-set; nothing is locked and nothing is allocated for a key
+ * that is already tracked.
+ *
+ * <p>Keys are spread over independent shards, each bounded to its share of
+ * {@code maxEntries}. A key whose arrival time has passed has a full bucket and so
+ * carries no state; the owner sweeps such keys out by calling {@link #evictIdle}
+ * periodically, never on the request path. A new key that finds its shard full is
+ * charged to the shard's shared overflow bucket instead, so a flood of new keys
+ * (say, random API keys) is limited as one client and each check stays O(1).
+ */
+public final class GcraTable {
+
+    private final ConcurrentHashMap<String, Bucket>[] shards;
+    private final Bucket[] overflow;
+    private final int mask;
+    private final int maxEntriesPerShard;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final boolean countAdmitted;
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * @param countAdmitted whether to count admitted requests per key for
+     *                      {@link #drainAdmitted()}
+     */
+    @SuppressWarnings("unchecked")
+    public GcraTable(double requestsPerSecond, int burst, int shardCount, int maxEntries, boolean countAdmitted) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limits need a positive rate and a burst of at least 1");
+        }
+        int shardsPowerOfTwo = shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.shards = new ConcurrentHashMap[shardsPowerOfTwo];
+        this.overflow = new Bucket[shardsPowerOfTwo];
+        long created = System.nanoTime();
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+            overflow[i] = new Bucket(created, false);
+        }
+        this.mask = shards.length - 1;
+        this.maxEntriesPerShard = Math.max(1, (maxEntries + shards.length - 1) / shards.length);
+        this.emissionIntervalNanos = Math.max(1, Math.round(1_000_000_000L / requestsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.countAdmitted = countAdmitted;
+    }
+
+    /**
+     * Takes one request from {@code key}'s allowance.
+     *
+     * @return {@code 0} if the request is allowed, otherwise how many nanoseconds
+     *         until it would be
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Bucket bucket = bucketFor(key, nowNanos);
+        if (bucket == null) {
+            overflowed.increment();
+            bucket = overflow[shardOf(key)];
+        }
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - nowNanos > 0 ? arrival : nowNanos;
+            long wait = start - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                if (bucket.admitted != null) {
+                    bucket.admitted.increment();
+                }
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Charges {@code key} for requests admitted elsewhere, such as on other nodes.
+     */
+    public void charge(String key, long requests, long nowNanos) {
+        if (requests <= 0) {
+            return;
+        }
+        Bucket bucket = bucketFor(key, nowNanos);
+        if (bucket == null) {
+            return;
+        }
+        // Never push a key further out than one full burst beyond now.
+        long cost = Math.min(requests, burstToleranceNanos / emissionIntervalNanos + 1) * emissionIntervalNanos;
+        bucket.accumulateAndGet(nowNanos, (arrival, now) -> (arrival - now > 0 ? arrival : now) + cost);
+    }
+
+    /**
+     * Returns and resets the requests admitted per key since the last call.
+     */
+    public Map<String, Long> drainAdmitted() {
+        Map<String, Long> admitted = new HashMap<>();
+        if (!countAdmitted) {
+            return admitted;
+        }
+        for (ConcurrentHashMap<String, Bucket> shard : shards) {
+            for (Map.Entry<String, Bucket> entry : shard.entrySet()) {
+                long count = entry.getValue().admitted.sumThenReset();
+                if (count > 0) {
+                    admitted.put(entry.getKey(), count);
+                }
+            }
+        }
+        return admitted;
+    }
+
+    /**
+     * Drops every key whose bucket has refilled completely. This is a full sweep, to
+     * be run in the background; shards that stay full leave new keys on the overflow
+     * buckets until it runs.
+     */
+    public void evictIdle(long nowNanos) {
+        for (ConcurrentHashMap<String, Bucket> shard : shards) {
+            evictIdle(shard, nowNanos);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Bucket> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Requests charged to an overflow bucket because their shard was full.
+     */
+    public long overflowRequests() {
+        return overflowed.sum();
+    }
+
+    /**
+     * @return the key's bucket, or {@code null} if it is new and its shard is full
+     */
+    private Bucket bucketFor(String key, long nowNanos) {
+        ConcurrentHashMap<String, Bucket> shard = shards[shardOf(key)];
+        Bucket bucket = shard.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (shard.size() >= maxEntriesPerShard) {
+            return null;
+        }
+        Bucket created = new Bucket(nowNanos, countAdmitted);
+        bucket = shard.putIfAbsent(key, created);
+        return bucket != null ? bucket : created;
+    }
+
+    private static void evictIdle(ConcurrentHashMap<String, Bucket> shard, long nowNanos) {
+        Iterator<Bucket> buckets = shard.values().iterator();
+        while (buckets.hasNext()) {
+            Bucket bucket = buckets.next();
+            // Unsynced admissions are state too; keep the key until they are drained.
+            if (bucket.get() - nowNanos <= 0 && (bucket.admitted == null || bucket.admitted.sum() == 0)) {
+                buckets.remove();
+            }
+        }
+    }
+
+    private int shardOf(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * A key's theoretical arrival time in {@link System#nanoTime()} terms.
+     */
+    private static final class Bucket extends AtomicLong {
+        private final LongAdder admitted;
+
+        Bucket(long arrivalNanos, boolean countAdmitted) {
+            super(arrivalNanos);
+            this.admitted = countAdmitted ? new LongAdder() : null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sanuth.loadBalancer.ratelimit;
+
+import java.util.Map;
+
+/**
+ * Shares rate limit usage between load balancer nodes, so a client spreading its
+ * requests over several nodes is limited as a whole. Each node enforces limits from
+ * its own table and periodically exchanges what it admitted; what other nodes
+ * admitted is then charged to the local buckets. Limits are therefore exact per node
+ * and converge across nodes within one sync interval.
+ *
+ * <p>Define a bean of this type to enable syncing; implementations typically sit on a
+ * shared store or a pub/sub channel.
+ */
+public interface RateLimitSync {
+
+    /**
+     * Publishes this node's admissions and collects everyone else's.
+     *
+     * @param rule name of the rate limit rule
+     * @param admitted requests this node admitted per key since its last exchange
+     * @return requests other nodes admitted per key since this node's last exchange
+     */
+    Map<String, Long> exchange(String rule, Map<String, Long> admitted);
+}
@@ -0,0 +1,244 @@
+package com.sanuth.loadBalancer.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Route;
+
+/**
+ * Compiled form of {@code lb.routes}. Routes are indexed by host in a hash map and,
+ * under each host, by path prefix in a trie of path segments, so a lookup costs one
+ * map probe plus one step per request path segment (bounded by the deepest route)
+ * however many routes are configured. Each trie step hashes the segment in place in
+ * the request path, so a lookup allocates nothing. Method and header conditions are
+ * checked only for the few routes that share a matching prefix.
+ *
+ * @param <T> what a route resolves to
+ */
+public final class RouteTable<T> {
+
+    private final Map<String, Node<T>> byHost;
+    private final Node<T> anyHost;
+
+    private RouteTable(Map<String, Node<T>> byHost, Node<T> anyHost) {
+        this.byHost = byHost;
+        this.anyHost = anyHost;
+    }
+
+    /**
+     * @param targets resolves a route's {@code group}; must throw for unknown names
+     */
+    public static <T> RouteTable<T> compile(List<Route> routes, Function<String, T> targets) {
+        Map<String, Node<T>> byHost = new HashMap<>();
+        Node<T> anyHost = new Node<>();
+        for (Route route : routes) {
+            Candidate<T> candidate = new Candidate<>(targets.apply(route.getGroup()), route);
+            if (route.getHosts().isEmpty()) {
+                anyHost.insert(route.getPathPrefix(), candidate);
+            }
+            for (String host : route.getHosts()) {
+                byHost.computeIfAbsent(host.trim().toLowerCase(Locale.ROOT), ignored -> new Node<>())
+                    .insert(route.getPathPrefix(), candidate);
+            }
+        }
+        return new RouteTable<>(byHost, anyHost);
+    }
+
+    public boolean isEmpty() {
+        return byHost.isEmpty() && anyHost.isLeaf();
+    }
+
+    /**
+     * The target of the best route for this request, or {@code null} if none matches.
+     *
+     * @param headers looks up a request header by name, {@code null} if absent
+     */
+    public T match(String host, String path, String method, UnaryOperator<String> headers) {
+        if (host != null && !byHost.isEmpty()) {
+            // toLowerCase returns the same instance when there is nothing to fold.
+            Node<T> hostRoot = byHost.get(host.toLowerCase(Locale.ROOT));
+            if (hostRoot != null) {
+                T target = hostRoot.match(path, method, headers);
+                if (target != null) {
+                    return target;
+                }
+            }
+        }
+        return anyHost.match(path, method, headers);
+    }
+
+    private static final class Node<T> {
+        // Open-addressed table of child segments, probed with a hash computed over a
+        // region of the request path instead of a substring of it.
+        private String[] segments;
+        private int[] hashes;
+        private Node<T>[] children;
+        private int childCount;
+        private final List<Candidate<T>> candidates = new ArrayList<>(1);
+
+        void insert(String prefix, Candidate<T> candidate) {
+            Node<T> node = this;
+            int length = prefix == null ? 0 : prefix.length();
+            int start = 0;
+            while (start < length) {
+                int end = segmentEnd(prefix, start, length);
+                if (end > start) {
+                    Node<T> child = node.child(prefix, start, end);
+                    if (child == null) {
+                        child = new Node<>();
+                        node.addChild(prefix.substring(start, end), child);
+                    }
+                    node = child;
+                }
+                start = end + 1;
+            }
+            node.candidates.add(candidate);
+        }
+
+        boolean isLeaf() {
+            return children == null && candidates.isEmpty();
+        }
+
+        T match(String path, String method, UnaryOperator<String> headers) {
+            T best = firstAccepting(method, headers);
+            Node<T> node = this;
+            int length = path == null ? 0 : path.length();
+            int start = 0;
+            while (start < length && node.children != null) {
+                int end = segmentEnd(path, start, length);
+                if (end > start) {
+                    node = node.child(path, start, end);
+                    if (node == null) {
+                        break;
+                    }
+                    T deeper = node.firstAccepting(method, headers);
+                    if (deeper != null) {
+                        best = deeper;
+                    }
+                }
+                start = end + 1;
+            }
+            return best;
+        }
+
+        private T firstAccepting(String method, UnaryOperator<String> headers) {
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate<T> candidate = candidates.get(i);
+                if (candidate.accepts(method, headers)) {
+                    return candidate.target;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The child for {@code path[start, end)}, or {@code null}.
+         */
+        private Node<T> child(String path, int start, int end) {
+            if (children == null) {
+                return null;
+            }
+            int hash = hash(path, start, end);
+            int length = end - start;
+            int mask = segments.length - 1;
+            for (int i = spread(hash) & mask; segments[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && segments[i].length() == length
+                    && path.regionMatches(start, segments[i], 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addChild(String segment, Node<T> child) {
+            if (children == null || (childCount + 1) * 2 > segments.length) {
+                String[] oldSegments = segments;
+                Node<T>[] oldChildren = children;
+                int capacity = children == null ? 4 : segments.length * 2;
+                segments = new String[capacity];
+                hashes = new int[capacity];
+                children = new Node[capacity];
+                childCount = 0;
+                if (oldSegments != null) {
+                    for (int i = 0; i < oldSegments.length; i++) {
+                        if (oldSegments[i] != null) {
+                            addChild(oldSegments[i], oldChildren[i]);
+                        }
+                    }
+                }
+            }
+            int hash = hash(segment, 0, segment.length());
+            int mask = segments.length - 1;
+            int i = spread(hash) & mask;
+            while (segments[i] != null) {
+                i = (i + 1) & mask;
+            }
+            segments[i] = segment;
+            hashes[i] = hash;
+            children[i] = child;
+            childCount++;
+        }
+
+        /**
+         * {@link String#hashCode()} of {@code value[start, end)}, without the substring.
+         */
+        private static int hash(String value, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + value.charAt(i);
+            }
+            return hash;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int segmentEnd(String path, int start, int length) {
+            int end = path.indexOf('/', start);
+            return end < 0 ? length : end;
+        }
+    }
+
+    private static final class Candidate<T> {
+        private final T target;
+        private final String[] methods;
+        private final String[] headerNames;
+        private final String[] headerValues;
+
+        Candidate(T target, Route route) {
+            this.target = target;
+            this.methods = route.getMethods().stream().map(m -> m.trim().toUpperCase(Locale.ROOT)).toArray(String[]::new);
+            this.headerNames = route.getHeaders().keySet().toArray(String[]::new);
+            this.headerValues = route.getHeaders().values().toArray(String[]::new);
+        }
+
+        boolean accepts(String method, UnaryOperator<String> headers) {
+            if (methods.length > 0 && !contains(methods, method)) {
+                return false;
+            }
+            for (int i = 0; i < headerNames.length; i++) {
+                String value = headers.apply(headerNames[i]);
+                if (value == null || !("*".equals(headerValues[i]) || headerValues[i].equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean contains(String[] values, String value) {
+            for (String candidate : values) {
+                if (candidate.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
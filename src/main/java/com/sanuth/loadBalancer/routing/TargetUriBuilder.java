@@ -0,0 +1,139 @@
+package com.sanuth.loadBalancer.routing;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.PathRewrite;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Builds the backend URI for a proxied request from the backend's cached base URL
+ * and the request's raw path and query, applying path prefix rewrites on the way.
+ *
+ * <p>The servlet container hands over the path and query still percent-encoded, so
+ * in the common case they are appended as they are into one presized string that
+ * {@link URI#create(String)} parses once. Only characters a URI may not contain
+ * (which lenient containers let through) are percent-encoded, and existing escapes
+ * are kept rather than encoded a second time.
+ */
+public final class TargetUriBuilder {
+
+    private static final boolean[] PATH_CHARS = legalChars("/:@");
+    private static final boolean[] QUERY_CHARS = legalChars("/:@?");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String[] prefixes;
+    private final String[] replacements;
+
+    public TargetUriBuilder(List<PathRewrite> rewrites) {
+        this.prefixes = new String[rewrites.size()];
+        this.replacements = new String[rewrites.size()];
+        for (int i = 0; i < rewrites.size(); i++) {
+            prefixes[i] = trimTrailingSlash(rewrites.get(i).getPrefix());
+            replacements[i] = trimTrailingSlash(rewrites.get(i).getReplacement());
+        }
+    }
+
+    public URI build(BackendNode backend, HttpServletRequest request) {
+        return build(backend.getBaseUrl(), request.getRequestURI(), request.getQueryString());
+    }
+
+    URI build(String baseUrl, String path, String query) {
+        if (path == null) {
+            path = "";
+        }
+        String replacement = "";
+        int pathStart = 0;
+        int rule = matchingRule(path);
+        if (rule >= 0) {
+            replacement = replacements[rule];
+            pathStart = prefixes[rule].length();
+        }
+        int length = baseUrl.length() + replacement.length() + path.length() - pathStart + 1
+            + (query == null ? 0 : query.length() + 1);
+        StringBuilder uri = new StringBuilder(length);
+        uri.append(baseUrl);
+        appendEncoded(uri, replacement, 0, replacement.length(), PATH_CHARS);
+        appendEncoded(uri, path, pathStart, path.length(), PATH_CHARS);
+        if (uri.length() == baseUrl.length() || uri.charAt(baseUrl.length()) != '/') {
+            uri.insert(baseUrl.length(), '/');
+        }
+        if (query != null) {
+            uri.append('?');
+            appendEncoded(uri, query, 0, query.length(), QUERY_CHARS);
+        }
+        return URI.create(uri.toString());
+    }
+
+    private int matchingRule(String path) {
+        for (int i = 0; i < prefixes.length; i++) {
+            String prefix = prefixes[i];
+            // Segment boundary: "/api" matches "/api" and "/api/x" but not "/apix".
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendEncoded(StringBuilder out, String value, int from, int to, boolean[] legal) {
+        int i = from;
+        while (i < to && isLegal(value, i, to, legal)) {
+            i++;
+        }
+        out.append(value, from, i);
+        while (i < to) {
+            if (isLegal(value, i, to, legal)) {
+                out.append(value.charAt(i++));
+                continue;
+            }
+            int end = Character.isHighSurrogate(value.charAt(i)) && i + 1 < to ? i + 2 : i + 1;
+            for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                out.append('%').append(HEX[(b >>> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end;
+        }
+    }
+
+    private static boolean isLegal(String value, int i, int to, boolean[] legal) {
+        char c = value.charAt(i);
+        if (c == '%') {
+            // Keep an existing escape; a stray percent sign is encoded itself.
+            return isHex(value, i + 1, to) && isHex(value, i + 2, to);
+        }
+        return c < 0x80 && legal[c];
+    }
+
+    private static boolean isHex(String value, int i, int to) {
+        if (i >= to) {
+            return false;
+        }
+        char c = value.charAt(i);
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+    }
+
+    private static boolean[] legalChars(String extra) {
+        boolean[] legal = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            legal[c] = true;
+            legal[c - 'a' + 'A'] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            legal[c] = true;
+        }
+        for (char c : ("-._~!$&'()*+,;=" + extra).toCharArray()) {
+            legal[c] = true;
+        }
+        return legal;
+    }
+
+    private static String trimTrailingSlash(String path) {
+        if (path == null) {
+            return "";
+        }
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+}
@@ -0,0 +1,227 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.AdaptiveConcurrency;
+import com.sanuth.loadBalancer.limit.ConcurrencyLimit;
+import com.sanuth.loadBalancer.limit.ConcurrencyLimits;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Global admission control in front of the proxy. The number of requests in flight
+ * is held under an adaptive limit learned from backend round-trip times, and a
+ * request over it is rejected immediately instead of queueing in the container.
+ *
+ * <p>Requests are classified by path, or by the priority header when they come
+ * straight from one of {@code priorityTrustedProxies}; a client cannot promote its
+ * own requests by setting the header. Sheddable requests only get {@code sheddableShare} of the limit, so they are the
+ * first to go as load rises; critical ones may use {@code criticalHeadroom} beyond
+ * it, so they are the last.
+ */
+@Component
+public class AdmissionController {
+
+    public enum Priority {
+        CRITICAL,
+        NORMAL,
+        SHEDDABLE
+    }
+
+    private final AdaptiveConcurrency config;
+    private final ConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final LongAdder[] shed = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final List<AddressRange> trustedProxies;
+
+    public AdmissionController(LoadBalancerProperties properties) {
+        this.config = properties.getAdaptiveConcurrency();
+        this.limit = config.isEnabled() ? ConcurrencyLimits.global(config) : null;
+        this.trustedProxies = config.getPriorityTrustedProxies().stream().map(AddressRange::parse).toList();
+    }
+
+    public boolean isEnabled() {
+        return limit != null;
+    }
+
+    public Priority classify(HttpServletRequest request) {
+        String header = config.getPriorityHeader() != null && isTrusted(request.getRemoteAddr())
+            ? request.getHeader(config.getPriorityHeader())
+            : null;
+        if (header != null) {
+            switch (header.trim().toLowerCase(Locale.ROOT)) {
+                case "critical" -> {
+                    return Priority.CRITICAL;
+                }
+                case "sheddable", "low" -> {
+                    return Priority.SHEDDABLE;
+                }
+                case "normal" -> {
+                    return Priority.NORMAL;
+                }
+                default -> {
+                }
+            }
+        }
+        String path = request.getRequestURI();
+        if (matches(config.getCriticalPaths(), path)) {
+            return Priority.CRITICAL;
+        }
+        if (matches(config.getSheddablePaths(), path)) {
+            return Priority.SHEDDABLE;
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Admits a request if the in-flight count is under the limit for its priority.
+     * A successful call must be paired with {@link #release()}.
+     */
+    public boolean tryAcquire(Priority priority) {
+        if (limit == null) {
+            return true;
+        }
+        int allowed = allowed(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                shed[priority.ordinal()].increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (limit != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public void onSample(long rttNanos) {
+        if (limit != null) {
+            limit.onSample(rttNanos, inFlight.get());
+        }
+    }
+
+    public void onDropped() {
+        if (limit != null) {
+            limit.onDropped();
+        }
+    }
+
+    public int getLimit() {
+        return limit != null ? limit.current() : 0;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getShed(Priority priority) {
+        return shed[priority.ordinal()].sum();
+    }
+
+    private int allowed(Priority priority) {
+        int current = limit.current();
+        return switch (priority) {
+            case CRITICAL -> (int) Math.ceil(current * (1 + config.getCriticalHeadroom()));
+            case NORMAL -> current;
+            case SHEDDABLE -> Math.max(1, (int) (current * config.getSheddableShare()));
+        };
+    }
+
+    private boolean isTrusted(String remoteAddr) {
+        if (trustedProxies.isEmpty() || remoteAddr == null) {
+            return false;
+        }
+        byte[] address = AddressRange.literal(remoteAddr);
+        if (address == null) {
+            return false;
+        }
+        for (AddressRange range : trustedProxies) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An address, or a CIDR block such as {@code 10.0.0.0/8}.
+     */
+    private record AddressRange(byte[] network, int prefixLength) {
+
+        static AddressRange parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            byte[] network = literal(slash < 0 ? cidr.trim() : cidr.substring(0, slash).trim());
+            if (network == null) {
+                throw new IllegalArgumentException("Invalid trusted proxy address: " + cidr);
+            }
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(cidr.substring(slash + 1).trim());
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Invalid trusted proxy prefix length: " + cidr);
+            }
+            return new AddressRange(network, prefixLength);
+        }
+
+        /**
+         * Parses an IPv4 or IPv6 literal, or returns {@code null}; never does a name lookup.
+         */
+        static byte[] literal(String address) {
+            if (address.isEmpty()) {
+                return null;
+            }
+            for (int i = 0; i < address.length(); i++) {
+                char c = address.charAt(i);
+                if (Character.digit(c, 16) < 0 && c != '.' && c != ':') {
+                    return null;
+                }
+            }
+            try {
+                return InetAddress.getByName(address).getAddress();
+            } catch (UnknownHostException ex) {
+                return null;
+            }
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
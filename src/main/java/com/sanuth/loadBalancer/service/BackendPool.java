@@ -1,45 +1,270 @@
 package com.sanuth.loadBalancer.service;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.AdaptiveConcurrency;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.limit.ConcurrencyLimit;
+import com.sanuth.loadBalancer.limit.ConcurrencyLimits;
 import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.CircuitBreaker;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategies;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
 
+/**
+ * The set of backends traffic may be routed to. The list is an immutable snapshot
+ * swapped as a whole by {@link #reconfigure}, so selection never takes a lock; nodes
+ * that survive a change are reused with their health, ejection and latency state,
+ * and removed nodes drain the requests they already hold. Nodes that recover or join
+ * at runtime are eased in by {@link SlowStart}.
+ *
+ * <p>Nodes whose circuit breaker is open are left out of the candidate snapshot until
+ * their open period ends; the snapshot records when that is, so it is rebuilt then
+ * and the node comes back half-open for its trial calls.
+ */
 @Component
 public class BackendPool {
 
-    private final List<BackendNode> backends;
-    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    private final LoadBalancerProperties properties;
+    private final LoadBalancingStrategy strategy;
+    private final SlowStart slowStart;
+    private final List<BackendNode> draining = new CopyOnWriteArrayList<>();
+    private volatile List<BackendNode> backends;
+    private final AtomicLong stateVersion = new AtomicLong(0);
+    private volatile Candidates candidates = new Candidates(-1, List.of(), false, 0);
 
+    @Autowired
     public BackendPool(LoadBalancerProperties properties) {
+        this(properties, LoadBalancingStrategies.create(properties));
+    }
+
+    public BackendPool(LoadBalancerProperties properties, LoadBalancingStrategy strategy) {
+        this.properties = properties;
+        this.strategy = strategy;
+        this.slowStart = new SlowStart(properties.getSlowStart());
         this.backends = properties.getBackends().stream()
-            .map(BackendNode::new)
+            .map(this::newNode)
             .toList();
     }
 
     public Optional<BackendNode> selectNextHealthyBackend() {
-        if (backends.isEmpty()) {
+        return selectNextHealthyBackend(LoadBalancingStrategy.NO_KEY);
+    }
+
+    /**
+     * Selects an available backend for a request whose affinity key hashes to
+     * {@code requestHash} ({@link LoadBalancingStrategy#NO_KEY} if it has none).
+     */
+    public Optional<BackendNode> selectNextHealthyBackend(long requestHash) {
+        List<BackendNode> routable = currentCandidates();
+        if (routable.isEmpty()) {
             return Optional.empty();
         }
+        BackendNode chosen = strategy.select(routable, requestHash);
+        if (chosen.isCallPermitted() && slowStart.admit(chosen)) {
+            return Optional.of(chosen);
+        }
+        return select(routable, requestHash, List.of());
+    }
 
-        int size = backends.size();
-        for (int i = 0; i < size; i++) {
-            int index = Math.floorMod(currentIndex.getAndIncrement(), size);
-            BackendNode backend = backends.get(index);
-            if (backend.isHealthy()) {
-                return Optional.of(backend);
-            }
+    /**
+     * Selects an available backend that is not in {@code excluded}, used to send a
+     * retry somewhere other than the nodes that already failed it.
+     */
+    public Optional<BackendNode> selectNextHealthyBackend(Collection<BackendNode> excluded) {
+        return selectNextHealthyBackend(LoadBalancingStrategy.NO_KEY, excluded);
+    }
+
+    public Optional<BackendNode> selectNextHealthyBackend(long requestHash, Collection<BackendNode> excluded) {
+        if (excluded.isEmpty()) {
+            return selectNextHealthyBackend(requestHash);
         }
+        return select(currentCandidates(), requestHash, excluded);
+    }
 
-        return Optional.empty();
+    private Optional<BackendNode> select(List<BackendNode> routable, long requestHash,
+        Collection<BackendNode> excluded) {
+        // Let the strategy have a few tries first so retries still follow its policy.
+        // Hashing strategies get a fresh hash per try so they can name a second choice.
+        long hash = requestHash;
+        BackendNode warming = null;
+        for (int i = 0; i < routable.size(); i++) {
+            BackendNode candidate = strategy.select(routable, hash);
+            if (!excluded.contains(candidate) && candidate.isCallPermitted()) {
+                if (slowStart.admit(candidate)) {
+                    return Optional.of(candidate);
+                }
+                warming = candidate;
+            }
+            if (hash != LoadBalancingStrategy.NO_KEY) {
+                hash = rehash(hash);
+            }
+        }
+        for (BackendNode candidate : routable) {
+            if (excluded.contains(candidate) || !candidate.isCallPermitted()) {
+                continue;
+            }
+            if (slowStart.admit(candidate)) {
+                return Optional.of(candidate);
+            }
+            if (warming == null) {
+                warming = candidate;
+            }
+        }
+        // A warming node still beats failing the request.
+        return Optional.ofNullable(warming);
     }
 
     public List<BackendNode> allBackends() {
-        return Collections.unmodifiableList(backends);
+        return backends;
+    }
+
+    /**
+     * Nodes removed by {@link #reconfigure} that still have requests in flight.
+     */
+    public List<BackendNode> drainingBackends() {
+        draining.removeIf(node -> node.getInFlight() == 0);
+        return List.copyOf(draining);
+    }
+
+    /**
+     * Atomically replaces the backend list. A definition with the same address, weight
+     * and connection limit as a current node keeps that node; anything else gets a
+     * fresh node. Callers are serialised, while selection keeps reading whichever
+     * snapshot is current.
+     */
+    public synchronized Reconfiguration reconfigure(List<BackendDefinition> definitions) {
+        Map<String, BackendNode> current = new HashMap<>();
+        for (BackendNode node : backends) {
+            current.put(node.getBaseUrl(), node);
+        }
+        Set<String> seen = new HashSet<>();
+        List<BackendNode> next = new ArrayList<>(definitions.size());
+        List<BackendNode> added = new ArrayList<>();
+        for (BackendDefinition definition : definitions) {
+            validate(definition);
+            if (!seen.add(definition.baseUrl())) {
+                throw new IllegalArgumentException("Duplicate backend " + definition.baseUrl());
+            }
+            BackendNode existing = current.get(definition.baseUrl());
+            if (existing != null && sameSettings(existing, definition)) {
+                next.add(existing);
+                current.remove(definition.baseUrl());
+            } else {
+                BackendNode node = newNode(definition);
+                node.startWarming();
+                next.add(node);
+                added.add(node);
+            }
+        }
+        List<BackendNode> removed = List.copyOf(current.values());
+
+        // Publish the list before bumping the version so a reader that sees the new
+        // version can only rebuild its candidates from the new list.
+        backends = List.copyOf(next);
+        draining.addAll(removed);
+        draining.removeIf(node -> node.getInFlight() == 0);
+        stateVersion.incrementAndGet();
+        return new Reconfiguration(List.copyOf(added), removed);
+    }
+
+    private BackendNode newNode(BackendDefinition definition) {
+        return new BackendNode(definition, stateVersion::incrementAndGet, properties.getLatencyDecayMs(),
+            maxConnections(definition, properties), adaptiveLimit(properties), circuitBreaker(properties));
+    }
+
+    private boolean sameSettings(BackendNode node, BackendDefinition definition) {
+        return node.getWeight() == definition.getWeight()
+            && Objects.equals(node.getDefinedMaxConnections(), definition.getMaxConnections());
+    }
+
+    private static void validate(BackendDefinition definition) {
+        if (definition.getHost() == null || definition.getHost().isBlank()) {
+            throw new IllegalArgumentException("Backend host is required");
+        }
+        if (definition.getPort() < 1 || definition.getPort() > 65535) {
+            throw new IllegalArgumentException("Invalid port for backend " + definition.getHost() + ": " + definition.getPort());
+        }
+        if (definition.getWeight() < 0) {
+            throw new IllegalArgumentException("Negative weight for backend " + definition.baseUrl());
+        }
+    }
+
+    private static int maxConnections(BackendDefinition definition, LoadBalancerProperties properties) {
+        Integer override = definition.getMaxConnections();
+        return override != null ? override : properties.getUpstream().getMaxConnectionsPerBackend();
+    }
+
+    private static ConcurrencyLimit adaptiveLimit(LoadBalancerProperties properties) {
+        AdaptiveConcurrency config = properties.getAdaptiveConcurrency();
+        return config.isEnabled() ? ConcurrencyLimits.perBackend(config) : null;
+    }
+
+    private static CircuitBreaker circuitBreaker(LoadBalancerProperties properties) {
+        LoadBalancerProperties.CircuitBreaker config = properties.getCircuitBreaker();
+        return config.isEnabled() ? new CircuitBreaker(config) : null;
+    }
+
+    private List<BackendNode> currentCandidates() {
+        Candidates current = candidates;
+        long version = stateVersion.get();
+        if (current.version() == version
+            && (!current.circuitsOpen() || System.nanoTime() - current.reopenAtNanos() < 0)) {
+            return current.nodes();
+        }
+        // Half-open any circuits that are due before reading the version, so the
+        // snapshot below already reflects them.
+        long now = System.nanoTime();
+        boolean circuitsOpen = false;
+        long reopenAt = 0;
+        for (BackendNode backend : backends) {
+            if (backend.checkCircuitOpen(now)) {
+                long until = backend.getCircuitOpenUntilNanos();
+                reopenAt = circuitsOpen && reopenAt - until < 0 ? reopenAt : until;
+                circuitsOpen = true;
+            }
+        }
+        version = stateVersion.get();
+        // Racing rebuilds are harmless: each one is built from a version at least as
+        // new as the one it records, and a stale winner is simply rebuilt next time.
+        List<BackendNode> routable = backends.stream()
+            .filter(backend -> backend.isAvailable() && backend.getWeight() > 0)
+            .toList();
+        candidates = new Candidates(version, routable, circuitsOpen, reopenAt);
+        return routable;
+    }
+
+    private static long rehash(long hash) {
+        long next = (hash + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        next ^= next >>> 31;
+        return next == LoadBalancingStrategy.NO_KEY ? 0 : next;
+    }
+
+    /**
+     * Outcome of {@link #reconfigure}: nodes created for new or changed definitions,
+     * and nodes taken out of rotation.
+     */
+    public record Reconfiguration(List<BackendNode> added, List<BackendNode> removed) {
+    }
+
+    /**
+     * @param circuitsOpen whether some node is out because its circuit is open
+     * @param reopenAtNanos when the first of those circuits may half-open
+     */
+    private record Candidates(long version, List<BackendNode> nodes, boolean circuitsOpen, long reopenAtNanos) {
     }
 }
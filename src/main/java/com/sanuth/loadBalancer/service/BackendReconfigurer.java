@@ -0,0 +1,152 @@
+package com.sanuth.loadBalancer.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.service.BackendPool.Reconfiguration;
+
+/**
+ * Applies backend list changes made at runtime, from the admin API or from the file
+ * named by {@code lb.dynamic-backends.file}. The file is checked every
+ * {@code file-check-interval-ms} and reloaded when its modification time or size
+ * changes; it holds the same {@code lb.backends[...]} and
+ * {@code lb.groups.<name>.backends[...]} keys as {@code application.properties}, and
+ * each group it lists is replaced while groups it omits are left alone. New nodes
+ * get their connections warmed up before traffic reaches them.
+ */
+@Component
+public class BackendReconfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendReconfigurer.class);
+
+    private final UpstreamRouter router;
+    private final ConnectionWarmer connectionWarmer;
+    private final LoadBalancerProperties properties;
+    private FileTime lastModified;
+    private long lastSize = -1;
+
+    public BackendReconfigurer(UpstreamRouter router, ConnectionWarmer connectionWarmer,
+        LoadBalancerProperties properties) {
+        this.router = router;
+        this.connectionWarmer = connectionWarmer;
+        this.properties = properties;
+    }
+
+    /**
+     * Replaces the whole backend list of {@code groupName}.
+     *
+     * @throws IllegalArgumentException if the group is unknown or a definition is
+     *                                  invalid or repeated
+     */
+    public synchronized Reconfiguration replace(String groupName, List<BackendDefinition> definitions) {
+        UpstreamGroup group = router.group(groupName);
+        Reconfiguration result = group.getPool().reconfigure(definitions);
+        for (BackendNode node : result.added()) {
+            connectionWarmer.warmUp(group, node);
+        }
+        return result;
+    }
+
+    public synchronized Reconfiguration add(String groupName, BackendDefinition definition) {
+        List<BackendDefinition> definitions = currentDefinitions(groupName);
+        definitions.add(definition);
+        return replace(groupName, definitions);
+    }
+
+    /**
+     * Takes the backend at {@code host:port} out of rotation; it drains the requests
+     * it is already serving.
+     *
+     * @return {@code false} if no such backend exists in the group
+     */
+    public synchronized boolean remove(String groupName, String host, int port) {
+        List<BackendDefinition> definitions = currentDefinitions(groupName);
+        boolean removed = definitions.removeIf(definition -> definition.getHost().equals(host) && definition.getPort() == port);
+        if (removed) {
+            replace(groupName, definitions);
+        }
+        return removed;
+    }
+
+    @Scheduled(fixedDelayString = "${lb.dynamic-backends.file-check-interval-ms:2000}")
+    public void checkFile() {
+        String file = properties.getDynamicBackends().getFile();
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        Path path = Path.of(file);
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            if (modified.equals(lastModified) && size == lastSize) {
+                return;
+            }
+            Map<String, List<BackendDefinition>> groups = readBackends(path, router.groups());
+            lastModified = modified;
+            lastSize = size;
+            // A half-written or truncated file must not empty a pool; the next write is picked up.
+            if (groups.isEmpty()) {
+                log.warn("Ignoring {}: it defines no backends", path);
+            }
+            for (Map.Entry<String, List<BackendDefinition>> group : groups.entrySet()) {
+                Reconfiguration result = replace(group.getKey(), group.getValue());
+                log.info("Reloaded {} backends from {}: {} added, {} removed", group.getKey(), path,
+                    result.added().size(), result.removed().size());
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not reload backends from {}: {}", path, ex.getMessage());
+        }
+    }
+
+    /**
+     * @return the non-empty backend lists the file defines, by group name
+     */
+    static Map<String, List<BackendDefinition>> readBackends(Path path, Collection<UpstreamGroup> groups)
+        throws IOException {
+        Properties fileProperties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            fileProperties.load(reader);
+        }
+        Binder binder = new Binder(new MapConfigurationPropertySource(fileProperties));
+        Map<String, List<BackendDefinition>> backends = new LinkedHashMap<>();
+        for (UpstreamGroup group : groups) {
+            String prefix = UpstreamGroup.DEFAULT.equals(group.getName())
+                ? "lb.backends"
+                : "lb.groups." + group.getName() + ".backends";
+            List<BackendDefinition> definitions = binder.bind(prefix, Bindable.listOf(BackendDefinition.class))
+                .orElse(List.of());
+            if (!definitions.isEmpty()) {
+                backends.put(group.getName(), definitions);
+            }
+        }
+        return backends;
+    }
+
+    private List<BackendDefinition> currentDefinitions(String groupName) {
+        List<BackendDefinition> definitions = new ArrayList<>();
+        for (BackendNode node : router.group(groupName).getPool().allBackends()) {
+            definitions.add(node.getDefinition());
+        }
+        return definitions;
+    }
+}
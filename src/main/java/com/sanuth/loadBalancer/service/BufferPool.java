@@ -0,0 +1,38 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of fixed-size byte buffers used to pipe bodies between the servlet
+ * container and backends. Buffers are handed out on demand and only the first
+ * {@code maxPooled} returned buffers are retained, so memory stays flat under load.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+}
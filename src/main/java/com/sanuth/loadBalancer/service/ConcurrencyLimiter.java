@@ -0,0 +1,53 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests being proxied at once. With virtual threads the
+ * container no longer bounds concurrency, so without this every slow request would
+ * open another backend connection.
+ */
+public class ConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimiter(int maxConcurrent, long acquireTimeoutMs) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Waits up to the configured timeout for a slot.
+     *
+     * @return {@code false} if no slot became free in time
+     */
+    public boolean acquire() {
+        if (permits == null) {
+            return true;
+        }
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        try {
+            return acquireTimeoutMs > 0 && permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Takes a slot only if one is free right now, for callers that must not block.
+     */
+    public boolean tryAcquire() {
+        return permits == null || permits.tryAcquire();
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+}
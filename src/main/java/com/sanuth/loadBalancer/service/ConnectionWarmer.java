@@ -0,0 +1,59 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Opens {@code lb.upstream.warmup-connections} keep-alive connections to every backend
+ * of every upstream group once the application is ready, and to each backend added at
+ * runtime, so the first real requests do not pay for TCP setup.
+ * The warm-up requests target the group's health-check path and run concurrently on
+ * the proxy client, whose pool then keeps the connections for reuse.
+ */
+@Component
+public class ConnectionWarmer {
+
+    private final UpstreamRouter router;
+    private final HttpClient httpClient;
+    private final LoadBalancerProperties properties;
+
+    public ConnectionWarmer(UpstreamRouter router, HttpClient httpClient, LoadBalancerProperties properties) {
+        this.router = router;
+        this.httpClient = httpClient;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (UpstreamGroup group : router.groups()) {
+            for (BackendNode backend : group.getPool().allBackends()) {
+                warmUp(group, backend);
+            }
+        }
+    }
+
+    public void warmUp(UpstreamGroup group, BackendNode backend) {
+        int connections = properties.getUpstream().getWarmupConnections();
+        if (connections <= 0) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+            .GET()
+            .uri(backend.getBaseUri().resolve(group.healthCheckPath()))
+            .timeout(Duration.ofMillis(group.requestTimeoutMs()))
+            .build();
+        for (int i = 0; i < connections; i++) {
+            // Failures are irrelevant here; health checking decides what is routable.
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package com.sanuth.loadBalancer.service;
 
-import java.io.IOException;
-import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.sanuth.loadBalancer.config.HttpClientConfig;
 import com.sanuth.loadBalancer.config.LoadBalancerProperties;
 import com.sanuth.loadBalancer.model.BackendNode;
 
+/**
+ * Active health checker. Every interval each backend is probed concurrently with
+ * {@link HttpClient#sendAsync}, after its own random jitter, so one hung backend
+ * never delays the others and probes do not hit all backends in lock-step. A node
+ * flips state only after {@code rise} consecutive successes or {@code fall}
+ * consecutive failures.
+ */
 @Component
 public class HealthCheckService {
 
     private final BackendPool backendPool;
     private final HttpClient httpClient;
     private final LoadBalancerProperties properties;
+    private final Map<BackendNode, ProbeState> probeStates = new ConcurrentHashMap<>();
 
-    public HealthCheckService(BackendPool backendPool, HttpClient httpClient, LoadBalancerProperties properties) {
+    public HealthCheckService(BackendPool backendPool, @Qualifier(HttpClientConfig.HEALTH_CHECK_CLIENT) HttpClient httpClient,
+        LoadBalancerProperties properties) {
         this.backendPool = backendPool;
         this.httpClient = httpClient;
         this.properties = properties;
@@ -27,31 +45,77 @@ public class HealthCheckService {
 
     @Scheduled(fixedDelayString = "${lb.health-check-interval-ms:5000}")
     public void refreshHealth() {
-        for (BackendNode backend : backendPool.allBackends()) {
-            backend.setHealthy(isBackendHealthy(backend));
+        probeAll();
+    }
+
+    /**
+     * Starts a probe for every backend that does not already have one in flight.
+     *
+     * @return completes once every probe started by this call has been applied
+     */
+    CompletableFuture<Void> probeAll() {
+        List<BackendNode> backends = backendPool.allBackends();
+        // Forget nodes the pool no longer holds; a node that comes back starts counting afresh.
+        probeStates.keySet().retainAll(backends);
+        CompletableFuture<?>[] probes = new CompletableFuture<?>[backends.size()];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = probe(backends.get(i));
         }
+        return CompletableFuture.allOf(probes);
     }
 
-    private boolean isBackendHealthy(BackendNode backend) {
-        String healthPath = normalizePath(properties.getHealthCheckPath());
-        URI uri = URI.create(backend.getBaseUrl() + healthPath);
+    private CompletableFuture<Void> probe(BackendNode backend) {
+        ProbeState state = probeStates.computeIfAbsent(backend, ignored -> new ProbeState());
+        if (!state.inFlight.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long timeoutMs = properties.getHealthCheckTimeoutMs();
         HttpRequest request = HttpRequest.newBuilder()
             .GET()
-            .uri(uri)
+            .uri(backend.getBaseUri().resolve(normalizePath(properties.getHealthCheckPath())))
+            .timeout(Duration.ofMillis(timeoutMs))
             .build();
 
-        try {
-            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-            return response.statusCode() == 200;
-        } catch (IOException | InterruptedException ex) {
-            if (ex instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
+        return CompletableFuture.supplyAsync(System::nanoTime, jitterDelay())
+            .thenCompose(startNanos -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((response, failure) -> {
+                    boolean success = failure == null && response.statusCode() == 200;
+                    backend.getMetrics().recordProbe(success, System.nanoTime() - startNanos);
+                    return success;
+                }))
+            .thenAccept(success -> {
+                applyResult(backend, state, success);
+                state.inFlight.set(false);
+            });
+    }
+
+    private Executor jitterDelay() {
+        long jitterMs = properties.getHealthCheckJitterMs();
+        long delayMs = jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0;
+        return CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void applyResult(BackendNode backend, ProbeState state, boolean success) {
+        synchronized (state) {
+            if (success) {
+                state.consecutiveFailures = 0;
+                state.consecutiveSuccesses++;
+                if (!backend.isHealthy() && state.consecutiveSuccesses >= Math.max(1, properties.getHealthCheckRise())) {
+                    backend.setHealthy(true);
+                }
+            } else {
+                state.consecutiveSuccesses = 0;
+                state.consecutiveFailures++;
+                if (backend.isHealthy() && state.consecutiveFailures >= Math.max(1, properties.getHealthCheckFall())) {
+                    backend.setHealthy(false);
+                }
             }
-            return false;
         }
     }
 
-    private String normalizePath(String path) {
+    static String normalizePath(String path) {
         if (path == null || path.isBlank()) {
             return "/health";
         }
@@ -60,4 +124,10 @@ public class HealthCheckService {
         }
         return "/" + path;
     }
+
+    private static final class ProbeState {
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+        private int consecutiveSuccesses;
+        private int consecutiveFailures;
+    }
 }
@@ -0,0 +1,80 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.AntPathMatcher;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Hedging;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.WindowedLatencyHistogram;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Decides which requests may be hedged, how long to wait before hedging, and whether
+ * the hedge budget has room. Only bodiless requests with a configured (idempotent)
+ * method are hedged, since a streamed body cannot be sent twice. Hedges draw on a
+ * {@link RetryBudget} of their own, so they stay a bounded share of eligible traffic
+ * however slow the backends get.
+ */
+final class HedgePolicy {
+
+    private static final long PERCENTILE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Hedging config;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final RetryBudget budget;
+    private final long fixedDelayNanos;
+    private final long minDelayNanos;
+
+    HedgePolicy(Hedging config) {
+        this.config = config;
+        this.budget = new RetryBudget(config.getBudgetRatio(), config.getMinHedgesPerSecond());
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getMinDelayMs()));
+        this.fixedDelayNanos = Math.max(minDelayNanos, TimeUnit.MILLISECONDS.toNanos(config.getDelayMs()));
+    }
+
+    /**
+     * Whether this request may be hedged; an eligible request also pays into the
+     * hedge budget.
+     */
+    boolean admits(HttpServletRequest request, ReplayableBody body) {
+        if (!config.isEnabled() || body.hasContent() || !config.getMethods().contains(request.getMethod())
+            || !matchesPath(request.getRequestURI())) {
+            return false;
+        }
+        budget.recordRequest();
+        return true;
+    }
+
+    /**
+     * How long to wait for {@code primary}'s response headers before hedging.
+     */
+    long delayNanos(BackendNode primary) {
+        if (!config.isAdaptiveDelay()) {
+            return fixedDelayNanos;
+        }
+        // Recent samples only, so the delay follows the backend as it speeds up or slows down.
+        WindowedLatencyHistogram timeToFirstByte = primary.getMetrics().getRecentTimeToFirstByte();
+        if (timeToFirstByte.count() < config.getMinSamples()) {
+            return fixedDelayNanos;
+        }
+        long observed = timeToFirstByte.cachedValueAtPercentileNanos(config.getDelayPercentile(), PERCENTILE_REFRESH_NANOS);
+        return Math.max(minDelayNanos, observed);
+    }
+
+    boolean tryAcquireHedge() {
+        return budget.tryAcquireRetry();
+    }
+
+    private boolean matchesPath(String path) {
+        List<String> patterns = config.getPaths();
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
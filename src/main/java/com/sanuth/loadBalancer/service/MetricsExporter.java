@@ -0,0 +1,173 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.cache.ResponseCache;
+import com.sanuth.loadBalancer.model.BackendMetrics;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.LatencyHistogram;
+
+/**
+ * Renders per-backend metrics in the Prometheus text exposition format (0.0.4).
+ * Backends of every upstream group are exported, labelled with their group.
+ */
+@Component
+public class MetricsExporter {
+
+    public static final String CONTENT_TYPE = "text/plain;version=0.0.4;charset=utf-8";
+
+    private static final double[] LATENCY_BUCKETS_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final UpstreamRouter router;
+    private final ResponseCache responseCache;
+    private final AdmissionController admissionController;
+
+    public MetricsExporter(UpstreamRouter router, ResponseCache responseCache, AdmissionController admissionController) {
+        this.router = router;
+        this.responseCache = responseCache;
+        this.admissionController = admissionController;
+    }
+
+    public String scrape() {
+        List<Target> targets = new ArrayList<>();
+        for (UpstreamGroup group : router.groups()) {
+            for (BackendNode backend : group.getPool().allBackends()) {
+                targets.add(new Target(backend, label(group, backend)));
+            }
+        }
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "lb_backend_up", "gauge", "Whether the backend passes active health checks.");
+        for (Target target : targets) {
+            sample(out, "lb_backend_up", target.labels(), target.backend().isHealthy() ? 1 : 0);
+        }
+
+        header(out, "lb_backend_ejected", "gauge", "Whether the backend is ejected by passive outlier detection.");
+        for (Target target : targets) {
+            sample(out, "lb_backend_ejected", target.labels(), target.backend().isEjected() ? 1 : 0);
+        }
+
+        header(out, "lb_backend_circuit_state", "gauge", "Circuit breaker state (0 = closed, 1 = open, 2 = half-open).");
+        for (Target target : targets) {
+            sample(out, "lb_backend_circuit_state", target.labels(), target.backend().getCircuitState().ordinal());
+        }
+
+        header(out, "lb_backend_in_flight", "gauge", "Requests currently being proxied to the backend.");
+        for (Target target : targets) {
+            sample(out, "lb_backend_in_flight", target.labels(), target.backend().getInFlight());
+        }
+
+        header(out, "lb_backend_concurrency_limit", "gauge", "Most requests the backend accepts at once (0 = unlimited).");
+        for (Target target : targets) {
+            sample(out, "lb_backend_concurrency_limit", target.labels(), target.backend().getConcurrencyLimit());
+        }
+
+        header(out, "lb_backend_requests_total", "counter", "Requests sent to the backend.");
+        for (Target target : targets) {
+            sample(out, "lb_backend_requests_total", target.labels(), target.backend().getMetrics().getRequests());
+        }
+
+        header(out, "lb_backend_responses_total", "counter", "Backend responses by status class.");
+        for (Target target : targets) {
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                sample(out, "lb_backend_responses_total", target.labels() + ",class=\"" + STATUS_CLASSES[i] + "\"",
+                    target.backend().getMetrics().getStatusClassCount(i + 1));
+            }
+        }
+
+        header(out, "lb_backend_failures_total", "counter", "Requests that got no response from the backend.");
+        for (Target target : targets) {
+            BackendMetrics metrics = target.backend().getMetrics();
+            sample(out, "lb_backend_failures_total", target.labels() + ",type=\"connect\"", metrics.getConnectFailures());
+            sample(out, "lb_backend_failures_total", target.labels() + ",type=\"other\"", metrics.getOtherFailures());
+        }
+
+        header(out, "lb_backend_latency_seconds", "histogram",
+            "Backend latency: ttfb is time to response headers, total includes streaming the body.");
+        for (Target target : targets) {
+            histogram(out, "lb_backend_latency_seconds", target.labels() + ",phase=\"ttfb\"",
+                target.backend().getMetrics().getTimeToFirstByte());
+            histogram(out, "lb_backend_latency_seconds", target.labels() + ",phase=\"total\"",
+                target.backend().getMetrics().getTotalTime());
+        }
+
+        header(out, "lb_backend_health_probes_total", "counter", "Active health probes by result.");
+        for (Target target : targets) {
+            BackendMetrics metrics = target.backend().getMetrics();
+            sample(out, "lb_backend_health_probes_total", target.labels() + ",result=\"success\"", metrics.getProbeSuccesses());
+            sample(out, "lb_backend_health_probes_total", target.labels() + ",result=\"failure\"", metrics.getProbeFailures());
+        }
+
+        header(out, "lb_backend_health_probe_seconds", "histogram", "Active health probe latency.");
+        for (Target target : targets) {
+            histogram(out, "lb_backend_health_probe_seconds", target.labels(), target.backend().getMetrics().getProbeTime());
+        }
+
+        if (admissionController.isEnabled()) {
+            header(out, "lb_concurrency_limit", "gauge", "Adaptive limit on requests in flight through the proxy.");
+            sample(out, "lb_concurrency_limit", admissionController.getLimit());
+            header(out, "lb_concurrency_in_flight", "gauge", "Requests admitted and not yet finished.");
+            sample(out, "lb_concurrency_in_flight", admissionController.getInFlight());
+            header(out, "lb_requests_shed_total", "counter", "Requests rejected by admission control, by priority.");
+            for (AdmissionController.Priority priority : AdmissionController.Priority.values()) {
+                sample(out, "lb_requests_shed_total", "priority=\"" + priority.name().toLowerCase(Locale.ROOT) + "\"",
+                    admissionController.getShed(priority));
+            }
+        }
+
+        if (responseCache.isEnabled()) {
+            header(out, "lb_cache_lookups_total", "counter", "Response cache lookups by result.");
+            sample(out, "lb_cache_lookups_total", "result=\"hit\"", responseCache.getHits());
+            sample(out, "lb_cache_lookups_total", "result=\"stale\"", responseCache.getStaleHits());
+            sample(out, "lb_cache_lookups_total", "result=\"miss\"", responseCache.getMisses());
+            header(out, "lb_cache_evictions_total", "counter", "Entries evicted to stay within the byte budget.");
+            sample(out, "lb_cache_evictions_total", responseCache.getEvictions());
+            header(out, "lb_cache_entries", "gauge", "Responses currently stored.");
+            sample(out, "lb_cache_entries", responseCache.size());
+            header(out, "lb_cache_bytes", "gauge", "Bytes currently charged against lb.cache.max-bytes.");
+            sample(out, "lb_cache_bytes", responseCache.getUsedBytes());
+        }
+        return out.toString();
+    }
+
+    private void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long count = histogram.count();
+        for (double bound : LATENCY_BUCKETS_SECONDS) {
+            sample(out, name + "_bucket", labels + ",le=\"" + format(bound) + "\"", histogram.countAtOrBelow(bound));
+        }
+        sample(out, name + "_bucket", labels + ",le=\"+Inf\"", count);
+        out.append(name).append("_sum{").append(labels).append("} ").append(format(histogram.sumSeconds())).append('\n');
+        sample(out, name + "_count", labels, count);
+    }
+
+    private void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private void sample(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private String label(UpstreamGroup group, BackendNode backend) {
+        return "backend=\"" + backend.getHost() + ":" + backend.getPort() + "\",group=\"" + group.getName() + "\"";
+    }
+
+    private String format(double value) {
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    private record Target(BackendNode backend, String labels) {
+    }
+}
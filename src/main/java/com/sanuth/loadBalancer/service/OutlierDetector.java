@@ -0,0 +1,192 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.OutlierDetection;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Passive health checking driven by the outcome of real proxied requests.
+ *
+ * <p>A node is ejected as soon as it produces {@code consecutiveFailures} gateway
+ * failures (connect/IO errors or 5xx) in a row. Every {@code intervalMs} the
+ * detector also ejects nodes whose 5xx rate over the interval is above
+ * {@code failureRateThreshold}, or whose latency estimate is more than
+ * {@code latencyFactor} times the pool median. Each ejection of the same node
+ * doubles its ejection time up to {@code maxEjectionTimeMs}; a node earns back one
+ * doubling for each {@code baseEjectionTimeMs} it stays in rotation, as in Envoy.
+ * No more than {@code maxEjectionPercent} of the pool is ever ejected at once.
+ */
+@Component
+public class OutlierDetector {
+
+    private final BackendPool backendPool;
+    private final OutlierDetection config;
+    private final Map<BackendNode, OutlierState> states = new ConcurrentHashMap<>();
+    private final AtomicInteger ejectedCount = new AtomicInteger(0);
+
+    public OutlierDetector(BackendPool backendPool, LoadBalancerProperties properties) {
+        this.backendPool = backendPool;
+        this.config = properties.getOutlierDetection();
+    }
+
+    public void recordResponse(BackendNode backend, int statusCode) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        OutlierState state = stateOf(backend);
+        state.requests.increment();
+        if (statusCode >= 500) {
+            state.errors.increment();
+            onFailure(backend, state);
+        } else {
+            state.consecutiveFailures.set(0);
+        }
+    }
+
+    public void recordFailure(BackendNode backend) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        OutlierState state = stateOf(backend);
+        state.requests.increment();
+        state.errors.increment();
+        onFailure(backend, state);
+    }
+
+    @Scheduled(fixedDelayString = "${lb.outlier-detection.interval-ms:1000}")
+    public void evaluate() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<BackendNode> backends = backendPool.allBackends();
+        forgetRemoved(backends);
+        for (BackendNode backend : backends) {
+            OutlierState state = stateOf(backend);
+            synchronized (state) {
+                if (backend.isEjected()) {
+                    if (now - state.ejectedUntilNanos >= 0) {
+                        state.consecutiveFailures.set(0);
+                        backend.setEjected(false);
+                        ejectedCount.decrementAndGet();
+                        state.cleanSinceNanos = now;
+                    }
+                } else if (state.ejections > 0
+                    && now - state.cleanSinceNanos >= config.getBaseEjectionTimeMs() * 1_000_000L) {
+                    // Each base ejection time back in rotation earns back one step of the backoff.
+                    state.ejections--;
+                    state.cleanSinceNanos = now;
+                }
+            }
+        }
+
+        double latencyCeiling = latencyCeilingNanos(backends);
+        for (BackendNode backend : backends) {
+            OutlierState state = stateOf(backend);
+            long requests = state.requests.sumThenReset();
+            long errors = state.errors.sumThenReset();
+            if (backend.isEjected() || !backend.isHealthy()) {
+                continue;
+            }
+            boolean failing = requests >= config.getMinimumRequests()
+                && errors >= requests * config.getFailureRateThreshold();
+            boolean slow = backend.getLatencyEstimateNanos() > latencyCeiling;
+            if (failing || slow) {
+                eject(backend, state);
+            }
+        }
+    }
+
+    private void forgetRemoved(List<BackendNode> backends) {
+        Set<BackendNode> current = Set.copyOf(backends);
+        states.entrySet().removeIf(entry -> {
+            if (current.contains(entry.getKey())) {
+                return false;
+            }
+            synchronized (entry.getValue()) {
+                if (entry.getKey().isEjected()) {
+                    ejectedCount.decrementAndGet();
+                }
+            }
+            return true;
+        });
+    }
+
+    private void onFailure(BackendNode backend, OutlierState state) {
+        if (state.consecutiveFailures.incrementAndGet() >= config.getConsecutiveFailures()) {
+            eject(backend, state);
+        }
+    }
+
+    private void eject(BackendNode backend, OutlierState state) {
+        synchronized (state) {
+            if (backend.isEjected() || !reserveEjectionSlot()) {
+                return;
+            }
+            long multiplier = 1L << Math.min(state.ejections, 20);
+            long ejectionMs = Math.min(config.getBaseEjectionTimeMs() * multiplier, config.getMaxEjectionTimeMs());
+            state.ejections++;
+            state.ejectedUntilNanos = System.nanoTime() + ejectionMs * 1_000_000L;
+            backend.setEjected(true);
+        }
+    }
+
+    private boolean reserveEjectionSlot() {
+        int poolSize = backendPool.allBackends().size();
+        // Always allow one ejection so a single bad node in a small pool is still removed.
+        int limit = Math.max(1, poolSize * config.getMaxEjectionPercent() / 100);
+        while (true) {
+            int current = ejectedCount.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (ejectedCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private double latencyCeilingNanos(List<BackendNode> backends) {
+        if (config.getLatencyFactor() <= 0) {
+            return Double.MAX_VALUE;
+        }
+        List<Double> latencies = new ArrayList<>();
+        for (BackendNode backend : backends) {
+            double latency = backend.getLatencyEstimateNanos();
+            if (backend.isAvailable() && latency > 0) {
+                latencies.add(latency);
+            }
+        }
+        // A median of fewer than three samples cannot single out an outlier.
+        if (latencies.size() < 3) {
+            return Double.MAX_VALUE;
+        }
+        Collections.sort(latencies);
+        return latencies.get(latencies.size() / 2) * config.getLatencyFactor();
+    }
+
+    private OutlierState stateOf(BackendNode backend) {
+        return states.computeIfAbsent(backend, ignored -> new OutlierState());
+    }
+
+    private static final class OutlierState {
+        private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private int ejections;
+        private long ejectedUntilNanos = System.nanoTime();
+        private long cleanSinceNanos = System.nanoTime();
+    }
+}
@@ -1,95 +1,874 @@
 package com.sanuth.loadBalancer.service;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatusCode;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.sanuth.loadBalancer.cache.BodyCapture;
+import com.sanuth.loadBalancer.cache.CachedResponse;
+import com.sanuth.loadBalancer.cache.ResponseCache;
+import com.sanuth.loadBalancer.compression.ContentCoding;
+import com.sanuth.loadBalancer.compression.DeflatingOutputStream;
+import com.sanuth.loadBalancer.compression.ResponseCompressor;
 import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Retry;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.VirtualThreads;
 import com.sanuth.loadBalancer.exception.BackendProxyException;
 import com.sanuth.loadBalancer.exception.NoHealthyBackendException;
+import com.sanuth.loadBalancer.exception.ProxyOverloadedException;
+import com.sanuth.loadBalancer.exception.ResponseAbortedException;
+import com.sanuth.loadBalancer.header.ForwardedHeaders;
+import com.sanuth.loadBalancer.header.HeaderFilter;
+import com.sanuth.loadBalancer.header.HeaderFilter.HeaderSink;
 import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.CircuitBreaker;
+import com.sanuth.loadBalancer.service.SingleFlight.SharedResponse;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Service
 public class ProxyService {
 
-    private final BackendPool backendPool;
+    private static final Logger log = LoggerFactory.getLogger(ProxyService.class);
+
+    /**
+     * Request attribute holding the {@link ResponseAbortedException} of an async
+     * exchange that broke off after its response was committed. The request is then
+     * dispatched back to the container, which must drop the connection.
+     */
+    public static final String ABORTED_ATTRIBUTE = ProxyService.class.getName() + ".aborted";
+
+    private final UpstreamRouter router;
     private final HttpClient httpClient;
     private final LoadBalancerProperties properties;
+    private final BufferPool bufferPool;
+    private final RetryBudget retryBudget;
+    private final HedgePolicy hedgePolicy;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final AdmissionController admissionController;
+    private final ResponseCache responseCache;
+    private final SingleFlight singleFlight;
+    private final HeaderFilter requestHeaderFilter;
+    private final HeaderFilter responseHeaderFilter;
+    private final ForwardedHeaders forwardedHeaders;
+    private final ResponseCompressor responseCompressor;
+
+    public ProxyService(BackendPool backendPool, HttpClient httpClient, LoadBalancerProperties properties,
+        OutlierDetector outlierDetector) {
+        this(backendPool, httpClient, properties, outlierDetector, new ResponseCache(properties),
+            new AdmissionController(properties));
+    }
+
+    public ProxyService(BackendPool backendPool, HttpClient httpClient, LoadBalancerProperties properties,
+        OutlierDetector outlierDetector, ResponseCache responseCache, AdmissionController admissionController) {
+        this(new UpstreamRouter(backendPool, outlierDetector, httpClient, properties), httpClient, properties,
+            responseCache, admissionController);
+    }
 
-    public ProxyService(BackendPool backendPool, HttpClient httpClient, LoadBalancerProperties properties) {
-        this.backendPool = backendPool;
+    @Autowired
+    public ProxyService(UpstreamRouter router, HttpClient httpClient, LoadBalancerProperties properties,
+        ResponseCache responseCache, AdmissionController admissionController) {
+        this.router = router;
         this.httpClient = httpClient;
         this.properties = properties;
+        this.bufferPool = new BufferPool(properties.getProxyBufferSize(), properties.getProxyBufferPoolSize());
+        this.retryBudget = new RetryBudget(properties.getRetry().getBudgetRatio(), properties.getRetry().getMinRetriesPerSecond());
+        this.hedgePolicy = new HedgePolicy(properties.getHedging());
+        VirtualThreads virtualThreads = properties.getVirtualThreads();
+        this.concurrencyLimiter = new ConcurrencyLimiter(
+            virtualThreads.isEnabled() ? virtualThreads.getMaxConcurrentRequests() : 0,
+            virtualThreads.getAcquireTimeoutMs());
+        this.responseCache = responseCache;
+        this.admissionController = admissionController;
+        this.singleFlight = new SingleFlight(properties.getSingleFlight());
+        this.requestHeaderFilter = HeaderFilter.forRequests(properties.getHeaders());
+        this.responseHeaderFilter = HeaderFilter.forResponses(properties.getHeaders());
+        this.forwardedHeaders = new ForwardedHeaders(properties.getHeaders().getForwarded());
+        this.responseCompressor = new ResponseCompressor(properties.getCompression(), bufferPool);
     }
 
-    public ResponseEntity<byte[]> forward(HttpServletRequest request, byte[] body) {
-        BackendNode backend = backendPool.selectNextHealthyBackend()
-            .orElseThrow(() -> new NoHealthyBackendException("No healthy backend available"));
+    /**
+     * Streams the incoming request to a healthy backend and pipes the backend reply
+     * straight back to the client. Neither body is ever held in memory as a whole.
+     * Failed attempts are retried on a different backend when that is known to be
+     * safe and the retry budget allows it. With {@code lb.cache.enabled}, cacheable
+     * GETs are answered from the response cache when possible, and with
+     * {@code lb.compression.enabled} compressible replies are gzip- or deflate-encoded
+     * for clients that accept it.
+     */
+    public void forward(HttpServletRequest request, HttpServletResponse response) {
+        admit(request, true);
+        try {
+            proxy(request, response);
+        } finally {
+            releaseAdmission();
+        }
+    }
 
-        URI targetUri = buildTargetUri(backend.getBaseUrl(), request);
-        HttpRequest.Builder outgoingRequestBuilder = HttpRequest.newBuilder()
-            .uri(targetUri)
-            .timeout(Duration.ofMillis(properties.getRequestTimeoutMs()))
-            .method(request.getMethod(), buildBody(body));
+    /**
+     * Sheds the request with a {@link ProxyOverloadedException} if the adaptive
+     * concurrency limit for its priority, or the virtual-thread cap, is reached.
+     */
+    private void admit(HttpServletRequest request, boolean mayWait) {
+        if (admissionController.isEnabled() && !admissionController.tryAcquire(admissionController.classify(request))) {
+            throw new ProxyOverloadedException("Request shed: concurrency limit reached");
+        }
+        if (!(mayWait ? concurrencyLimiter.acquire() : concurrencyLimiter.tryAcquire())) {
+            admissionController.release();
+            throw new ProxyOverloadedException("Too many concurrent requests");
+        }
+    }
 
-        copyRequestHeaders(request, outgoingRequestBuilder);
+    private void releaseAdmission() {
+        concurrencyLimiter.release();
+        admissionController.release();
+    }
+
+    private void proxy(HttpServletRequest request, HttpServletResponse response) {
+        // Route once up front: the group is part of the cache and flight keys, since
+        // routes can send the same URL to different groups.
+        UpstreamGroup group = router.route(request);
+        String cacheKey = responseCache.keyFor(group.getName(), request);
+        if (cacheKey == null) {
+            proxyCoalesced(group, request, response);
+            return;
+        }
+        long now = System.nanoTime();
+        CachedResponse cached = responseCache.lookup(cacheKey, request, now);
+        if (cached != null && cached.isFresh(now)) {
+            writeCached(cached, request, response, now, "HIT");
+            return;
+        }
+        CompletableFuture<CachedResponse> fillInProgress = responseCache.joinFill(cacheKey);
+        if (cached != null) {
+            if (fillInProgress == null) {
+                revalidate(cacheKey, group, request);
+            }
+            writeCached(cached, request, response, now, "STALE");
+            return;
+        }
+        if (fillInProgress != null) {
+            // Another request is already fetching this key; wait for its result
+            // instead of sending the backend an identical request.
+            CachedResponse filled = awaitCompletion(fillInProgress);
+            if (filled != null && filled.matches(request::getHeader)) {
+                writeCached(filled, request, response, System.nanoTime(), "HIT");
+            } else {
+                proxyCoalesced(group, request, response);
+            }
+            return;
+        }
+        CachedResponse stored = null;
+        try {
+            CapturedResponse captured = proxyToBackend(group, request, response,
+                (status, headers) -> responseCache.isStorable(status, headers) ? responseCache.newCapture(headers) : null);
+            if (captured != null) {
+                stored = responseCache.store(cacheKey, request::getHeader, captured.status(), captured.headers(),
+                    captured.body());
+            }
+        } finally {
+            responseCache.completeFill(cacheKey, stored);
+        }
+    }
+
+    /**
+     * Proxies the request, sharing one upstream call with identical concurrent
+     * requests when {@code lb.single-flight} covers it.
+     */
+    private void proxyCoalesced(UpstreamGroup group, HttpServletRequest request, HttpServletResponse response) {
+        String flightKey = singleFlight.keyFor(group.getName(), request);
+        if (flightKey == null) {
+            proxyToBackend(group, request, response, null);
+            return;
+        }
+        CompletableFuture<SharedResponse> flight = singleFlight.join(flightKey);
+        if (flight != null) {
+            SharedResponse shared = awaitFlight(flight);
+            if (shared != null) {
+                writeShared(shared, request, response);
+            } else {
+                proxyToBackend(group, request, response, null);
+            }
+            return;
+        }
+        SharedResponse shared = null;
+        try {
+            CapturedResponse captured = proxyToBackend(group, request, response,
+                (status, headers) -> {
+                    int limit = singleFlight.captureLimit(flightKey, status, headers);
+                    return limit >= 0
+                        ? new BodyCapture(limit, headers.firstValueAsLong("content-length").orElse(-1), false)
+                        : null;
+                });
+            if (captured != null) {
+                shared = SharedResponse.of(captured.status(), captured.headers(), captured.body());
+            }
+        } catch (RuntimeException ex) {
+            singleFlight.abort(flightKey, ex);
+            throw ex;
+        } finally {
+            singleFlight.land(flightKey, shared);
+        }
+    }
+
+    /**
+     * @param capturePolicy decides whether, and where, to keep a copy of the
+     *                      response body as it streams; {@code null} for none
+     * @return the captured response, or {@code null} if none was captured
+     */
+    private CapturedResponse proxyToBackend(UpstreamGroup group, HttpServletRequest request,
+        HttpServletResponse response, CapturePolicy capturePolicy) {
+        long requestHash = group.requestHash(request);
+        Reservation backend = reserveBackend(group, requestHash, List.of());
+        ReplayableBody body = new ReplayableBody(request);
+        retryBudget.recordRequest();
+        boolean hedged = hedgePolicy.admits(request, body);
+
+        List<BackendNode> tried = new ArrayList<>(1);
+        HttpResponse<InputStream> backendResponse;
+        long startNanos;
+        while (true) {
+            startNanos = System.nanoTime();
+            try {
+                if (hedged && tried.isEmpty()) {
+                    Attempt winner = exchangeHedged(group, backend, request, body, startNanos, requestHash);
+                    backend = winner.reservation();
+                    startNanos = winner.startNanos();
+                    backendResponse = winner.response();
+                } else {
+                    backendResponse = exchange(group, backend, request, body, startNanos);
+                }
+                break;
+            } catch (IOException ex) {
+                tried.add(backend.node());
+                if (!shouldRetry(request, body, ex, tried.size())) {
+                    throw new BackendProxyException("Failed to proxy request to backend", ex);
+                }
+                try {
+                    backend = reserveBackend(group, requestHash, tried);
+                } catch (NoHealthyBackendException noAlternative) {
+                    throw new BackendProxyException("Failed to proxy request to backend", ex);
+                }
+            }
+        }
+
+        try {
+            int status = backendResponse.statusCode();
+            java.net.http.HttpHeaders headers = backendResponse.headers();
+            response.setStatus(status);
+            ContentCoding coding = copyResponseHead(request, response, status, headers);
+            BodyCapture capture = capturePolicy != null ? capturePolicy.open(status, headers) : null;
+            try (InputStream backendBody = backendResponse.body()) {
+                streamBody(backendBody, response.getOutputStream(), capture, coding);
+            } catch (IOException ex) {
+                if (response.isCommitted()) {
+                    // Too late for a 502; anything written now would end up in the body.
+                    log.debug("Aborting response from {} after a streaming failure: {}", backend.node().getBaseUrl(),
+                        ex.toString());
+                    throw new ResponseAbortedException("Backend response failed after it was committed");
+                }
+                throw new BackendProxyException("Failed to stream backend response", ex);
+            }
+            if (capture == null || !capture.isComplete()) {
+                return null;
+            }
+            return new CapturedResponse(status, headers, capture.toBuffer());
+        } finally {
+            backend.node().getMetrics().recordCompleted(System.nanoTime() - startNanos);
+            backend.node().endRequest();
+        }
+    }
+
+    /**
+     * Sends the request to {@code primary} and, if its response headers have not
+     * arrived within the hedge delay, to a second backend as well. The first response
+     * wins and the other exchange is cancelled, which closes its connection instead of
+     * leaving it busy until the request timeout.
+     *
+     * @throws IOException if every attempt failed
+     */
+    private Attempt exchangeHedged(UpstreamGroup group, Reservation primary, HttpServletRequest request,
+        ReplayableBody body, long startNanos, long requestHash) throws IOException {
+        CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        AtomicInteger racing = new AtomicInteger(1);
+        CompletableFuture<HttpResponse<InputStream>> first =
+            race(group, primary, request, body, startNanos, winner, racing);
+        CompletableFuture<HttpResponse<InputStream>> second = null;
+        try {
+            Attempt result = awaitAttempt(winner, hedgePolicy.delayNanos(primary.node()));
+            if (result != null) {
+                return result;
+            }
+            Reservation hedge = reserveHedge(group, requestHash, primary.node());
+            if (hedge != null) {
+                if (racing.getAndIncrement() == 0) {
+                    // The first attempt failed in the meantime; leave that to the retry path.
+                    hedge.cancel();
+                } else {
+                    second = race(group, hedge, request, body, System.nanoTime(), winner, racing);
+                }
+            }
+            return awaitAttempt(winner, -1);
+        } finally {
+            // Cancelling the winner is a no-op; the loser's exchange is aborted.
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Starts one racing attempt on {@code backend}, whose in-flight slot the caller has
+     * reserved. The first successful attempt completes {@code winner} and keeps its
+     * slot for the caller; every other attempt releases its own. {@code winner} fails
+     * once all {@code racing} attempts have failed.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> race(UpstreamGroup group, Reservation backend,
+        HttpServletRequest request, ReplayableBody body, long startNanos, CompletableFuture<Attempt> winner,
+        AtomicInteger racing) {
+        CompletableFuture<HttpResponse<InputStream>> exchange;
+        try {
+            exchange = httpClient.sendAsync(buildRequest(group, backend.node(), request, body.publisher()),
+                HttpResponse.BodyHandlers.ofInputStream());
+        } catch (RuntimeException ex) {
+            exchange = CompletableFuture.failedFuture(ex);
+        }
+        exchange.whenComplete((reply, failure) -> {
+            if (failure == null) {
+                recordResponseHeaders(group, backend, reply.statusCode(), startNanos);
+                if (!winner.complete(new Attempt(backend, reply, startNanos))) {
+                    // Answered too late; close the body so the exchange is released.
+                    closeQuietly(reply.body());
+                    backend.node().getMetrics().recordCompleted(System.nanoTime() - startNanos);
+                    backend.node().endRequest();
+                }
+                return;
+            }
+            if (failure instanceof CancellationException) {
+                backend.cancel();
+            } else {
+                backend.node().endRequest();
+                recordFailure(group, backend, failure, startNanos);
+            }
+            if (racing.decrementAndGet() == 0) {
+                winner.completeExceptionally(failure);
+            }
+        });
+        return exchange;
+    }
+
+    /**
+     * @param timeoutNanos how long to wait, or a negative value to wait until an
+     *                     attempt completes (the request timeout bounds that)
+     * @return the winning attempt, or {@code null} on timeout
+     */
+    private Attempt awaitAttempt(CompletableFuture<Attempt> winner, long timeoutNanos) throws IOException {
+        try {
+            return timeoutNanos < 0 ? winner.get() : winner.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BackendProxyException("Interrupted while proxying request to backend", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() instanceof CompletionException && ex.getCause().getCause() != null
+                ? ex.getCause().getCause()
+                : ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new BackendProxyException("Failed to proxy request to backend", cause);
+        }
+    }
+
+    /**
+     * Reserves a backend other than {@code primary} for a hedge, or returns
+     * {@code null} if the hedge budget is spent or no other backend has room.
+     */
+    private Reservation reserveHedge(UpstreamGroup group, long requestHash, BackendNode primary) {
+        try {
+            Reservation hedge = reserveBackend(group, requestHash, List.of(primary));
+            if (hedgePolicy.tryAcquireHedge()) {
+                return hedge;
+            }
+            hedge.cancel();
+        } catch (NoHealthyBackendException ex) {
+            // Nothing to hedge to; keep waiting on the first attempt.
+        }
+        return null;
+    }
+
+    /**
+     * Picks an available backend outside {@code excluded} and reserves one of its
+     * in-flight slots. Nodes at their connection limit are skipped in favour of the
+     * next candidate; if every node is full the request is shed.
+     */
+    private Reservation reserveBackend(UpstreamGroup group, long requestHash, List<BackendNode> excluded) {
+        List<BackendNode> skipped = excluded;
+        while (true) {
+            Optional<BackendNode> candidate = group.getPool().selectNextHealthyBackend(requestHash, skipped);
+            if (candidate.isEmpty()) {
+                if (skipped == excluded) {
+                    throw new NoHealthyBackendException("No healthy backend available");
+                }
+                throw new ProxyOverloadedException("All backends are at their connection limit");
+            }
+            BackendNode backend = candidate.get();
+            CircuitBreaker.Permit permit = backend.tryBeginRequest();
+            if (permit != null) {
+                return new Reservation(backend, permit);
+            }
+            if (skipped == excluded) {
+                skipped = new ArrayList<>(excluded);
+            }
+            skipped.add(backend);
+        }
+    }
+
+    private void writeCached(CachedResponse cached, HttpServletRequest request, HttpServletResponse response,
+        long nowNanos, String cacheStatus) {
+        response.setStatus(cached.status());
+        ContentCoding coding = copyResponseHead(request, response, cached.status(), cached.headers());
+        if (coding == null) {
+            response.setContentLength(cached.bodyLength());
+        }
+        response.setHeader(HttpHeaders.AGE, Long.toString(cached.ageSeconds(nowNanos)));
+        response.setHeader(ResponseCache.CACHE_STATUS_HEADER, cacheStatus);
+        try {
+            writeBody(cached.body(), response.getOutputStream(), coding);
+        } catch (IOException ex) {
+            throw new BackendProxyException("Failed to write cached response", ex);
+        }
+    }
+
+    private void writeShared(SharedResponse shared, HttpServletRequest request, HttpServletResponse response) {
+        response.setStatus(shared.status());
+        ContentCoding coding = copyResponseHead(request, response, shared.status(), shared.headers());
+        try {
+            writeBody(shared.body(), response.getOutputStream(), coding);
+        } catch (IOException ex) {
+            throw new BackendProxyException("Failed to write shared response", ex);
+        }
+    }
+
+    private void writeBody(ByteBuffer body, ServletOutputStream out, ContentCoding coding) throws IOException {
+        if (coding == null) {
+            out.write(body);
+            return;
+        }
+        DeflatingOutputStream compressed = responseCompressor.open(out, coding);
+        try {
+            if (body.hasArray()) {
+                compressed.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            } else {
+                copyDirect(body.duplicate(), compressed);
+            }
+            compressed.finish();
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private void copyDirect(ByteBuffer source, OutputStream out) throws IOException {
+        byte[] chunk = bufferPool.acquire();
+        try {
+            while (source.hasRemaining()) {
+                int length = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        } finally {
+            bufferPool.release(chunk);
+        }
+    }
+
+    /**
+     * Waits for another request's upstream call. A failure of that call is reported
+     * to this client too rather than repeated against the backends.
+     */
+    private SharedResponse awaitFlight(CompletableFuture<SharedResponse> flight) {
+        try {
+            return awaitCompletion(flight);
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof NoHealthyBackendException noHealthyBackend) {
+                throw noHealthyBackend;
+            }
+            throw new BackendProxyException("Shared upstream request failed", ex.getCause());
+        }
+    }
 
+    /**
+     * @return the result, or {@code null} if it is not ready within the request timeout
+     * @throws CompletionException if the awaited work failed
+     */
+    private <T> T awaitCompletion(CompletableFuture<T> future) {
+        try {
+            return future.get(properties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (ExecutionException ex) {
+            throw new CompletionException(ex.getCause());
+        }
+    }
+
+    /**
+     * Refreshes a stale cache entry in the background while the stale copy is
+     * served. The caller must own the fill for {@code cacheKey}.
+     */
+    private void revalidate(String cacheKey, UpstreamGroup group, HttpServletRequest request) {
+        Reservation backend;
+        try {
+            backend = reserveBackend(group, group.requestHash(request), List.of());
+        } catch (RuntimeException ex) {
+            responseCache.completeFill(cacheKey, null);
+            return;
+        }
+        HttpRequest outgoingRequest;
         try {
-            HttpResponse<byte[]> backendResponse = httpClient.send(outgoingRequestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray());
-            HttpHeaders responseHeaders = new HttpHeaders();
-            backendResponse.headers().map().forEach(responseHeaders::put);
-            return ResponseEntity.status(HttpStatusCode.valueOf(backendResponse.statusCode()))
-                .headers(responseHeaders)
-                .body(backendResponse.body());
-        } catch (IOException | InterruptedException ex) {
-            if (ex instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
+            outgoingRequest = buildRequest(group, backend.node(), request, HttpRequest.BodyPublishers.noBody());
+        } catch (RuntimeException ex) {
+            backend.cancel();
+            responseCache.completeFill(cacheKey, null);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        HttpResponse.BodyHandler<ByteBuffer> capturing = responseInfo -> {
+            recordResponseHeaders(group, backend, responseInfo.statusCode(), startNanos);
+            if (!responseCache.isStorable(responseInfo.statusCode(), responseInfo.headers())) {
+                return HttpResponse.BodySubscribers.replacing(null);
+            }
+            // Chunks go straight into the capture, off the heap if so configured.
+            BodyCapture capture = responseCache.newCapture(responseInfo.headers());
+            return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofByteArrayConsumer(
+                    chunk -> chunk.ifPresent(bytes -> capture.write(bytes, 0, bytes.length))),
+                done -> capture.isComplete() ? capture.toBuffer() : null);
+        };
+        httpClient.sendAsync(outgoingRequest, capturing).whenComplete((reply, failure) -> {
+            backend.node().endRequest();
+            CachedResponse stored = null;
+            if (failure != null) {
+                recordFailure(group, backend, failure, startNanos);
+            } else {
+                backend.node().getMetrics().recordCompleted(System.nanoTime() - startNanos);
+                if (reply.body() != null) {
+                    // The servlet request is gone by now; Vary is matched on what was sent.
+                    stored = responseCache.store(cacheKey, name -> outgoingRequest.headers().firstValue(name).orElse(null),
+                        reply.statusCode(), reply.headers(), reply.body());
+                }
             }
-            throw new BackendProxyException("Failed to proxy request to backend", ex);
+            responseCache.completeFill(cacheKey, stored);
+        });
+    }
+
+    /**
+     * Sends one attempt to {@code backend}, whose in-flight slot the caller has
+     * reserved. On success the slot stays taken until the caller has streamed the
+     * body; on failure it is released here.
+     */
+    private HttpResponse<InputStream> exchange(UpstreamGroup group, Reservation backend, HttpServletRequest request,
+        ReplayableBody body, long startNanos) throws IOException {
+        try {
+            HttpRequest outgoingRequest = buildRequest(group, backend.node(), request, body.publisher());
+            HttpResponse<InputStream> backendResponse =
+                httpClient.send(outgoingRequest, HttpResponse.BodyHandlers.ofInputStream());
+            recordResponseHeaders(group, backend, backendResponse.statusCode(), startNanos);
+            return backendResponse;
+        } catch (IOException ex) {
+            backend.node().endRequest();
+            recordFailure(group, backend, ex, startNanos);
+            throw ex;
+        } catch (InterruptedException ex) {
+            backend.cancel();
+            Thread.currentThread().interrupt();
+            throw new BackendProxyException("Interrupted while proxying request to backend", ex);
+        } catch (UncheckedIOException ex) {
+            backend.cancel();
+            throw new BackendProxyException("Failed to read request body", ex.getCause());
+        } catch (RuntimeException ex) {
+            backend.cancel();
+            throw ex;
         }
     }
 
-    private HttpRequest.BodyPublisher buildBody(byte[] body) {
-        if (body == null || body.length == 0) {
+    /**
+     * Non-blocking variant of {@link #forward}. The servlet thread is released as soon
+     * as the upstream exchange has been started; the request body is read with a
+     * {@code ReadListener} only as fast as the backend accepts it, and the response
+     * body is written with a {@code WriteListener} only as fast as the client reads
+     * it. Retries are not attempted on this path because the body is consumed as it
+     * streams.
+     */
+    public void forwardAsync(HttpServletRequest request, HttpServletResponse response) {
+        admit(request, false);
+        UpstreamGroup group = router.route(request);
+        Reservation backend;
+        try {
+            backend = reserveBackend(group, group.requestHash(request), List.of());
+        } catch (RuntimeException ex) {
+            releaseAdmission();
+            throw ex;
+        }
+        HttpRequest outgoingRequest;
+        AsyncContext asyncContext;
+        try {
+            outgoingRequest = buildRequest(group, backend.node(), request, asyncBody(request));
+            asyncContext = request.startAsync();
+            // Bounded, so a stalled client or backend cannot hold the request forever;
+            // onTimeout cancels the exchange, which releases everything it holds.
+            asyncContext.setTimeout(Math.max(group.requestTimeoutMs(), properties.getAsyncTimeoutMs()));
+        } catch (IOException ex) {
+            backend.cancel();
+            releaseAdmission();
+            throw new BackendProxyException("Failed to read request body", ex);
+        } catch (RuntimeException ex) {
+            backend.cancel();
+            releaseAdmission();
+            throw ex;
+        }
+
+        AtomicBoolean headersReceived = new AtomicBoolean(false);
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<Void>> exchange = httpClient.sendAsync(outgoingRequest, responseInfo -> {
+            headersReceived.set(true);
+            recordResponseHeaders(group, backend, responseInfo.statusCode(), startNanos);
+            response.setStatus(responseInfo.statusCode());
+            copyResponseHeaders(responseInfo.headers(), response);
+            try {
+                return new ServletOutputSubscriber(response.getOutputStream());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            /**
+             * Cancels the exchange. A response nothing has been sent of yet becomes a
+             * 504; one that is streaming is left incomplete, so the container aborts
+             * the connection rather than ending a truncated body cleanly.
+             */
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                timedOut.set(true);
+                exchange.cancel(true);
+                if (!response.isCommitted()) {
+                    response.reset();
+                    response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                    event.getAsyncContext().complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                exchange.cancel(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        exchange.whenComplete((backendResponse, failure) -> {
+            backend.node().endRequest();
+            releaseAdmission();
+            if (timedOut.get()) {
+                // The timeout handler owns the response from here on.
+                recordFailure(group, backend, failure, startNanos);
+                return;
+            }
+            if (failure == null) {
+                backend.node().getMetrics().recordCompleted(System.nanoTime() - startNanos);
+                asyncContext.complete();
+                return;
+            }
+            recordFailure(group, backend, failure, startNanos);
+            if (headersReceived.get() && response.isCommitted()) {
+                // Completing would end a chunked body as if it were whole; abort instead.
+                log.debug("Aborting response from {} after a streaming failure: {}", backend.node().getBaseUrl(),
+                    failure.toString());
+                request.setAttribute(ABORTED_ATTRIBUTE,
+                    new ResponseAbortedException("Backend response failed after it was committed"));
+                asyncContext.dispatch();
+                return;
+            }
+            if (headersReceived.get()) {
+                // Nothing of the backend's response has been sent yet; drop its headers.
+                response.reset();
+            }
+            writeBadGateway(response);
+            asyncContext.complete();
+        });
+    }
+
+    private HttpRequest.BodyPublisher asyncBody(HttpServletRequest request) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        boolean chunked = request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+        if (contentLength == 0 || (contentLength < 0 && !chunked)) {
             return HttpRequest.BodyPublishers.noBody();
         }
-        return HttpRequest.BodyPublishers.ofByteArray(body);
+        ServletInputPublisher publisher = new ServletInputPublisher(request.getInputStream(), bufferPool.bufferSize());
+        if (contentLength > 0) {
+            return HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength);
+        }
+        return HttpRequest.BodyPublishers.fromPublisher(publisher);
     }
 
-    private URI buildTargetUri(String baseUrl, HttpServletRequest request) {
+    private void writeBadGateway(HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return;
+        }
         try {
-            URI baseUri = new URI(baseUrl);
-            return new URI(
-                baseUri.getScheme(),
-                null,
-                baseUri.getHost(),
-                baseUri.getPort(),
-                request.getRequestURI(),
-                request.getQueryString(),
-                null
-            );
-        } catch (URISyntaxException ex) {
-            throw new IllegalArgumentException("Invalid backend URI", ex);
+            response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+            response.setContentType("text/plain");
+            response.getWriter().write("Failed to proxy request to backend");
+        } catch (IOException | IllegalStateException ex) {
+            // The client is gone or the response is already streaming; nothing left to tell it.
         }
     }
 
-    private void copyRequestHeaders(HttpServletRequest request, HttpRequest.Builder requestBuilder) {
+    private HttpRequest buildRequest(UpstreamGroup group, BackendNode backend, HttpServletRequest request,
+        HttpRequest.BodyPublisher body) {
+        HttpRequest.Builder outgoingRequestBuilder = HttpRequest.newBuilder()
+            .uri(group.targetUri(backend, request))
+            .timeout(Duration.ofMillis(group.requestTimeoutMs()))
+            .method(request.getMethod(), body);
+        copyRequestHeaders(request, outgoingRequestBuilder);
+        return outgoingRequestBuilder.build();
+    }
+
+    private void recordResponseHeaders(UpstreamGroup group, Reservation reservation, int statusCode, long startNanos) {
+        BackendNode backend = reservation.node();
+        long elapsed = System.nanoTime() - startNanos;
+        backend.recordLatency(startNanos);
+        backend.getMetrics().recordResponseHeaders(statusCode, elapsed);
+        backend.recordCallOutcome(reservation.permit(), statusCode >= 500, elapsed);
+        admissionController.onSample(elapsed);
+        group.outlierDetector().recordResponse(backend, statusCode);
+    }
+
+    private void recordFailure(UpstreamGroup group, Reservation reservation, Throwable failure, long startNanos) {
+        BackendNode backend = reservation.node();
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        long elapsed = System.nanoTime() - startNanos;
+        backend.getMetrics().recordFailure(isConnectFailure(cause), elapsed);
+        backend.recordCallOutcome(reservation.permit(), true, elapsed);
+        backend.recordDropped();
+        admissionController.onDropped();
+        group.outlierDetector().recordFailure(backend);
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ex) {
+            // The exchange is being abandoned anyway.
+        }
+    }
+
+    private static boolean isConnectFailure(Throwable failure) {
+        return failure instanceof ConnectException || failure instanceof HttpConnectTimeoutException;
+    }
+
+    private boolean shouldRetry(HttpServletRequest request, ReplayableBody body, IOException failure, int attempts) {
+        Retry retry = properties.getRetry();
+        if (!retry.isEnabled() || attempts > retry.getMaxRetries() || !body.isReplayable()) {
+            return false;
+        }
+        // A request that never reached the backend is safe to resend whatever its method.
+        if (!isConnectFailure(failure) && !retry.getIdempotentMethods().contains(request.getMethod())) {
+            return false;
+        }
+        return retryBudget.tryAcquireRetry();
+    }
+
+    /**
+     * Streams the body, compressing it with {@code coding} unless that is {@code null}.
+     * Any capture sees the uncompressed bytes.
+     */
+    private void streamBody(InputStream in, OutputStream out, BodyCapture capture, ContentCoding coding)
+        throws IOException {
+        if (coding == null) {
+            streamBody(in, out, capture);
+            return;
+        }
+        DeflatingOutputStream compressed = responseCompressor.open(out, coding);
+        try {
+            streamBody(in, compressed, capture);
+            compressed.finish();
+        } finally {
+            compressed.release();
+        }
+        out.flush();
+    }
+
+    private void streamBody(InputStream in, OutputStream out, BodyCapture capture) throws IOException {
+        byte[] buffer = bufferPool.acquire();
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                if (capture != null) {
+                    capture.write(buffer, 0, read);
+                }
+                // Push bytes out as soon as the backend pauses so first-byte latency
+                // tracks the backend rather than the full transfer.
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    void copyRequestHeaders(HttpServletRequest request, HttpRequest.Builder requestBuilder) {
+        String connection = request.getHeader(HttpHeaders.CONNECTION);
         Enumeration<String> headerNames = request.getHeaderNames();
         while (headerNames.hasMoreElements()) {
             String headerName = headerNames.nextElement();
-            if (HttpHeaders.HOST.equalsIgnoreCase(headerName) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(headerName)) {
+            if (!requestHeaderFilter.forwards(headerName, connection)) {
                 continue;
             }
             Enumeration<String> values = request.getHeaders(headerName);
@@ -97,5 +876,81 @@ public class ProxyService {
                 requestBuilder.header(headerName, values.nextElement());
             }
         }
+        if (requestHeaderFilter.addsHeaders() || forwardedHeaders.isEnabled()) {
+            HeaderSink sink = requestBuilder::header;
+            requestHeaderFilter.addConfigured(sink);
+            forwardedHeaders.apply(request, sink);
+        }
+    }
+
+    /**
+     * Copies the backend's headers for a response that may be compressed on the way
+     * out, and returns the coding to compress it with, or {@code null} for none.
+     */
+    private ContentCoding copyResponseHead(HttpServletRequest request, HttpServletResponse response, int status,
+        java.net.http.HttpHeaders headers) {
+        boolean compressible = responseCompressor.isCompressible(request, status, headers);
+        ContentCoding coding = compressible ? responseCompressor.select(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) : null;
+        copyResponseHeaders(headers, response, coding != null);
+        if (compressible) {
+            responseCompressor.addHeaders(response, headers, coding);
+        }
+        return coding;
+    }
+
+    void copyResponseHeaders(java.net.http.HttpHeaders backendHeaders, HttpServletResponse response) {
+        copyResponseHeaders(backendHeaders, response, false);
+    }
+
+    private void copyResponseHeaders(java.net.http.HttpHeaders backendHeaders, HttpServletResponse response,
+        boolean compressing) {
+        Map<String, List<String>> headers = backendHeaders.map();
+        // The map is case-insensitive, so this finds the header however the backend spelled it.
+        List<String> connection = headers.get(HttpHeaders.CONNECTION);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey();
+            if (!responseHeaderFilter.forwards(name, connection)) {
+                continue;
+            }
+            List<String> values = header.getValue();
+            if (compressing && HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                continue;
+            }
+            boolean etag = compressing && HttpHeaders.ETAG.equalsIgnoreCase(name);
+            for (int i = 0; i < values.size(); i++) {
+                response.addHeader(name, etag ? ResponseCompressor.weakenETag(values.get(i)) : values.get(i));
+            }
+        }
+        if (responseHeaderFilter.addsHeaders()) {
+            responseHeaderFilter.addConfigured(response::addHeader);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CapturePolicy {
+        /**
+         * @return a capture for the body, or {@code null} if it is not worth keeping
+         */
+        BodyCapture open(int status, java.net.http.HttpHeaders headers);
+    }
+
+    private record Attempt(Reservation reservation, HttpResponse<InputStream> response, long startNanos) {
+    }
+
+    /**
+     * A reserved in-flight slot on a backend, with the circuit permit its outcome is
+     * reported under.
+     */
+    private record Reservation(BackendNode node, CircuitBreaker.Permit permit) {
+
+        /**
+         * Releases a slot whose request never produced an outcome.
+         */
+        void cancel() {
+            node.cancelRequest(permit);
+        }
+    }
+
+    private record CapturedResponse(int status, java.net.http.HttpHeaders headers, ByteBuffer body) {
     }
 }
@@ -0,0 +1,162 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.RateLimit;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.RateLimitKeySource;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.RateLimitRule;
+import com.sanuth.loadBalancer.exception.RateLimitedException;
+import com.sanuth.loadBalancer.ratelimit.GcraTable;
+import com.sanuth.loadBalancer.ratelimit.RateLimitSync;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Per-client rate limits checked before a request is proxied. Each configured rule
+ * keys requests by client address, a header such as an API key, or the upstream
+ * group they route to, and keeps its own {@link GcraTable}. A request must pass
+ * every rule that applies to it.
+ *
+ * <p>When a {@link RateLimitSync} bean exists, admitted counts are exchanged with
+ * the other nodes every {@code sync-interval-ms} and charged to the local tables.
+ */
+@Component
+public class RateLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    private final UpstreamRouter router;
+    private final RateLimitSync sync;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Limit> limits;
+    private final boolean keysByRoute;
+
+    public RateLimitService(LoadBalancerProperties properties, UpstreamRouter router,
+        ObjectProvider<RateLimitSync> sync) {
+        this.router = router;
+        this.sync = sync.getIfAvailable();
+        RateLimit config = properties.getRateLimit();
+        List<Limit> compiled = new ArrayList<>();
+        if (config.isEnabled()) {
+            List<RateLimitRule> rules = config.getRules();
+            for (int i = 0; i < rules.size(); i++) {
+                RateLimitRule rule = rules.get(i);
+                if (rule.getKeySource() == RateLimitKeySource.HEADER && (rule.getKeyName() == null
+                    || rule.getFallbackKeySource() == null || rule.getFallbackKeySource() == RateLimitKeySource.HEADER)) {
+                    throw new IllegalArgumentException(
+                        "Rate limit rule " + i + " keys by header but lacks a header name or a client-ip/route fallback");
+                }
+                String name = rule.getName() != null ? rule.getName() : "rule-" + i;
+                GcraTable table = new GcraTable(rule.getRequestsPerSecond(), rule.getBurst(), config.getShards(),
+                    config.getMaxEntries(), this.sync != null);
+                compiled.add(new Limit(name, rule, table));
+            }
+        }
+        this.limits = List.copyOf(compiled);
+        this.keysByRoute = limits.stream().anyMatch(limit -> limit.rule().getKeySource() == RateLimitKeySource.ROUTE
+            || limit.rule().getKeySource() == RateLimitKeySource.HEADER
+            && limit.rule().getFallbackKeySource() == RateLimitKeySource.ROUTE);
+    }
+
+    public boolean isEnabled() {
+        return !limits.isEmpty();
+    }
+
+    /**
+     * Charges the request to every rule that applies to it.
+     *
+     * @throws RateLimitedException if any of them is exhausted
+     */
+    public void check(HttpServletRequest request) {
+        if (limits.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        String path = request.getRequestURI();
+        String route = keysByRoute ? router.route(request).getName() : null;
+        for (Limit limit : limits) {
+            RateLimitRule rule = limit.rule();
+            if (!matches(rule.getPaths(), path)) {
+                continue;
+            }
+            String key = switch (rule.getKeySource()) {
+                case CLIENT_IP -> request.getRemoteAddr();
+                case HEADER -> headerKey(rule, request, route);
+                case ROUTE -> route;
+            };
+            long waitNanos = limit.table().tryAcquire(key, now);
+            if (waitNanos > 0) {
+                long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+                throw new RateLimitedException("Rate limit " + limit.name() + " exceeded", retryAfterSeconds);
+            }
+        }
+    }
+
+    /**
+     * Evicts idle keys and, with a {@link RateLimitSync}, shares admitted counts with
+     * the other nodes.
+     */
+    @Scheduled(fixedDelayString = "${lb.rate-limit.sync-interval-ms:1000}")
+    public void sync() {
+        for (Limit limit : limits) {
+            long now = System.nanoTime();
+            if (sync != null) {
+                try {
+                    Map<String, Long> remote = sync.exchange(limit.name(), limit.table().drainAdmitted());
+                    remote.forEach((key, count) -> limit.table().charge(key, count, now));
+                } catch (RuntimeException ex) {
+                    log.warn("Rate limit sync for {} failed: {}", limit.name(), ex.getMessage());
+                }
+            }
+            limit.table().evictIdle(now);
+        }
+    }
+
+    /**
+     * Keys currently tracked across all rules.
+     */
+    public int trackedKeys() {
+        int tracked = 0;
+        for (Limit limit : limits) {
+            tracked += limit.table().size();
+        }
+        return tracked;
+    }
+
+    /**
+     * The header value, or for a request without the header its fallback key, kept
+     * apart from header values so clients cannot claim someone else's fallback.
+     */
+    private static String headerKey(RateLimitRule rule, HttpServletRequest request, String route) {
+        String value = request.getHeader(rule.getKeyName());
+        if (value != null) {
+            return "header:" + value;
+        }
+        return rule.getFallbackKeySource() == RateLimitKeySource.ROUTE
+            ? "route:" + route
+            : "client-ip:" + request.getRemoteAddr();
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Limit(String name, RateLimitRule rule, GcraTable table) {
+    }
+}
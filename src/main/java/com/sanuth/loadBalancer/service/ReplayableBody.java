@@ -0,0 +1,74 @@
+package com.sanuth.loadBalancer.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Streams the client request body to a backend and tracks whether any of it has been
+ * consumed. A body that has not been touched yet can be offered to another backend
+ * without having been buffered or copied; once bytes have left, it cannot.
+ */
+final class ReplayableBody {
+
+    private final HttpServletRequest request;
+    private final long contentLength;
+    private final boolean present;
+    private final AtomicBoolean consumed = new AtomicBoolean(false);
+
+    ReplayableBody(HttpServletRequest request) {
+        this.request = request;
+        this.contentLength = request.getContentLengthLong();
+        boolean chunked = request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+        this.present = contentLength > 0 || (contentLength < 0 && chunked);
+    }
+
+    HttpRequest.BodyPublisher publisher() {
+        if (!present) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        HttpRequest.BodyPublisher streaming = HttpRequest.BodyPublishers.ofInputStream(this::open);
+        if (contentLength > 0) {
+            return HttpRequest.BodyPublishers.fromPublisher(streaming, contentLength);
+        }
+        return streaming;
+    }
+
+    boolean hasContent() {
+        return present;
+    }
+
+    /**
+     * Whether sending this body again would deliver exactly what the client sent.
+     */
+    boolean isReplayable() {
+        return !present || !consumed.get();
+    }
+
+    private InputStream open() {
+        try {
+            return new FilterInputStream(request.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    consumed.set(true);
+                    return super.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    consumed.set(true);
+                    return super.read(b, off, len);
+                }
+            };
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sanuth.loadBalancer.service;
+
+import org.springframework.http.HttpHeaders;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ConsistentHash;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.HashKeySource;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Hashes the configured affinity key of a request: the client IP, a header, a cookie
+ * or one segment of the path. The key is hashed in place (FNV-1a over its characters,
+ * then a MurmurHash3 finaliser), so no substrings or cookie objects are created.
+ */
+final class RequestKeyHasher {
+
+    private final HashKeySource source;
+    private final String keyName;
+    private final int pathSegment;
+
+    RequestKeyHasher(ConsistentHash config) {
+        this.source = config.getKeySource();
+        this.keyName = config.getKeyName();
+        this.pathSegment = config.getPathSegment();
+        if ((source == HashKeySource.HEADER || source == HashKeySource.COOKIE)
+            && (keyName == null || keyName.isBlank())) {
+            throw new IllegalArgumentException("lb.consistent-hash.key-name is required for key source " + source);
+        }
+    }
+
+    /**
+     * @return the key hash, or {@link LoadBalancingStrategy#NO_KEY} if the request
+     *         does not carry the key
+     */
+    long hash(HttpServletRequest request) {
+        return switch (source) {
+            case CLIENT_IP -> hashWhole(request.getRemoteAddr());
+            case HEADER -> hashWhole(request.getHeader(keyName));
+            case COOKIE -> hashCookie(request.getHeader(HttpHeaders.COOKIE));
+            case PATH_SEGMENT -> hashPathSegment(request.getRequestURI());
+        };
+    }
+
+    private long hashWhole(String value) {
+        return value == null || value.isEmpty() ? LoadBalancingStrategy.NO_KEY : hash(value, 0, value.length());
+    }
+
+    private long hashCookie(String cookieHeader) {
+        if (cookieHeader == null) {
+            return LoadBalancingStrategy.NO_KEY;
+        }
+        int length = cookieHeader.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && cookieHeader.charAt(start) == ' ') {
+                start++;
+            }
+            int end = cookieHeader.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+            int nameEnd = start + keyName.length();
+            if (nameEnd < end && cookieHeader.charAt(nameEnd) == '='
+                && cookieHeader.regionMatches(start, keyName, 0, keyName.length())) {
+                return nameEnd + 1 < end ? hash(cookieHeader, nameEnd + 1, end) : LoadBalancingStrategy.NO_KEY;
+            }
+            start = end + 1;
+        }
+        return LoadBalancingStrategy.NO_KEY;
+    }
+
+    private long hashPathSegment(String path) {
+        if (path == null) {
+            return LoadBalancingStrategy.NO_KEY;
+        }
+        int length = path.length();
+        int start = path.startsWith("/") ? 1 : 0;
+        for (int segment = 0; start <= length; segment++) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (segment == pathSegment) {
+                return end > start ? hash(path, start, end) : LoadBalancingStrategy.NO_KEY;
+            }
+            start = end + 1;
+        }
+        return LoadBalancingStrategy.NO_KEY;
+    }
+
+    private static long hash(CharSequence value, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == LoadBalancingStrategy.NO_KEY ? 0 : hash;
+    }
+}
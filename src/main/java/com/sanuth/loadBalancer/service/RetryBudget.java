@@ -0,0 +1,61 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global cap on retries, modelled on Finagle's retry budget. Every original request
+ * deposits {@code ratio} of a token and every retry withdraws a whole one, so retries
+ * can never exceed that fraction of live traffic however many requests fail. A
+ * floor of {@code minPerSecond} retries keeps retries available at low traffic.
+ */
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long reserve;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong reserveSecond = new AtomicLong(0);
+
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.deposit = Math.round(Math.max(0, ratio) * TOKEN);
+        this.reserve = Math.max(0, minPerSecond) * TOKEN;
+        // Bound the credit idle periods can accumulate so a burst cannot spend it all at once.
+        this.maxBalance = Math.max(reserve, 100 * TOKEN);
+        this.balance = new AtomicLong(reserve);
+    }
+
+    public void recordRequest() {
+        if (deposit == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+    }
+
+    public boolean tryAcquireRetry() {
+        topUpReserve();
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private void topUpReserve() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long last = reserveSecond.get();
+        if (second != last && reserveSecond.compareAndSet(last, second)) {
+            balance.accumulateAndGet(reserve, Math::max);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.sanuth.loadBalancer.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+/**
+ * Publishes a servlet request body using non-blocking servlet reads. Bytes are only
+ * read while the subscriber (the upstream {@code HttpClient}) has outstanding demand,
+ * so a slow backend stops us reading from the client instead of buffering.
+ *
+ * <p>Reads are serialised with a work-in-progress counter: whichever thread signals
+ * new demand or new data drains, the others just record that more work exists.
+ */
+final class ServletInputPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final ServletInputStream input;
+    private final int chunkSize;
+
+    ServletInputPublisher(ServletInputStream input, int chunkSize) {
+        this.input = input;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        BodySubscription subscription = new BodySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        input.setReadListener(subscription);
+    }
+
+    private final class BodySubscription implements Flow.Subscription, ReadListener {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong(0);
+        private final AtomicInteger wip = new AtomicInteger(0);
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile boolean listening;
+
+        private BodySubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+
+        @Override
+        public void onDataAvailable() {
+            listening = true;
+            drain();
+        }
+
+        @Override
+        public void onAllDataRead() {
+            listening = true;
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        private void drain() {
+            // Reading before the container has registered our listener is not allowed.
+            if (!listening || wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                try {
+                    while (!done.get() && demand.get() > 0) {
+                        if (input.isFinished()) {
+                            complete();
+                            break;
+                        }
+                        if (!input.isReady()) {
+                            // The container will call onDataAvailable once more bytes arrive.
+                            break;
+                        }
+                        byte[] chunk = new byte[chunkSize];
+                        int read = input.read(chunk);
+                        if (read == -1) {
+                            complete();
+                            break;
+                        }
+                        if (read > 0) {
+                            demand.decrementAndGet();
+                            subscriber.onNext(ByteBuffer.wrap(chunk, 0, read));
+                        }
+                    }
+                    if (!done.get() && input.isFinished()) {
+                        complete();
+                    }
+                } catch (IOException ex) {
+                    fail(ex);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void complete() {
+            if (done.compareAndSet(false, true)) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            if (done.compareAndSet(false, true)) {
+                subscriber.onError(throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sanuth.loadBalancer.service;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+/**
+ * Writes a backend response body to the client using non-blocking servlet writes.
+ * Only one batch of upstream buffers is requested at a time and the next batch is
+ * requested once the client has accepted the previous one, so a slow client slows
+ * the backend down through TCP flow control instead of filling our heap.
+ */
+final class ServletOutputSubscriber implements HttpResponse.BodySubscriber<Void> {
+
+    private final ServletOutputStream output;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger(0);
+    private final AtomicBoolean requested = new AtomicBoolean(false);
+    private volatile Flow.Subscription subscription;
+    private volatile boolean upstreamComplete;
+    private volatile boolean writable;
+
+    ServletOutputSubscriber(ServletOutputStream output) {
+        this.output = output;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        output.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() {
+                writable = true;
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscription.cancel();
+                result.completeExceptionally(throwable);
+            }
+        });
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        requested.set(false);
+        pending.addAll(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamComplete = true;
+        drain();
+    }
+
+    @Override
+    public CompletionStage<Void> getBody() {
+        return result;
+    }
+
+    private void drain() {
+        // Writing before the container has activated our listener is not allowed.
+        if (!writable || wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            try {
+                while (!result.isDone()) {
+                    ByteBuffer next = pending.peek();
+                    if (next == null) {
+                        if (upstreamComplete) {
+                            if (output.isReady()) {
+                                output.flush();
+                                result.complete(null);
+                            }
+                        } else if (requested.compareAndSet(false, true)) {
+                            subscription.request(1);
+                        }
+                        break;
+                    }
+                    if (!output.isReady()) {
+                        // The container will call onWritePossible once the client catches up.
+                        break;
+                    }
+                    output.write(next);
+                    if (!next.hasRemaining()) {
+                        pending.poll();
+                    }
+                }
+            } catch (IOException ex) {
+                subscription.cancel();
+                result.completeExceptionally(ex);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
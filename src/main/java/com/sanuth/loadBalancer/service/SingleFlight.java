@@ -0,0 +1,157 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.AntPathMatcher;
+
+import com.sanuth.loadBalancer.cache.ResponseCache;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Collapses identical concurrent GET and HEAD requests onto one upstream call. The
+ * first request for a key (method, host, URI and the configured key headers) leads
+ * and streams the backend reply to its own client; requests that arrive while it
+ * is in flight wait and are all answered from read-only views of one copy of that
+ * reply. The leader only keeps a copy if someone joined before its response headers
+ * arrived and the response is not personal (see {@link ResponseCache#isPersonal});
+ * otherwise the flight is released at once and waiters send their own requests.
+ * Nothing outlives the leader's request.
+ */
+final class SingleFlight {
+
+    private final LoadBalancerProperties.SingleFlight config;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    SingleFlight(LoadBalancerProperties.SingleFlight config) {
+        this.config = config;
+    }
+
+    /**
+     * @param group name of the upstream group the request routes to
+     * @return the flight key, or {@code null} if the request must not be shared
+     */
+    String keyFor(String group, HttpServletRequest request) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)
+            || request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null) {
+            return null;
+        }
+        // Never hand one user's response to another unless credentials are part of the key.
+        if (request.getHeader("Authorization") != null && !isKeyHeader("Authorization")
+            || request.getHeader("Cookie") != null && !isKeyHeader("Cookie")) {
+            return null;
+        }
+        String path = request.getRequestURI();
+        if (!matchesPath(path)) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(64).append(method).append(' ').append(group).append(' ')
+            .append(request.getServerName()).append(path);
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        for (String header : config.getKeyHeaders()) {
+            key.append('\n').append(header).append(':').append(request.getHeader(header));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return {@code null} if the caller leads the flight and must call
+     *         {@link #land} or {@link #abort}; otherwise the flight to wait on
+     */
+    CompletableFuture<SharedResponse> join(String key) {
+        Flight existing = flights.putIfAbsent(key, new Flight());
+        if (existing != null) {
+            existing.joined = true;
+        }
+        return existing;
+    }
+
+    /**
+     * Called by the leader once its response headers arrive.
+     *
+     * @return how many body bytes to keep for the followers, or {@code -1} if the
+     *         response will not be shared; waiters are then released immediately
+     */
+    int captureLimit(String key, int status, HttpHeaders headers) {
+        Flight flight = flights.get(key);
+        if (flight == null) {
+            return -1;
+        }
+        if (flight.joined && !ResponseCache.isPersonal(headers)) {
+            return config.getMaxBodyBytes();
+        }
+        // Later arrivals see a completed flight and go upstream themselves rather
+        // than waiting for a response that will not be shared.
+        flight.complete(null);
+        return -1;
+    }
+
+    /**
+     * Hands the leader's response to its followers; {@code null} if it could not be
+     * shared, in which case each follower sends its own request.
+     */
+    void land(String key, SharedResponse response) {
+        Flight flight = flights.remove(key);
+        if (flight != null) {
+            flight.complete(response);
+        }
+    }
+
+    void abort(String key, RuntimeException failure) {
+        Flight flight = flights.remove(key);
+        if (flight != null) {
+            flight.completeExceptionally(failure);
+        }
+    }
+
+    private boolean matchesPath(String path) {
+        List<String> patterns = config.getPaths();
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isKeyHeader(String name) {
+        for (String header : config.getKeyHeaders()) {
+            if (header.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Flight extends CompletableFuture<SharedResponse> {
+        private volatile boolean joined;
+    }
+
+    /**
+     * A response shared by every request of one flight. {@link #body()} returns a
+     * fresh view each time; the bytes themselves are never copied.
+     */
+    record SharedResponse(int status, HttpHeaders headers, ByteBuffer sharedBody) {
+
+        static SharedResponse of(int status, HttpHeaders headers, ByteBuffer body) {
+            return new SharedResponse(status, headers, body.asReadOnlyBuffer());
+        }
+
+        ByteBuffer body() {
+            return sharedBody.duplicate();
+        }
+    }
+}
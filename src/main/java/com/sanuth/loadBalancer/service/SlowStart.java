@@ -0,0 +1,58 @@
+package com.sanuth.loadBalancer.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Ramps the traffic of a node that has just become healthy, come back from ejection
+ * or joined the pool. Rather than altering weights, which every strategy would have
+ * to understand, a warming node picked by the strategy is kept only with probability
+ * equal to its current weight fraction; otherwise the pool asks the strategy again.
+ * The fraction rises from {@code minWeightFraction} to 1 over {@code windowMs}.
+ */
+final class SlowStart {
+
+    private final long windowNanos;
+    private final double minFraction;
+    private final double exponent;
+
+    SlowStart(LoadBalancerProperties.SlowStart config) {
+        this.windowNanos = Math.max(0, config.getWindowMs()) * 1_000_000L;
+        this.minFraction = Math.clamp(config.getMinWeightFraction(), 0.0, 1.0);
+        this.exponent = 1.0 / Math.max(config.getAggression(), 0.01);
+    }
+
+    /**
+     * Whether a request may go to {@code node}, which the strategy just picked.
+     */
+    boolean admit(BackendNode node) {
+        long since = node.getWarmingSinceNanos();
+        if (since == BackendNode.NOT_WARMING || windowNanos == 0) {
+            return true;
+        }
+        double fraction = weightFraction(node, System.nanoTime());
+        if (fraction >= 1.0) {
+            node.finishWarming(since);
+            return true;
+        }
+        return ThreadLocalRandom.current().nextDouble() < fraction;
+    }
+
+    /**
+     * Share of its configured weight {@code node} should receive at {@code nowNanos}.
+     */
+    double weightFraction(BackendNode node, long nowNanos) {
+        long since = node.getWarmingSinceNanos();
+        if (since == BackendNode.NOT_WARMING || windowNanos == 0) {
+            return 1.0;
+        }
+        long elapsed = nowNanos - since;
+        if (elapsed >= windowNanos) {
+            return 1.0;
+        }
+        double progress = Math.pow(Math.max(0, elapsed) / (double) windowNanos, exponent);
+        return Math.max(minFraction, progress);
+    }
+}
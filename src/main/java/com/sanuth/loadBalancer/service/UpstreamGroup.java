@@ -0,0 +1,73 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.URI;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.StrategyType;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.routing.TargetUriBuilder;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * One routable set of backends together with the per-group state the proxy needs
+ * for it: its pool and outlier detector, the affinity key for its strategy, its path
+ * rewrites and its request timeout.
+ */
+public final class UpstreamGroup {
+
+    public static final String DEFAULT = "default";
+
+    private final String name;
+    private final BackendPool pool;
+    private final OutlierDetector outlierDetector;
+    private final RequestKeyHasher keyHasher;
+    private final TargetUriBuilder targetUris;
+    private final long requestTimeoutMs;
+    private final String healthCheckPath;
+
+    /**
+     * @param properties the settings this group runs with, already merged with its
+     *                   own overrides
+     */
+    UpstreamGroup(String name, BackendPool pool, OutlierDetector outlierDetector, LoadBalancerProperties properties) {
+        this.name = name;
+        this.pool = pool;
+        this.outlierDetector = outlierDetector;
+        this.keyHasher = properties.getStrategy() == StrategyType.CONSISTENT_HASH
+            ? new RequestKeyHasher(properties.getConsistentHash())
+            : null;
+        this.targetUris = new TargetUriBuilder(properties.getPathRewrites());
+        this.requestTimeoutMs = properties.getRequestTimeoutMs();
+        this.healthCheckPath = HealthCheckService.normalizePath(properties.getHealthCheckPath());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BackendPool getPool() {
+        return pool;
+    }
+
+    public OutlierDetector outlierDetector() {
+        return outlierDetector;
+    }
+
+    long requestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    String healthCheckPath() {
+        return healthCheckPath;
+    }
+
+    long requestHash(HttpServletRequest request) {
+        return keyHasher != null ? keyHasher.hash(request) : LoadBalancingStrategy.NO_KEY;
+    }
+
+    URI targetUri(BackendNode backend, HttpServletRequest request) {
+        return targetUris.build(backend, request);
+    }
+}
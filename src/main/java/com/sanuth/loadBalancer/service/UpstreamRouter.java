@@ -0,0 +1,137 @@
+package com.sanuth.loadBalancer.service;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.HttpClientConfig;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Group;
+import com.sanuth.loadBalancer.routing.RouteTable;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Maps each request to an {@link UpstreamGroup} through the compiled {@code lb.routes}.
+ * Requests no route matches go to the default group, which is the
+ * {@code lb.backends} pool and the health checker and outlier detector beans that
+ * already manage it. Each named {@code lb.groups} entry gets its own pool, health
+ * checker and outlier detector, driven from here on the same schedules.
+ */
+@Component
+public class UpstreamRouter {
+
+    private final UpstreamGroup defaultGroup;
+    private final Map<String, UpstreamGroup> groups = new LinkedHashMap<>();
+    private final List<HealthCheckService> groupHealthChecks = new ArrayList<>();
+    private final List<OutlierDetector> groupOutlierDetectors = new ArrayList<>();
+    private final RouteTable<UpstreamGroup> routes;
+
+    public UpstreamRouter(BackendPool backendPool, OutlierDetector outlierDetector,
+        @Qualifier(HttpClientConfig.HEALTH_CHECK_CLIENT) HttpClient healthCheckClient, LoadBalancerProperties properties) {
+        this.defaultGroup = new UpstreamGroup(UpstreamGroup.DEFAULT, backendPool, outlierDetector, properties);
+        groups.put(UpstreamGroup.DEFAULT, defaultGroup);
+        for (Map.Entry<String, Group> entry : properties.getGroups().entrySet()) {
+            String name = entry.getKey();
+            if (UpstreamGroup.DEFAULT.equals(name)) {
+                throw new IllegalArgumentException("lb.groups." + name + " is reserved for lb.backends");
+            }
+            LoadBalancerProperties merged = merge(properties, entry.getValue());
+            BackendPool pool = new BackendPool(merged);
+            OutlierDetector detector = new OutlierDetector(pool, merged);
+            groupHealthChecks.add(new HealthCheckService(pool, healthCheckClient, merged));
+            groupOutlierDetectors.add(detector);
+            groups.put(name, new UpstreamGroup(name, pool, detector, merged));
+        }
+        RouteTable<UpstreamGroup> compiled = RouteTable.compile(properties.getRoutes(), this::routeTarget);
+        this.routes = compiled.isEmpty() ? null : compiled;
+    }
+
+    /**
+     * The group the best matching route names, or the default group.
+     */
+    public UpstreamGroup route(HttpServletRequest request) {
+        if (routes == null) {
+            return defaultGroup;
+        }
+        UpstreamGroup group = routes.match(request.getServerName(), request.getRequestURI(), request.getMethod(),
+            request::getHeader);
+        return group != null ? group : defaultGroup;
+    }
+
+    public UpstreamGroup defaultGroup() {
+        return defaultGroup;
+    }
+
+    public Collection<UpstreamGroup> groups() {
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    /**
+     * @throws IllegalArgumentException if no group has that name
+     */
+    public UpstreamGroup group(String name) {
+        UpstreamGroup group = groups.get(name);
+        if (group == null) {
+            throw new IllegalArgumentException("Unknown upstream group: " + name);
+        }
+        return group;
+    }
+
+    @Scheduled(fixedDelayString = "${lb.health-check-interval-ms:5000}")
+    public void refreshGroupHealth() {
+        for (HealthCheckService healthChecks : groupHealthChecks) {
+            healthChecks.refreshHealth();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lb.outlier-detection.interval-ms:1000}")
+    public void evaluateGroupOutliers() {
+        for (OutlierDetector detector : groupOutlierDetectors) {
+            detector.evaluate();
+        }
+    }
+
+    private UpstreamGroup routeTarget(String name) {
+        UpstreamGroup group = name != null ? groups.get(name) : null;
+        if (group == null) {
+            throw new IllegalArgumentException("lb.routes entry targets unknown group: " + name);
+        }
+        return group;
+    }
+
+    /**
+     * The top-level settings with the group's backends and overrides applied. Nested
+     * settings are shared with the top level, not copied.
+     */
+    private static LoadBalancerProperties merge(LoadBalancerProperties properties, Group group) {
+        LoadBalancerProperties merged = new LoadBalancerProperties();
+        BeanUtils.copyProperties(properties, merged);
+        merged.setBackends(group.getBackends());
+        merged.setPathRewrites(group.getPathRewrites());
+        merged.setGroups(Map.of());
+        merged.setRoutes(List.of());
+        if (group.getStrategy() != null) {
+            merged.setStrategy(group.getStrategy());
+        }
+        if (group.getHealthCheckPath() != null) {
+            merged.setHealthCheckPath(group.getHealthCheckPath());
+        }
+        if (group.getHealthCheckTimeoutMs() != null) {
+            merged.setHealthCheckTimeoutMs(group.getHealthCheckTimeoutMs());
+        }
+        if (group.getRequestTimeoutMs() != null) {
+            merged.setRequestTimeoutMs(group.getRequestTimeoutMs());
+        }
+        return merged;
+    }
+}
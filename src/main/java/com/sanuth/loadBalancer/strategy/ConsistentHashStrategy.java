@@ -0,0 +1,47 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Session affinity: requests whose key hashes alike go to the same backend for as
+ * long as it stays available. Lookups are one array read in a Maglev table that is
+ * rebuilt only when the candidate set changes. Requests without a key are spread
+ * round-robin.
+ */
+public class ConsistentHashStrategy implements LoadBalancingStrategy {
+
+    public static final int DEFAULT_TABLE_SIZE = 65_537;
+
+    private final int tableSize;
+    private final AtomicInteger sequence = new AtomicInteger(0);
+    private volatile MaglevTable table = MaglevTable.EMPTY;
+
+    public ConsistentHashStrategy() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    public ConsistentHashStrategy(int tableSize) {
+        this.tableSize = MaglevTable.nextPrime(tableSize);
+    }
+
+    @Override
+    public BackendNode select(List<BackendNode> candidates) {
+        return candidates.get(Math.floorMod(sequence.getAndIncrement(), candidates.size()));
+    }
+
+    @Override
+    public BackendNode select(List<BackendNode> candidates, long requestHash) {
+        if (requestHash == NO_KEY) {
+            return select(candidates);
+        }
+        MaglevTable current = table;
+        if (!current.isBuiltFrom(candidates)) {
+            current = MaglevTable.build(candidates, tableSize);
+            table = current;
+        }
+        return current.lookup(requestHash);
+    }
+}
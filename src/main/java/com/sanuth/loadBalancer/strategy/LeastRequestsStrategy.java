@@ -0,0 +1,32 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Picks the candidate with the fewest outstanding requests relative to its weight.
+ * The scan starts at a rotating offset so ties do not all land on the first node.
+ */
+public class LeastRequestsStrategy implements LoadBalancingStrategy {
+
+    private final AtomicInteger offset = new AtomicInteger(0);
+
+    @Override
+    public BackendNode select(List<BackendNode> candidates) {
+        int size = candidates.size();
+        int start = Math.floorMod(offset.getAndIncrement(), size);
+        BackendNode best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            BackendNode candidate = candidates.get((start + i) % size);
+            double load = (candidate.getInFlight() + 1.0) / candidate.getWeight();
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+}
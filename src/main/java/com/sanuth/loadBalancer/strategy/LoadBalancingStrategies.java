@@ -0,0 +1,27 @@
+package com.sanuth.loadBalancer.strategy;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.StrategyType;
+
+public final class LoadBalancingStrategies {
+
+    private LoadBalancingStrategies() {
+    }
+
+    public static LoadBalancingStrategy create(LoadBalancerProperties properties) {
+        if (properties.getStrategy() == StrategyType.CONSISTENT_HASH) {
+            return new ConsistentHashStrategy(properties.getConsistentHash().getTableSize());
+        }
+        return create(properties.getStrategy());
+    }
+
+    public static LoadBalancingStrategy create(StrategyType type) {
+        return switch (type) {
+            case WEIGHTED_ROUND_ROBIN -> new WeightedRoundRobinStrategy();
+            case LEAST_REQUESTS -> new LeastRequestsStrategy();
+            case POWER_OF_TWO_CHOICES -> new PowerOfTwoChoicesStrategy();
+            case PEAK_EWMA -> new PeakEwmaStrategy();
+            case CONSISTENT_HASH -> new ConsistentHashStrategy();
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Picks the backend for a single request.
+ *
+ * <p>The pool passes an immutable list of routable candidates. The same list
+ * instance is reused until node state changes, so implementations may cache
+ * anything derived from it by identity. Implementations are shared by all
+ * request threads and must be thread-safe without locking on the hot path.
+ */
+public interface LoadBalancingStrategy {
+
+    /**
+     * Request hash meaning "this request carries no affinity key".
+     */
+    long NO_KEY = Long.MIN_VALUE;
+
+    /**
+     * @param candidates non-empty list of available nodes with a positive weight
+     */
+    BackendNode select(List<BackendNode> candidates);
+
+    /**
+     * Selects for a request whose affinity key hashes to {@code requestHash}. Only
+     * hashing strategies look at the hash; the rest ignore it.
+     *
+     * @param requestHash 64-bit key hash, or {@link #NO_KEY}
+     */
+    default BackendNode select(List<BackendNode> candidates, long requestHash) {
+        return select(candidates);
+    }
+}
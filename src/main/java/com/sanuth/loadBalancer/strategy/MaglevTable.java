@@ -0,0 +1,131 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Immutable Maglev lookup table (Eisenbud et al., NSDI 2016) over a candidate list.
+ * Each node walks its own permutation of the table, derived only from its
+ * {@code host:port}, and claims free slots in turn, so tables built from candidate
+ * sets that differ by one node agree on almost every slot: removing or adding a node
+ * moves roughly {@code 1/N} of keys. Weights are honoured by letting a node take
+ * {@code weight} turns per round.
+ */
+final class MaglevTable {
+
+    static final MaglevTable EMPTY = new MaglevTable(List.of(), new BackendNode[0]);
+
+    private final List<BackendNode> source;
+    private final BackendNode[] slots;
+
+    private MaglevTable(List<BackendNode> source, BackendNode[] slots) {
+        this.source = source;
+        this.slots = slots;
+    }
+
+    /**
+     * @param tableSize number of slots; must be prime so that every skip visits every
+     *                  slot. Well above {@code 100 * candidates} keeps each node's
+     *                  share within about 1% of its weight.
+     */
+    static MaglevTable build(List<BackendNode> candidates, int tableSize) {
+        int size = candidates.size();
+        long[] offsets = new long[size];
+        long[] skips = new long[size];
+        int[] turns = new int[size];
+        int divisor = 0;
+        for (BackendNode backend : candidates) {
+            divisor = gcd(divisor, backend.getWeight());
+        }
+        for (int i = 0; i < size; i++) {
+            BackendNode backend = candidates.get(i);
+            long hash = hash(backend.getHost() + ":" + backend.getPort());
+            offsets[i] = Long.remainderUnsigned(mix(hash), tableSize);
+            skips[i] = Long.remainderUnsigned(mix(hash ^ 0x9E3779B97F4A7C15L), tableSize - 1) + 1;
+            turns[i] = backend.getWeight() / divisor;
+        }
+
+        BackendNode[] slots = new BackendNode[tableSize];
+        long[] next = new long[size];
+        int filled = 0;
+        while (filled < tableSize) {
+            for (int i = 0; i < size && filled < tableSize; i++) {
+                for (int turn = 0; turn < turns[i] && filled < tableSize; turn++) {
+                    int slot;
+                    do {
+                        slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                        next[i]++;
+                    } while (slots[slot] != null);
+                    slots[slot] = candidates.get(i);
+                    filled++;
+                }
+            }
+        }
+        return new MaglevTable(candidates, slots);
+    }
+
+    static int nextPrime(int value) {
+        int candidate = Math.max(2, value);
+        while (!isPrime(candidate)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    private static boolean isPrime(int value) {
+        if (value < 4) {
+            return value >= 2;
+        }
+        if (value % 2 == 0) {
+            return false;
+        }
+        for (int divisor = 3; (long) divisor * divisor <= value; divisor += 2) {
+            if (value % divisor == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isBuiltFrom(List<BackendNode> candidates) {
+        return source == candidates;
+    }
+
+    BackendNode lookup(long requestHash) {
+        return slots[(int) Long.remainderUnsigned(requestHash, slots.length)];
+    }
+
+    static long hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 64-bit finaliser, so nearby inputs land on unrelated slots.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+
+}
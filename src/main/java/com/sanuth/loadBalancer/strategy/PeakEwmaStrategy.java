@@ -0,0 +1,25 @@
+package com.sanuth.loadBalancer.strategy;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Latency-aware power of two choices. The cost of a node is its peak-EWMA latency
+ * multiplied by the requests it would have outstanding, so slow nodes shed load as
+ * soon as their latency rises rather than after their queue has grown.
+ */
+public class PeakEwmaStrategy extends PowerOfTwoChoicesStrategy {
+
+    // Cost for a node with no latency sample yet that is already busy: high enough
+    // to stop a cold node from absorbing a burst before we know how fast it is.
+    private static final double UNMEASURED_BUSY_PENALTY_NANOS = 1e12;
+
+    @Override
+    protected double cost(BackendNode node) {
+        int inFlight = node.getInFlight();
+        double latency = node.getLatencyEstimateNanos();
+        if (latency == 0.0 && inFlight > 0) {
+            return UNMEASURED_BUSY_PENALTY_NANOS + inFlight;
+        }
+        return latency * (inFlight + 1.0) / node.getWeight();
+    }
+}
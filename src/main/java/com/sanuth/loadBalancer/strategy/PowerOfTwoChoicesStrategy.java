@@ -0,0 +1,35 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Power of two random choices: samples two distinct candidates and keeps the one
+ * with the lower cost. Constant time regardless of pool size and, unlike a full
+ * least-requests scan, does not herd concurrent callers onto the same node.
+ */
+public class PowerOfTwoChoicesStrategy implements LoadBalancingStrategy {
+
+    @Override
+    public BackendNode select(List<BackendNode> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        BackendNode a = candidates.get(first);
+        BackendNode b = candidates.get(second);
+        return cost(b) < cost(a) ? b : a;
+    }
+
+    protected double cost(BackendNode node) {
+        return (node.getInFlight() + 1.0) / node.getWeight();
+    }
+}
@@ -0,0 +1,26 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Smooth weighted round-robin over a precomputed schedule that is rebuilt only
+ * when the candidate set changes.
+ */
+public class WeightedRoundRobinStrategy implements LoadBalancingStrategy {
+
+    private final AtomicInteger sequence = new AtomicInteger(0);
+    private volatile WeightedSchedule schedule = WeightedSchedule.EMPTY;
+
+    @Override
+    public BackendNode select(List<BackendNode> candidates) {
+        WeightedSchedule current = schedule;
+        if (!current.isBuiltFrom(candidates)) {
+            current = WeightedSchedule.build(candidates);
+            schedule = current;
+        }
+        return current.pick(sequence.getAndIncrement());
+    }
+}
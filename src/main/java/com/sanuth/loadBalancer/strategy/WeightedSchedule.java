@@ -0,0 +1,86 @@
+package com.sanuth.loadBalancer.strategy;
+
+import java.util.List;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+
+/**
+ * Immutable, precomputed smooth weighted round-robin sequence (the nginx algorithm)
+ * over a candidate list. Picking from it is a single array read, so selection never
+ * rescans nodes and never takes a lock.
+ *
+ * <p>A period holds every node's weight in slots, after dividing out the weights'
+ * common factor. Weights whose reduced total exceeds {@link #MAX_SLOTS} (say, 1000
+ * and 1001) are scaled down to fit, keeping each node at least one slot; the ratios
+ * then hold to within one slot per node.
+ */
+final class WeightedSchedule {
+
+    static final int MAX_SLOTS = 4096;
+
+    static final WeightedSchedule EMPTY = new WeightedSchedule(List.of(), new BackendNode[0]);
+
+    private final List<BackendNode> source;
+    private final BackendNode[] slots;
+
+    private WeightedSchedule(List<BackendNode> source, BackendNode[] slots) {
+        this.source = source;
+        this.slots = slots;
+    }
+
+    static WeightedSchedule build(List<BackendNode> eligible) {
+        int divisor = 0;
+        for (BackendNode backend : eligible) {
+            divisor = gcd(divisor, backend.getWeight());
+        }
+        int size = eligible.size();
+        long reducedTotal = 0;
+        for (BackendNode backend : eligible) {
+            reducedTotal += backend.getWeight() / divisor;
+        }
+        int[] weights = new int[size];
+        int totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            long weight = eligible.get(i).getWeight() / divisor;
+            if (reducedTotal > MAX_SLOTS) {
+                weight = Math.max(1, weight * MAX_SLOTS / reducedTotal);
+            }
+            weights[i] = (int) weight;
+            totalWeight += weights[i];
+        }
+
+        // One full period of smooth weighted round-robin: every node appears exactly
+        // `weight` times and picks of a heavy node are interleaved with the others.
+        BackendNode[] slots = new BackendNode[totalWeight];
+        int[] current = new int[size];
+        for (int slot = 0; slot < totalWeight; slot++) {
+            int best = 0;
+            for (int i = 0; i < size; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= totalWeight;
+            slots[slot] = eligible.get(best);
+        }
+        return new WeightedSchedule(eligible, slots);
+    }
+
+    boolean isBuiltFrom(List<BackendNode> candidates) {
+        return source == candidates;
+    }
+
+    BackendNode pick(int sequence) {
+        return slots[Math.floorMod(sequence, slots.length)];
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+}
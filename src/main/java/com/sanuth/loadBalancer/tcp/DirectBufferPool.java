@@ -0,0 +1,31 @@
+package com.sanuth.loadBalancer.tcp;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of direct buffers for splicing connections. Direct buffers let the
+ * kernel read into and write from the same memory without a copy through the heap,
+ * but they are slow to allocate and freed only by the GC, so they are reused.
+ */
+final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+}
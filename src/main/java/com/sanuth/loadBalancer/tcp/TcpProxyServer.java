@@ -0,0 +1,229 @@
+package com.sanuth.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Tcp;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.CircuitBreaker;
+import com.sanuth.loadBalancer.service.BackendPool;
+import com.sanuth.loadBalancer.service.OutlierDetector;
+import com.sanuth.loadBalancer.service.UpstreamGroup;
+import com.sanuth.loadBalancer.service.UpstreamRouter;
+
+/**
+ * Optional layer-4 mode ({@code lb.tcp.enabled}): a TCP listener that balances raw
+ * connections over one upstream group ({@code lb.tcp.group}) with the same pool,
+ * health state and strategy as the HTTP proxy, without parsing anything. One acceptor thread hands connections to
+ * {@code ioThreads} selector workers, which splice bytes between client and backend
+ * through pooled direct buffers.
+ *
+ * <p>Each connection holds one in-flight slot on its backend for its whole life, so
+ * per-backend connection limits apply as they do to HTTP requests. A backend that
+ * refuses or times out the connection is reported to the outlier detector and the
+ * next one is tried.
+ */
+@Component
+public class TcpProxyServer implements SmartLifecycle {
+
+    private final BackendPool backendPool;
+    private final OutlierDetector outlierDetector;
+    private final Tcp config;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final Map<String, InetSocketAddress> addresses = new ConcurrentHashMap<>();
+    private final List<TcpWorker> workers = new ArrayList<>();
+    private DirectBufferPool buffers;
+    private ServerSocketChannel listener;
+    private volatile boolean running;
+
+    public TcpProxyServer(UpstreamRouter router, LoadBalancerProperties properties) {
+        this.config = properties.getTcp();
+        UpstreamGroup group = router.group(config.getGroup());
+        this.backendPool = group.getPool();
+        this.outlierDetector = group.outlierDetector();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!config.isEnabled() || running) {
+            return;
+        }
+        int threads = config.getIoThreads() > 0 ? config.getIoThreads() : Runtime.getRuntime().availableProcessors();
+        // Two buffers per connection; keep enough pooled for a moderately busy listener.
+        buffers = new DirectBufferPool(config.getBufferSize(), Math.min(2 * config.getMaxConnections(), 4096));
+        try {
+            listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress(config.getBindAddress(), config.getPort()), 1024);
+            for (int i = 0; i < threads; i++) {
+                TcpWorker worker = new TcpWorker(this, config.getIdleTimeoutMs(), config.getConnectTimeoutMs());
+                workers.add(worker);
+                Thread.ofPlatform().daemon().name("lb-tcp-io-" + i).start(worker);
+            }
+        } catch (IOException ex) {
+            stop();
+            throw new UncheckedIOException("Could not start TCP listener on port " + config.getPort(), ex);
+        }
+        running = true;
+        List<TcpWorker> acceptorWorkers = List.copyOf(workers);
+        Thread.ofPlatform().daemon().name("lb-tcp-accept").start(() -> acceptLoop(acceptorWorkers));
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            try {
+                listener.close();
+            } catch (IOException ex) {
+                // Closing anyway.
+            }
+        }
+        for (TcpWorker worker : workers) {
+            worker.stop();
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Port the listener is bound to, or {@code -1} when it is not running.
+     */
+    public int getLocalPort() {
+        try {
+            return running ? ((InetSocketAddress) listener.getLocalAddress()).getPort() : -1;
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * Hands accepted clients to {@code workers} in turn. The list is the acceptor's own
+     * copy, so {@link #stop()} clearing the server's list cannot race with it.
+     */
+    private void acceptLoop(List<TcpWorker> workers) {
+        int next = 0;
+        while (running) {
+            SocketChannel client;
+            try {
+                client = listener.accept();
+            } catch (ClosedChannelException ex) {
+                return;
+            } catch (IOException ex) {
+                // Typically out of file descriptors; back off briefly instead of spinning.
+                pause();
+                continue;
+            }
+            if (!running) {
+                // Accepted just as the listener was closing; nobody will serve it.
+                closeQuietly(client);
+                return;
+            }
+            if (activeConnections.incrementAndGet() > config.getMaxConnections()) {
+                activeConnections.decrementAndGet();
+                rejectedConnections.increment();
+                closeQuietly(client);
+                continue;
+            }
+            acceptedConnections.increment();
+            workers.get(next).hand(client);
+            next = (next + 1) % workers.size();
+        }
+    }
+
+    DirectBufferPool buffers() {
+        return buffers;
+    }
+
+    /**
+     * Picks a backend outside {@code tried} and reserves a connection slot on it, or
+     * returns {@code null} if none is available.
+     */
+    Reservation reserveBackend(List<BackendNode> tried) {
+        List<BackendNode> skipped = new ArrayList<>(tried);
+        while (true) {
+            Optional<BackendNode> candidate = backendPool.selectNextHealthyBackend(skipped);
+            if (candidate.isEmpty()) {
+                return null;
+            }
+            BackendNode backend = candidate.get();
+            CircuitBreaker.Permit permit = backend.tryBeginRequest();
+            if (permit != null) {
+                return new Reservation(backend, permit);
+            }
+            skipped.add(backend);
+        }
+    }
+
+    InetSocketAddress addressOf(BackendNode backend) {
+        // Resolve once per backend rather than on the selector thread for every connection.
+        return addresses.computeIfAbsent(backend.getHost() + ":" + backend.getPort(),
+            ignored -> new InetSocketAddress(backend.getHost(), backend.getPort()));
+    }
+
+    void onConnectFailure(BackendNode backend, CircuitBreaker.Permit permit, long elapsedNanos) {
+        backend.getMetrics().recordFailure(true, elapsedNanos);
+        backend.recordCallOutcome(permit, true, elapsedNanos);
+        backend.recordDropped();
+        outlierDetector.recordFailure(backend);
+    }
+
+    void onSessionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // Never handed to a worker; nothing else to release.
+        }
+    }
+
+    /**
+     * A connection slot reserved on a backend, with the circuit permit its outcome is
+     * reported under.
+     */
+    record Reservation(BackendNode node, CircuitBreaker.Permit permit) {
+    }
+}
@@ -0,0 +1,275 @@
+package com.sanuth.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.CircuitBreaker;
+
+/**
+ * One client connection spliced to one backend connection. Each direction has its
+ * own direct buffer, always kept in fill mode so its position is the number of bytes
+ * waiting to be written. A side is read only while its buffer has room, which gives
+ * backpressure in both directions, and an end of stream from one side is passed on
+ * as a half-close once everything before it has been written.
+ *
+ * <p>All methods run on the owning worker's selector thread.
+ */
+final class TcpSession {
+
+    private final TcpProxyServer server;
+    private final Selector selector;
+    private final SocketChannel client;
+    private final List<BackendNode> tried = new ArrayList<>(1);
+    private ByteBuffer upstream;
+    private ByteBuffer downstream;
+    private SelectionKey clientKey;
+    private SocketChannel backendChannel;
+    private SelectionKey backendKey;
+    private BackendNode backend;
+    private CircuitBreaker.Permit permit;
+    private boolean connected;
+    private boolean clientEof;
+    private boolean backendEof;
+    private boolean backendOutputShut;
+    private boolean clientOutputShut;
+    private boolean closed;
+    private long connectStartNanos;
+    private long lastActivityNanos;
+
+    TcpSession(TcpProxyServer server, Selector selector, SocketChannel client) {
+        this.server = server;
+        this.selector = selector;
+        this.client = client;
+        this.lastActivityNanos = System.nanoTime();
+    }
+
+    void start() {
+        try {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            clientKey = client.register(selector, 0, this);
+        } catch (IOException ex) {
+            close();
+            return;
+        }
+        upstream = server.buffers().acquire();
+        downstream = server.buffers().acquire();
+        connectNext();
+    }
+
+    /**
+     * Dispatches a ready key and then recomputes what both channels wait for.
+     */
+    void handle(SelectionKey key) {
+        if (closed || !key.isValid()) {
+            return;
+        }
+        try {
+            if (key == backendKey && !connected) {
+                if (key.isConnectable() && backendChannel.finishConnect()) {
+                    onConnected();
+                }
+            } else if (key == clientKey) {
+                if (key.isReadable()) {
+                    clientEof |= transfer(client, upstream, backendChannel);
+                }
+                if (key.isWritable()) {
+                    drain(downstream, client);
+                }
+            } else if (key == backendKey) {
+                if (key.isReadable()) {
+                    backendEof |= transfer(backendChannel, downstream, client);
+                }
+                if (key.isWritable()) {
+                    drain(upstream, backendChannel);
+                }
+            }
+        } catch (IOException ex) {
+            if (!connected && key == backendKey) {
+                connectFailed();
+                return;
+            }
+            close();
+            return;
+        }
+        updateInterest();
+    }
+
+    /**
+     * Closes the session if it has been idle, or connecting, for too long.
+     */
+    void checkTimeouts(long nowNanos, long idleTimeoutNanos, long connectTimeoutNanos) {
+        if (closed) {
+            return;
+        }
+        if (!connected && backendChannel != null && nowNanos - connectStartNanos > connectTimeoutNanos) {
+            connectFailed();
+        } else if (nowNanos - lastActivityNanos > idleTimeoutNanos) {
+            close();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(client);
+        closeQuietly(backendChannel);
+        if (upstream != null) {
+            server.buffers().release(upstream);
+            server.buffers().release(downstream);
+            upstream = null;
+            downstream = null;
+        }
+        if (backend != null) {
+            if (connected) {
+                backend.endRequest();
+            } else {
+                // Closed mid-connect: no outcome, so hand back a half-open trial permit.
+                backend.cancelRequest(permit);
+            }
+            backend = null;
+        }
+        server.onSessionClosed();
+    }
+
+    private void connectNext() {
+        while (true) {
+            TcpProxyServer.Reservation reservation = server.reserveBackend(tried);
+            if (reservation == null) {
+                close();
+                return;
+            }
+            backend = reservation.node();
+            permit = reservation.permit();
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                backendChannel = channel;
+                connectStartNanos = System.nanoTime();
+                boolean done = channel.connect(server.addressOf(backend));
+                backendKey = channel.register(selector, done ? 0 : SelectionKey.OP_CONNECT, this);
+                if (done) {
+                    onConnected();
+                    updateInterest();
+                }
+                return;
+            } catch (IOException | RuntimeException ex) {
+                closeQuietly(channel);
+                releaseFailedBackend();
+            }
+        }
+    }
+
+    private void connectFailed() {
+        if (backendKey != null) {
+            backendKey.cancel();
+            backendKey = null;
+        }
+        closeQuietly(backendChannel);
+        releaseFailedBackend();
+        // Nothing has reached a backend yet, so the next one can be tried safely.
+        connectNext();
+    }
+
+    private void releaseFailedBackend() {
+        BackendNode failed = backend;
+        backend = null;
+        backendChannel = null;
+        if (failed != null) {
+            failed.endRequest();
+            tried.add(failed);
+            server.onConnectFailure(failed, permit, System.nanoTime() - connectStartNanos);
+        }
+    }
+
+    private void onConnected() {
+        connected = true;
+        lastActivityNanos = System.nanoTime();
+        backend.recordLatency(connectStartNanos);
+        backend.recordCallOutcome(permit, false, lastActivityNanos - connectStartNanos);
+    }
+
+    /**
+     * Reads what {@code from} has into {@code buffer} and passes as much as possible
+     * straight on to {@code to}.
+     *
+     * @return whether {@code from} reached end of stream
+     */
+    private boolean transfer(SocketChannel from, ByteBuffer buffer, SocketChannel to) throws IOException {
+        int read = from.read(buffer);
+        if (read > 0) {
+            lastActivityNanos = System.nanoTime();
+            drain(buffer, to);
+        }
+        return read < 0;
+    }
+
+    private void drain(ByteBuffer buffer, SocketChannel to) throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            if (to.write(buffer) > 0) {
+                lastActivityNanos = System.nanoTime();
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    private void updateInterest() {
+        if (closed || !connected) {
+            return;
+        }
+        try {
+            if (clientEof && upstream.position() == 0 && !backendOutputShut) {
+                backendChannel.shutdownOutput();
+                backendOutputShut = true;
+            }
+            if (backendEof && downstream.position() == 0 && !clientOutputShut) {
+                client.shutdownOutput();
+                clientOutputShut = true;
+            }
+        } catch (IOException ex) {
+            close();
+            return;
+        }
+        if (backendOutputShut && clientOutputShut) {
+            close();
+            return;
+        }
+        int clientOps = (!clientEof && upstream.hasRemaining() ? SelectionKey.OP_READ : 0)
+            | (downstream.position() > 0 ? SelectionKey.OP_WRITE : 0);
+        int backendOps = (!backendEof && downstream.hasRemaining() ? SelectionKey.OP_READ : 0)
+            | (upstream.position() > 0 ? SelectionKey.OP_WRITE : 0);
+        clientKey.interestOps(clientOps);
+        backendKey.interestOps(backendOps);
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // Already broken; nothing more to release.
+        }
+    }
+}
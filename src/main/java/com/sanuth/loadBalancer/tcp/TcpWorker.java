@@ -0,0 +1,134 @@
+package com.sanuth.loadBalancer.tcp;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector loop owning a share of the proxied connections. Accepted channels are
+ * handed over through a queue and a {@link Selector#wakeup()}, so every session is
+ * only ever touched by this thread. Timeouts are checked about once a second. A
+ * session that throws unexpectedly is closed on its own, so one bad connection never
+ * takes down the others on the same loop.
+ */
+final class TcpWorker implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpWorker.class);
+
+    private static final long SCAN_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final TcpProxyServer server;
+    private final Selector selector;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private final List<TcpSession> sessions = new ArrayList<>();
+    private final long idleTimeoutNanos;
+    private final long connectTimeoutNanos;
+    private volatile boolean running = true;
+
+    TcpWorker(TcpProxyServer server, long idleTimeoutMs, long connectTimeoutMs) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.idleTimeoutNanos = idleTimeoutMs * 1_000_000L;
+        this.connectTimeoutNanos = connectTimeoutMs * 1_000_000L;
+    }
+
+    void hand(SocketChannel client) {
+        accepted.add(client);
+        if (running) {
+            selector.wakeup();
+        } else {
+            // The loop may already have drained the queue on its way out.
+            closeAccepted();
+        }
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long lastScan = System.nanoTime();
+        try {
+            while (running) {
+                selector.select(1000);
+                SocketChannel client;
+                while ((client = accepted.poll()) != null) {
+                    TcpSession session = new TcpSession(server, selector, client);
+                    sessions.add(session);
+                    try {
+                        session.start();
+                    } catch (RuntimeException ex) {
+                        abandon(session, ex);
+                    }
+                }
+                Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+                while (ready.hasNext()) {
+                    SelectionKey key = ready.next();
+                    ready.remove();
+                    TcpSession session = (TcpSession) key.attachment();
+                    try {
+                        session.handle(key);
+                    } catch (RuntimeException ex) {
+                        abandon(session, ex);
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - lastScan >= SCAN_INTERVAL_NANOS) {
+                    lastScan = now;
+                    for (TcpSession session : sessions) {
+                        try {
+                            session.checkTimeouts(now, idleTimeoutNanos, connectTimeoutNanos);
+                        } catch (RuntimeException ex) {
+                            abandon(session, ex);
+                        }
+                    }
+                    sessions.removeIf(TcpSession::isClosed);
+                }
+            }
+        } catch (IOException ex) {
+            // The selector itself failed; fall through and drop every connection.
+        } finally {
+            for (TcpSession session : sessions) {
+                session.close();
+            }
+            closeAccepted();
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                // Closing anyway.
+            }
+        }
+    }
+
+    private static void abandon(TcpSession session, RuntimeException ex) {
+        log.warn("Closing TCP session after an unexpected error", ex);
+        session.close();
+    }
+
+    /**
+     * Closes clients handed over but never started. Safe from any thread, since each
+     * queued channel is polled exactly once.
+     */
+    private void closeAccepted() {
+        SocketChannel client;
+        while ((client = accepted.poll()) != null) {
+            try {
+                client.close();
+            } catch (IOException ex) {
+                // Closing anyway.
+            }
+            server.onSessionClosed();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.sanuth.loadBalancer.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+
+class ResponseCacheTest {
+
+    @Test
+    void bypassesRequestsThatMustNotBeServedFromCache() {
+        ResponseCache cache = cache(1 << 20);
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/items");
+        MockHttpServletRequest authorized = new MockHttpServletRequest("GET", "/items");
+        authorized.addHeader("Authorization", "Bearer token");
+        MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/items");
+        plain.setQueryString("page=2");
+
+        assertNull(cache.keyFor("default", post));
+        assertNull(cache.keyFor("default", authorized));
+        assertEquals("default localhost/items?page=2", cache.keyFor("default", plain));
+        assertEquals("canary localhost/items?page=2", cache.keyFor("canary", plain));
+    }
+
+    @Test
+    void honoursFreshnessDirectives() {
+        ResponseCache cache = cache(1 << 20);
+
+        assertTrue(cache.isStorable(200, headers("cache-control", "public, max-age=60")));
+        assertTrue(cache.isStorable(200, headers("cache-control", "max-age=0, s-maxage=30")));
+        assertFalse(cache.isStorable(200, headers("cache-control", "private, max-age=60")));
+        assertFalse(cache.isStorable(200, headers("cache-control", "no-cache")));
+        assertFalse(cache.isStorable(200, headers("cache-control", "s-maxage=0, max-age=60")));
+        assertFalse(cache.isStorable(500, headers("cache-control", "max-age=60")));
+        assertFalse(cache.isStorable(200, headers()));
+        assertTrue(cache.isStorable(200, headers(
+            "date", "Sun, 18 Oct 2026 10:00:00 GMT", "expires", "Sun, 18 Oct 2026 10:05:00 GMT")));
+        assertFalse(cache.isStorable(200, headers("expires", "0")));
+    }
+
+    @Test
+    void matchesStoredVariantOnVaryHeaders() {
+        ResponseCache cache = cache(1 << 20);
+        MockHttpServletRequest english = new MockHttpServletRequest("GET", "/page");
+        english.addHeader("Accept-Language", "en");
+        MockHttpServletRequest french = new MockHttpServletRequest("GET", "/page");
+        french.addHeader("Accept-Language", "fr");
+        String key = cache.keyFor("default", english);
+
+        cache.store(key, english::getHeader, 200, headers("cache-control", "max-age=60", "vary", "Accept-Language"),
+            ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8)));
+
+        long now = System.nanoTime();
+        assertNotNull(cache.lookup(key, english, now));
+        assertNull(cache.lookup(key, french, now));
+    }
+
+    @Test
+    void evictsUnreferencedEntriesToStayWithinBudget() {
+        ResponseCache cache = cache(3 * (1024 + 512));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        HttpHeaders cacheable = headers("cache-control", "max-age=60");
+
+        for (String key : List.of("a", "b", "c")) {
+            assertNotNull(cache.store(key, request::getHeader, 200, cacheable, ByteBuffer.wrap(new byte[1024])));
+        }
+        cache.lookup("a", request, System.nanoTime());
+        assertNotNull(cache.store("d", request::getHeader, 200, cacheable, ByteBuffer.wrap(new byte[1024])));
+
+        long now = System.nanoTime();
+        assertNotNull(cache.lookup("a", request, now), "recently used entry gets a second chance");
+        assertNull(cache.lookup("b", request, now));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getUsedBytes() <= 3 * (1024 + 512));
+    }
+
+    @Test
+    void rejectsNewcomerLessPopularThanTheVictim() {
+        ResponseCache cache = cache(1024 + 512);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        HttpHeaders cacheable = headers("cache-control", "max-age=60");
+        cache.store("popular", request::getHeader, 200, cacheable, ByteBuffer.wrap(new byte[1024]));
+        for (int i = 0; i < 5; i++) {
+            cache.lookup("popular", request, System.nanoTime());
+        }
+        // Let the CLOCK hand clear the reference bit so admission alone decides.
+        cache.store("rare", request::getHeader, 200, cacheable, ByteBuffer.wrap(new byte[1024]));
+
+        assertNull(cache.store("rare", request::getHeader, 200, cacheable, ByteBuffer.wrap(new byte[1024])));
+        assertNotNull(cache.lookup("popular", request, System.nanoTime()));
+    }
+
+    @Test
+    void capturesBodiesOffHeapWhenConfigured() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setOffHeap(true);
+        ResponseCache cache = new ResponseCache(properties);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        HttpHeaders headers = headers("cache-control", "max-age=60");
+        BodyCapture capture = cache.newCapture(headers);
+        byte[] body = new byte[20_000];
+        capture.write(body, 0, 10_000);
+        capture.write(body, 10_000, 10_000);
+
+        CachedResponse stored = cache.store("k", request::getHeader, 200, headers, capture.toBuffer());
+
+        assertTrue(stored.body().isDirect());
+        assertEquals(20_000, stored.bodyLength());
+    }
+
+    private ResponseCache cache(long maxBytes) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setMaxBytes(maxBytes);
+        return new ResponseCache(properties);
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            map.put(namesAndValues[i], List.of(namesAndValues[i + 1]));
+        }
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sanuth.loadBalancer.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Compression;
+import com.sanuth.loadBalancer.service.BufferPool;
+
+class ResponseCompressorTest {
+
+    private final ResponseCompressor compressor = new ResponseCompressor(enabled(), new BufferPool(512, 4));
+
+    @Test
+    void selectsCodingFromAcceptEncoding() {
+        assertEquals(ContentCoding.GZIP, compressor.select("gzip, deflate, br"));
+        assertEquals(ContentCoding.DEFLATE, compressor.select("br, DEFLATE"));
+        assertEquals(ContentCoding.DEFLATE, compressor.select("gzip;q=0.5, deflate"));
+        assertEquals(ContentCoding.GZIP, compressor.select("*"));
+        assertNull(compressor.select("gzip;q=0, deflate;q=0"));
+        assertNull(compressor.select("br"));
+        assertNull(compressor.select(null));
+    }
+
+    @Test
+    void compressesOnlyFullUnencodedBodiesOfListedTypes() {
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/");
+
+        assertTrue(compressor.isCompressible(get, 200, headers("content-type", "application/json; charset=utf-8")));
+        assertTrue(compressor.isCompressible(get, 404, headers("content-type", "application/problem+json")));
+        assertFalse(compressor.isCompressible(get, 200, headers("content-type", "image/png")));
+        assertFalse(compressor.isCompressible(get, 200, headers("content-type", "text/plain", "content-encoding", "br")));
+        assertFalse(compressor.isCompressible(get, 200, headers("content-type", "text/plain", "content-length", "100")));
+        assertFalse(compressor.isCompressible(get, 200, headers("content-type", "text/plain", "cache-control", "no-transform")));
+        assertFalse(compressor.isCompressible(get, 206, headers("content-type", "text/plain")));
+        assertFalse(compressor.isCompressible(new MockHttpServletRequest("HEAD", "/"), 200, headers("content-type", "text/plain")));
+    }
+
+    @Test
+    void streamsGzipAndDeflateThatStandardDecodersRead() throws IOException {
+        byte[] body = "{\"items\":[1,2,3]}\n".repeat(2_000).getBytes(StandardCharsets.UTF_8);
+
+        for (ContentCoding coding : ContentCoding.values()) {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            DeflatingOutputStream out = compressor.open(sink, coding);
+            try {
+                out.write(body, 0, 1000);
+                out.flush();
+                out.write(body, 1000, body.length - 1000);
+                out.finish();
+            } finally {
+                out.release();
+            }
+
+            byte[] compressed = sink.toByteArray();
+            assertTrue(compressed.length < body.length / 10, coding + " size " + compressed.length);
+            try (InputStream in = coding == ContentCoding.GZIP
+                ? new GZIPInputStream(new ByteArrayInputStream(compressed))
+                : new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+                assertArrayEquals(body, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void flushMakesWrittenBytesDecodable() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        DeflatingOutputStream out = compressor.open(sink, ContentCoding.DEFLATE);
+        try {
+            out.write("first chunk".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            InflaterInputStream partial = new InflaterInputStream(new ByteArrayInputStream(sink.toByteArray()));
+            assertArrayEquals("first chunk".getBytes(StandardCharsets.UTF_8), partial.readNBytes(11));
+        } finally {
+            out.release();
+        }
+    }
+
+    private static Compression enabled() {
+        Compression config = new Compression();
+        config.setEnabled(true);
+        return config;
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            map.put(namesAndValues[i], List.of(namesAndValues[i + 1]));
+        }
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+}
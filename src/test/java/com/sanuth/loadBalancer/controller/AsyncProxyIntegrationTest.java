@@ -0,0 +1,159 @@
+package com.sanuth.loadBalancer.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"lb.proxy-mode=async", "lb.request-timeout-ms=3000", "lb.async-timeout-ms=1000"})
+class AsyncProxyIntegrationTest {
+
+    private static final CountDownLatch RELEASE_STALLED = new CountDownLatch(1);
+    private static final HttpServer BACKEND = startBackend();
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("lb.backends[0].host", () -> "localhost");
+        registry.add("lb.backends[0].port", () -> BACKEND.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        RELEASE_STALLED.countDown();
+        BACKEND.stop(0);
+    }
+
+    @Test
+    void proxiesSimpleGet() throws Exception {
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/hello?name=lb")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("hello name=lb", response.body());
+        assertEquals("stub", response.headers().firstValue("x-backend").orElseThrow());
+    }
+
+    @Test
+    void streamsLargeBodiesBothWays() throws Exception {
+        byte[] payload = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(payload);
+
+        HttpResponse<byte[]> response = client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/echo"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(payload, response.body());
+    }
+
+    @Test
+    void exposesPrometheusMetricsForProxiedTraffic() throws Exception {
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/hello")).GET().build(),
+            HttpResponse.BodyHandlers.discarding());
+
+        HttpResponse<String> metrics = client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/lb/metrics")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        String backend = "backend=\"localhost:" + BACKEND.getAddress().getPort() + "\",group=\"default\"";
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("content-type").orElseThrow().startsWith("text/plain"));
+        assertTrue(metrics.body().contains("# TYPE lb_backend_latency_seconds histogram"));
+        assertTrue(metrics.body().contains("lb_backend_responses_total{" + backend + ",class=\"2xx\"}"));
+        assertTrue(metrics.body().contains("lb_backend_latency_seconds_bucket{" + backend + ",phase=\"ttfb\",le=\"+Inf\"}"));
+    }
+
+    @Test
+    void answersGatewayTimeoutWhenAStalledExchangeOutlivesTheAsyncTimeout() throws Exception {
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stall?16")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(504, response.statusCode());
+    }
+
+    @Test
+    void abortsAStreamingResponseThatOutlivesTheAsyncTimeout() {
+        long startNanos = System.nanoTime();
+
+        assertThrows(IOException.class, () -> client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stall?262144")).GET().build(),
+            HttpResponse.BodyHandlers.ofByteArray()));
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(15));
+    }
+
+    private static HttpServer startBackend() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/hello", exchange -> {
+                byte[] body = ("hello " + exchange.getRequestURI().getQuery()).getBytes();
+                exchange.getResponseHeaders().add("X-Backend", "stub");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.createContext("/echo", exchange -> {
+                exchange.sendResponseHeaders(200, 0);
+                try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+                    in.transferTo(out);
+                }
+            });
+            // Sends the number of bytes in the query out of twice as many, then stalls.
+            server.createContext("/stall", exchange -> {
+                int sent = Integer.parseInt(exchange.getRequestURI().getQuery());
+                exchange.sendResponseHeaders(200, 2L * sent);
+                OutputStream out = exchange.getResponseBody();
+                out.write(new byte[sent]);
+                out.flush();
+                try {
+                    RELEASE_STALLED.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            });
+            server.createContext("/health", exchange -> {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sanuth.loadBalancer.controller;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The async-mode counterpart of {@link StreamingFailureIntegrationTest}: a backend
+ * that breaks off mid-body must surface to the client as a broken connection.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "lb.proxy-mode=async")
+class AsyncStreamingFailureIntegrationTest {
+
+    private static final HttpServer BACKEND = startBackend();
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("lb.backends[0].host", () -> "localhost");
+        registry.add("lb.backends[0].port", () -> BACKEND.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        BACKEND.stop(0);
+    }
+
+    @Test
+    void abortsAChunkedResponseWhenTheBackendFailsMidBody() {
+        assertAborted("/broken?chunked");
+    }
+
+    @Test
+    void abortsAFixedLengthResponseWhenTheBackendFailsMidBody() {
+        assertAborted("/broken?fixed");
+    }
+
+    private void assertAborted(String path) {
+        long startNanos = System.nanoTime();
+
+        assertThrows(IOException.class, () -> client.send(
+            HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+            HttpResponse.BodyHandlers.ofByteArray()));
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(15));
+    }
+
+    private static HttpServer startBackend() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            // Sends 64 KiB of a longer body, then drops the connection.
+            server.createContext("/broken", exchange -> {
+                boolean chunked = "chunked".equals(exchange.getRequestURI().getQuery());
+                exchange.sendResponseHeaders(200, chunked ? 0 : 1 << 20);
+                OutputStream out = exchange.getResponseBody();
+                out.write(new byte[64 * 1024]);
+                out.flush();
+                throw new IOException("backend gave up");
+            });
+            server.start();
+            return server;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.sanuth.loadBalancer.controller;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.http.HttpClient;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.service.BackendPool;
+import com.sanuth.loadBalancer.service.BackendReconfigurer;
+import com.sanuth.loadBalancer.service.ConnectionWarmer;
+import com.sanuth.loadBalancer.service.OutlierDetector;
+import com.sanuth.loadBalancer.service.UpstreamRouter;
+
+class BackendAdminControllerTest {
+
+    @Test
+    void refusesEveryCallWhileDisabled() throws Exception {
+        MockMvc mvc = mvc(false, null);
+
+        mvc.perform(get("/lb/admin/backends")).andExpect(status().isForbidden());
+        mvc.perform(delete("/lb/admin/backends/alpha/8081")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void requiresTheTokenForReadsAndChanges() throws Exception {
+        MockMvc mvc = mvc(true, "s3cret");
+
+        mvc.perform(get("/lb/admin/backends")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/lb/admin/backends").header("Authorization", "Bearer wrong"))
+            .andExpect(status().isUnauthorized());
+        mvc.perform(delete("/lb/admin/backends/alpha/8081")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/lb/admin/backends").header("Authorization", "Bearer s3cret")).andExpect(status().isOk());
+        mvc.perform(delete("/lb/admin/backends/alpha/8081").header("Authorization", "Bearer s3cret"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void enablingTheApiWithoutATokenFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> controller(properties(true, " ")));
+        controller(properties(false, null));
+    }
+
+    private static MockMvc mvc(boolean enabled, String token) {
+        return MockMvcBuilders.standaloneSetup(controller(properties(enabled, token))).build();
+    }
+
+    private static BackendAdminController controller(LoadBalancerProperties properties) {
+        BackendPool pool = new BackendPool(properties);
+        UpstreamRouter router = new UpstreamRouter(pool, new OutlierDetector(pool, properties),
+            HttpClient.newHttpClient(), properties);
+        BackendReconfigurer reconfigurer = new BackendReconfigurer(router,
+            new ConnectionWarmer(router, HttpClient.newHttpClient(), properties), properties);
+        return new BackendAdminController(router, reconfigurer, properties);
+    }
+
+    private static LoadBalancerProperties properties(boolean enabled, String token) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        BackendDefinition alpha = new BackendDefinition();
+        alpha.setHost("alpha");
+        alpha.setPort(8081);
+        properties.getBackends().add(alpha);
+        properties.getBackends().add(beta());
+        properties.getDynamicBackends().setAdminEnabled(enabled);
+        properties.getDynamicBackends().setAdminToken(token);
+        return properties;
+    }
+
+    private static BackendDefinition beta() {
+        BackendDefinition beta = new BackendDefinition();
+        beta.setHost("beta");
+        beta.setPort(8082);
+        return beta;
+    }
+}
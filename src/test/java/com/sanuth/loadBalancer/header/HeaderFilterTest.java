@@ -0,0 +1,80 @@
+package com.sanuth.loadBalancer.header;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ForwardedMode;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Headers;
+
+class HeaderFilterTest {
+
+    @Test
+    void nameSetIgnoresCase() {
+        HeaderNameSet names = HeaderNameSet.of(List.of("Transfer-Encoding", "TE", "X-Custom"));
+
+        assertTrue(names.contains("transfer-encoding"));
+        assertTrue(names.contains("TRANSFER-ENCODING"));
+        assertTrue(names.contains("te"));
+        assertTrue(names.contains("xx-custom,", 1, 9));
+        assertFalse(names.contains("Transfer"));
+        assertFalse(names.contains("X-Customer"));
+    }
+
+    @Test
+    void dropsHopByHopAndConnectionNominatedHeaders() {
+        HeaderFilter filter = HeaderFilter.forResponses(new Headers());
+
+        for (String hopByHop : HeaderFilter.HOP_BY_HOP) {
+            assertFalse(filter.forwards(hopByHop.toLowerCase(), (String) null), hopByHop);
+        }
+        assertFalse(filter.forwards("X-Hop", "close,  x-hop "));
+        assertTrue(filter.forwards("X-Hop", "close, x-hopper"));
+        assertTrue(filter.forwards("Content-Length", List.of("keep-alive")));
+    }
+
+    @Test
+    void requestFilterLeavesFramingToTheClientAndAppliesRules() {
+        Headers config = new Headers();
+        config.setForwarded(ForwardedMode.X_FORWARDED);
+        config.getRequest().getRemove().add("Cookie");
+        config.getRequest().getSet().put("X-Env", "prod");
+        config.getRequest().getAdd().put("Via", "1.1 lb");
+        HeaderFilter filter = HeaderFilter.forRequests(config);
+
+        assertFalse(filter.forwards("host", (String) null));
+        assertFalse(filter.forwards("cookie", (String) null));
+        assertFalse(filter.forwards("x-env", (String) null));
+        assertFalse(filter.forwards("x-forwarded-for", (String) null));
+        assertTrue(filter.forwards("Via", (String) null));
+
+        List<String> added = new ArrayList<>();
+        filter.addConfigured((name, value) -> added.add(name + ": " + value));
+        assertEquals(List.of("X-Env: prod", "Via: 1.1 lb"), added);
+    }
+
+    @Test
+    void appendsThisHopToForwardingHeaders() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setRemoteAddr("2001:db8::1");
+        request.addHeader("Host", "shop.example:8443");
+        request.addHeader("Forwarded", "for=192.0.2.60");
+        request.addHeader("X-Forwarded-For", "192.0.2.60");
+
+        List<String> added = new ArrayList<>();
+        new ForwardedHeaders(ForwardedMode.BOTH).apply(request, (name, value) -> added.add(name + ": " + value));
+
+        assertEquals(List.of(
+            "X-Forwarded-For: 192.0.2.60, 2001:db8::1",
+            "X-Forwarded-Proto: http",
+            "X-Forwarded-Host: shop.example:8443",
+            "X-Forwarded-Port: 8443",
+            "Forwarded: for=192.0.2.60, for=\"[2001:db8::1]\";host=\"shop.example:8443\";proto=http"), added);
+    }
+}
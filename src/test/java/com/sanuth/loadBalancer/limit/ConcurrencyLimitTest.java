@@ -0,0 +1,77 @@
+package com.sanuth.loadBalancer.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void gradientGrowsWhileLatencyIsFlatAndTheLimitIsUsed() {
+        GradientLimit limit = new GradientLimit(20, 1, 200);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MILLIS, limit.current());
+        }
+
+        assertTrue(limit.current() > 40, "limit " + limit.current());
+    }
+
+    @Test
+    void gradientDoesNotGrowWhileMostlyIdle() {
+        GradientLimit limit = new GradientLimit(20, 1, 200);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MILLIS, 2);
+        }
+
+        assertEquals(20, limit.current());
+    }
+
+    @Test
+    void gradientShrinksWhenLatencyClimbs() {
+        GradientLimit limit = new GradientLimit(100, 1, 200);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, 100);
+        }
+        int beforeCongestion = limit.current();
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(100 * MILLIS, limit.current());
+        }
+
+        assertTrue(limit.current() < beforeCongestion / 2,
+            "limit " + limit.current() + " was " + beforeCongestion);
+    }
+
+    @Test
+    void aimdAddsOnSuccessAndBacksOffOnDropsOrSlowAnswers() {
+        AimdLimit limit = new AimdLimit(10, 1, 100, 500 * MILLIS);
+
+        limit.onSample(10 * MILLIS, 10);
+        assertEquals(11, limit.current());
+
+        limit.onDropped();
+        assertEquals(9, limit.current());
+
+        limit.onSample(900 * MILLIS, 9);
+        assertEquals(8, limit.current());
+    }
+
+    @Test
+    void limitsStayWithinBounds() {
+        AimdLimit limit = new AimdLimit(2, 2, 3, 500 * MILLIS);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onDropped();
+        }
+        assertEquals(2, limit.current());
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(MILLIS, 3);
+        }
+        assertEquals(3, limit.current());
+    }
+}
@@ -0,0 +1,165 @@
+package com.sanuth.loadBalancer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.model.CircuitBreaker.State;
+
+class CircuitBreakerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FAST = 10 * MS;
+    private static final long SLOW = 2_000 * MS;
+
+    @Test
+    void opensOnceTheWindowFailureRateReachesTheThreshold() {
+        CircuitBreaker breaker = breaker();
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(call(breaker, true, FAST, now));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertFalse(call(breaker, false, FAST, now));
+        }
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(call(breaker, false, FAST, now));
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquirePermission(now));
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        CircuitBreaker breaker = breaker();
+
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, FAST, 0);
+        }
+        for (int i = 0; i < 100; i++) {
+            call(breaker, false, FAST, 0);
+        }
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, FAST, 0);
+        }
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensOnSlowCallsThatOtherwiseSucceed() {
+        CircuitBreaker breaker = breaker();
+
+        for (int i = 0; i < 8; i++) {
+            call(breaker, false, SLOW, 0);
+        }
+        call(breaker, false, FAST, 0);
+        assertEquals(State.CLOSED, breaker.getState());
+        call(breaker, false, SLOW, 0);
+
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenLetsALimitedNumberOfTrialsDecide() {
+        CircuitBreaker breaker = trippedBreaker();
+        long reopen = 1_000 * MS;
+
+        assertFalse(breaker.tryHalfOpen(reopen - 1));
+        assertTrue(breaker.tryHalfOpen(reopen));
+        CircuitBreaker.Permit first = breaker.tryAcquirePermission(reopen);
+        CircuitBreaker.Permit second = breaker.tryAcquirePermission(reopen);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(breaker.tryAcquirePermission(reopen));
+        assertFalse(breaker.isCallPermitted());
+
+        assertFalse(breaker.onResult(first, false, FAST, reopen));
+        assertTrue(breaker.onResult(second, false, FAST, reopen));
+        assertEquals(State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquirePermission(reopen));
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() {
+        CircuitBreaker breaker = trippedBreaker();
+        long reopen = 1_000 * MS;
+        breaker.tryHalfOpen(reopen);
+        CircuitBreaker.Permit first = breaker.tryAcquirePermission(reopen);
+        CircuitBreaker.Permit second = breaker.tryAcquirePermission(reopen);
+
+        breaker.onResult(first, true, FAST, reopen);
+        assertTrue(breaker.onResult(second, false, FAST, reopen + MS));
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(reopen + MS + 1_000 * MS, breaker.getOpenUntilNanos());
+    }
+
+    @Test
+    void abandonedTrialsAreHandedBackOrRetriedAfterAnOpenPeriod() {
+        CircuitBreaker breaker = trippedBreaker();
+        long reopen = 1_000 * MS;
+        breaker.tryHalfOpen(reopen);
+        CircuitBreaker.Permit abandoned = breaker.tryAcquirePermission(reopen);
+        breaker.tryAcquirePermission(reopen);
+
+        breaker.releasePermission(abandoned);
+        assertNotNull(breaker.tryAcquirePermission(reopen));
+        assertNull(breaker.tryAcquirePermission(reopen + 999 * MS));
+        assertNotNull(breaker.tryAcquirePermission(reopen + 1_000 * MS));
+        assertEquals(State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void callsLetThroughBeforeATripNeitherDecideNorReturnTrials() {
+        CircuitBreaker breaker = breaker();
+        CircuitBreaker.Permit stalled = breaker.tryAcquirePermission(0);
+        CircuitBreaker.Permit abandoned = breaker.tryAcquirePermission(0);
+        for (int i = 0; i < 10; i++) {
+            call(breaker, true, FAST, 0);
+        }
+        long reopen = 1_000 * MS;
+        breaker.tryHalfOpen(reopen);
+        assertNotNull(breaker.tryAcquirePermission(reopen));
+        assertNotNull(breaker.tryAcquirePermission(reopen));
+
+        assertFalse(breaker.onResult(stalled, false, FAST, reopen));
+        breaker.releasePermission(abandoned);
+        assertFalse(breaker.onResult(stalled, false, FAST, reopen));
+
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    private static boolean call(CircuitBreaker breaker, boolean failed, long elapsedNanos, long nowNanos) {
+        return breaker.onResult(breaker.tryAcquirePermission(nowNanos), failed, elapsedNanos, nowNanos);
+    }
+
+    private static CircuitBreaker trippedBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 10; i++) {
+            call(breaker, true, FAST, 0);
+        }
+        assertEquals(State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static CircuitBreaker breaker() {
+        LoadBalancerProperties.CircuitBreaker config = new LoadBalancerProperties.CircuitBreaker();
+        config.setEnabled(true);
+        config.setWindowSize(10);
+        config.setMinimumCalls(10);
+        config.setFailureRateThreshold(0.5);
+        config.setSlowCallRateThreshold(0.9);
+        config.setSlowCallDurationMs(1_000);
+        config.setOpenDurationMs(1_000);
+        config.setHalfOpenCalls(2);
+        return new CircuitBreaker(config);
+    }
+}
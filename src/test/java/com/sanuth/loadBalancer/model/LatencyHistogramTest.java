@@ -0,0 +1,64 @@
+package com.sanuth.loadBalancer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketUpperBoundsContainTheirValues() {
+        for (long micros : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456, 9_999_999}) {
+            int index = LatencyHistogram.indexOf(micros);
+            assertTrue(LatencyHistogram.upperBoundMicros(index) >= micros);
+            assertTrue(index == 0 || LatencyHistogram.upperBoundMicros(index - 1) < micros);
+        }
+    }
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.recordNanos(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.count());
+        assertWithinPercent(50_000_000L, histogram.valueAtPercentileNanos(50), 7);
+        assertWithinPercent(95_000_000L, histogram.valueAtPercentileNanos(95), 7);
+        assertWithinPercent(100_000_000L, histogram.valueAtPercentileNanos(100), 7);
+    }
+
+    @Test
+    void countsValuesBelowPrometheusBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(2_000_000L);
+        histogram.recordNanos(40_000_000L);
+        histogram.recordNanos(3_000_000_000L);
+
+        assertEquals(1, histogram.countAtOrBelow(0.005));
+        assertEquals(2, histogram.countAtOrBelow(0.05));
+        assertEquals(3, histogram.countAtOrBelow(5));
+        assertEquals(3.042, histogram.sumSeconds(), 1e-9);
+    }
+
+    @Test
+    void neverCountsValuesAboveTheBoundInTheStraddlingBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 5.1 ms shares a bucket (4.864-5.119 ms) with the 5 ms boundary.
+        histogram.recordNanos(5_100_000L);
+
+        assertEquals(0, histogram.countAtOrBelow(0.005));
+        assertEquals(1, histogram.countAtOrBelow(0.01));
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().valueAtPercentileNanos(99));
+    }
+
+    private void assertWithinPercent(long expected, long actual, double percent) {
+        assertTrue(Math.abs(actual - expected) <= expected * percent / 100.0,
+            () -> "expected ~" + expected + " but was " + actual);
+    }
+}
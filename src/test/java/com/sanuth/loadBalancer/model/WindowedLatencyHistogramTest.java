@@ -0,0 +1,62 @@
+package com.sanuth.loadBalancer.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class WindowedLatencyHistogramTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void followsLatencyAsItChangesAndForgetsOlderWindows() throws InterruptedException {
+        WindowedLatencyHistogram histogram = new WindowedLatencyHistogram(WINDOW_NANOS);
+        record(histogram, 900_000_000L, 10);
+
+        Thread.sleep(120);
+        record(histogram, 10_000_000L, 10);
+        assertEquals(20, histogram.count());
+        assertWithinPercent(900_000_000L, histogram.cachedValueAtPercentileNanos(95, 0), 7);
+
+        Thread.sleep(120);
+        assertEquals(10, histogram.count());
+        assertWithinPercent(10_000_000L, histogram.cachedValueAtPercentileNanos(95, 0), 7);
+    }
+
+    @Test
+    void dropsEverythingAfterAnIdleWindow() throws InterruptedException {
+        WindowedLatencyHistogram histogram = new WindowedLatencyHistogram(WINDOW_NANOS);
+        record(histogram, 10_000_000L, 10);
+
+        Thread.sleep(220);
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.cachedValueAtPercentileNanos(95, 0));
+    }
+
+    @Test
+    void cachedPercentileIsReusedUntilItExpires() {
+        WindowedLatencyHistogram histogram = new WindowedLatencyHistogram(TimeUnit.MINUTES.toNanos(1));
+        histogram.recordNanos(10_000_000L);
+        long cached = histogram.cachedValueAtPercentileNanos(95, Long.MAX_VALUE);
+        histogram.recordNanos(900_000_000L);
+        histogram.recordNanos(900_000_000L);
+
+        assertEquals(cached, histogram.cachedValueAtPercentileNanos(95, Long.MAX_VALUE));
+        assertWithinPercent(900_000_000L, histogram.cachedValueAtPercentileNanos(95, 0), 7);
+    }
+
+    private static void record(WindowedLatencyHistogram histogram, long nanos, int times) {
+        for (int i = 0; i < times; i++) {
+            histogram.recordNanos(nanos);
+        }
+    }
+
+    private void assertWithinPercent(long expected, long actual, double percent) {
+        assertTrue(Math.abs(actual - expected) <= expected * percent / 100.0,
+            () -> "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sanuth.loadBalancer.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class GcraTableTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsABurstThenTheSteadyRate() {
+        GcraTable table = new GcraTable(10, 5, 4, 100, false);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, table.tryAcquire("client", now));
+        }
+        assertEquals(SECOND / 10, table.tryAcquire("client", now));
+        assertEquals(0, table.tryAcquire("other", now));
+
+        assertEquals(0, table.tryAcquire("client", now + SECOND / 10));
+        assertTrue(table.tryAcquire("client", now + SECOND / 10) > 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, table.tryAcquire("client", now + 2 * SECOND));
+        }
+    }
+
+    @Test
+    void chargesNewKeysToTheOverflowBucketWhileFull() {
+        GcraTable table = new GcraTable(1, 1, 1, 2, false);
+        long now = System.nanoTime();
+
+        table.tryAcquire("a", now);
+        table.tryAcquire("b", now);
+        assertEquals(0, table.tryAcquire("c", now));
+        assertTrue(table.tryAcquire("d", now) > 0);
+        assertEquals(2, table.overflowRequests());
+        assertEquals(2, table.size());
+
+        table.evictIdle(now + 2 * SECOND);
+        assertEquals(0, table.size());
+        assertEquals(0, table.tryAcquire("d", now + 2 * SECOND));
+        assertEquals(1, table.size());
+        assertEquals(2, table.overflowRequests());
+    }
+
+    @Test
+    void syncedNodesShareOneAllowance() {
+        LocalRateLimitSync hub = new LocalRateLimitSync();
+        RateLimitSync first = hub.node();
+        RateLimitSync second = hub.node();
+        GcraTable firstTable = new GcraTable(1, 4, 4, 100, true);
+        GcraTable secondTable = new GcraTable(1, 4, 4, 100, true);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, firstTable.tryAcquire("client", now));
+        }
+        assertEquals(Map.of(), first.exchange("per-client", firstTable.drainAdmitted()));
+        Map<String, Long> received = second.exchange("per-client", secondTable.drainAdmitted());
+        assertEquals(Map.of("client", 3L), received);
+        received.forEach((key, count) -> secondTable.charge(key, count, now));
+
+        assertEquals(0, secondTable.tryAcquire("client", now));
+        assertTrue(secondTable.tryAcquire("client", now) > 0);
+        second.exchange("per-client", secondTable.drainAdmitted());
+        assertEquals(Map.of("client", 1L), first.exchange("per-client", firstTable.drainAdmitted()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.sanuth.loadBalancer.ratelimit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process stand-in for a shared sync channel: every {@link #node()} handed out
+ * receives what all the other nodes publish.
+ */
+final class LocalRateLimitSync {
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    synchronized RateLimitSync node() {
+        Node node = new Node();
+        nodes.add(node);
+        return node;
+    }
+
+    private synchronized Map<String, Long> exchange(Node from, String rule, Map<String, Long> admitted) {
+        for (Node node : nodes) {
+            if (node != from) {
+                Map<String, Long> inbox = node.inboxes.computeIfAbsent(rule, ignored -> new HashMap<>());
+                admitted.forEach((key, count) -> inbox.merge(key, count, Long::sum));
+            }
+        }
+        Map<String, Long> received = from.inboxes.remove(rule);
+        return received != null ? received : Map.of();
+    }
+
+    private final class Node implements RateLimitSync {
+        private final Map<String, Map<String, Long>> inboxes = new HashMap<>();
+
+        @Override
+        public Map<String, Long> exchange(String rule, Map<String, Long> admitted) {
+            return LocalRateLimitSync.this.exchange(this, rule, admitted);
+        }
+    }
+}
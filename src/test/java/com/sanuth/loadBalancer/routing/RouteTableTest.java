@@ -0,0 +1,109 @@
+package com.sanuth.loadBalancer.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Route;
+
+class RouteTableTest {
+
+    private static final Map<String, String> NO_HEADERS = Map.of();
+
+    @Test
+    void prefersTheLongestPrefixOnSegmentBoundaries() {
+        RouteTable<String> table = RouteTable.compile(List.of(
+            route("api", List.of(), "/api"),
+            route("orders", List.of(), "/api/orders/"),
+            route("root", List.of(), "/")), Function.identity());
+
+        assertEquals("orders", match(table, "any", "/api/orders/7", "GET", NO_HEADERS));
+        assertEquals("orders", match(table, "any", "/api/orders", "GET", NO_HEADERS));
+        assertEquals("api", match(table, "any", "/api/ordersx", "GET", NO_HEADERS));
+        assertEquals("root", match(table, "any", "/apix", "GET", NO_HEADERS));
+        assertEquals("root", match(table, "any", "", "GET", NO_HEADERS));
+    }
+
+    @Test
+    void tellsApartManySiblingSegmentsIncludingHashCollisions() {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            routes.add(route("svc" + i, List.of(), "/svc" + i));
+        }
+        // "Aa" and "BB" have the same String hash.
+        routes.add(route("aa", List.of(), "/Aa"));
+        routes.add(route("bb", List.of(), "/BB"));
+        RouteTable<String> table = RouteTable.compile(routes, Function.identity());
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("svc" + i, match(table, "h", "/svc" + i + "/x", "GET", NO_HEADERS));
+        }
+        assertEquals("aa", match(table, "h", "/Aa/x", "GET", NO_HEADERS));
+        assertEquals("bb", match(table, "h", "/BB", "GET", NO_HEADERS));
+        assertNull(match(table, "h", "/svc50", "GET", NO_HEADERS));
+    }
+
+    @Test
+    void triesHostRoutesBeforeHostAgnosticOnes() {
+        RouteTable<String> table = RouteTable.compile(List.of(
+            route("any-api", List.of(), "/api"),
+            route("shop", List.of("Shop.Example.com"), "/"),
+            route("shop-admin", List.of("shop.example.com"), "/admin")), Function.identity());
+
+        assertEquals("shop", match(table, "SHOP.example.com", "/api/x", "GET", NO_HEADERS));
+        assertEquals("shop-admin", match(table, "shop.example.com", "/admin/users", "GET", NO_HEADERS));
+        assertEquals("any-api", match(table, "other.example.com", "/api/x", "GET", NO_HEADERS));
+        assertNull(match(table, "other.example.com", "/static", "GET", NO_HEADERS));
+    }
+
+    @Test
+    void checksMethodAndHeaderConditionsInDeclarationOrder() {
+        Route canary = route("canary", List.of(), "/api");
+        canary.getHeaders().put("X-Canary", "*");
+        Route writes = route("writes", List.of(), "/api");
+        writes.setMethods(List.of("post", "PUT"));
+        Route beta = route("beta", List.of(), "/api");
+        beta.getHeaders().put("X-Tier", "beta");
+        RouteTable<String> table = RouteTable.compile(List.of(canary, writes, beta, route("api", List.of(), "/api")),
+            Function.identity());
+
+        assertEquals("canary", match(table, "h", "/api/x", "POST", Map.of("X-Canary", "1")));
+        assertEquals("writes", match(table, "h", "/api/x", "POST", Map.of("X-Tier", "beta")));
+        assertEquals("beta", match(table, "h", "/api/x", "GET", Map.of("X-Tier", "beta")));
+        assertEquals("api", match(table, "h", "/api/x", "GET", Map.of("X-Tier", "gold")));
+    }
+
+    @Test
+    void rejectsRoutesToUnknownTargets() {
+        Map<String, String> known = Map.of("api", "api");
+        Function<String, String> targets = name -> {
+            if (!known.containsKey(name)) {
+                throw new IllegalArgumentException(name);
+            }
+            return known.get(name);
+        };
+
+        assertThrows(IllegalArgumentException.class,
+            () -> RouteTable.compile(List.of(route("missing", List.of(), "/")), targets));
+    }
+
+    private static String match(RouteTable<String> table, String host, String path, String method,
+        Map<String, String> headers) {
+        return table.match(host, path, method, headers::get);
+    }
+
+    private static Route route(String group, List<String> hosts, String pathPrefix) {
+        Route route = new Route();
+        route.setGroup(group);
+        route.setHosts(hosts);
+        route.setPathPrefix(pathPrefix);
+        return route;
+    }
+}
@@ -0,0 +1,52 @@
+package com.sanuth.loadBalancer.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.PathRewrite;
+
+class TargetUriBuilderTest {
+
+    private static final String BASE_URL = "http://backend-1:8081";
+
+    @Test
+    void appendsPathAndQueryWithoutReencodingEscapes() {
+        TargetUriBuilder builder = new TargetUriBuilder(List.of());
+
+        assertEquals("http://backend-1:8081/files/a%20b?q=x%2By&page=2",
+            builder.build(BASE_URL, "/files/a%20b", "q=x%2By&page=2").toString());
+        assertEquals("http://backend-1:8081/", builder.build(BASE_URL, "", null).toString());
+    }
+
+    @Test
+    void encodesCharactersAUriCannotHold() {
+        TargetUriBuilder builder = new TargetUriBuilder(List.of());
+
+        assertEquals("http://backend-1:8081/a%20b/%7Bid%7D/caf%C3%A9/100%25",
+            builder.build(BASE_URL, "/a b/{id}/café/100%", null).toString());
+        assertEquals("http://backend-1:8081/search?q=a%7Cb", builder.build(BASE_URL, "/search", "q=a|b").toString());
+    }
+
+    @Test
+    void rewritesTheFirstMatchingPrefixOnSegmentBoundaries() {
+        TargetUriBuilder builder = new TargetUriBuilder(List.of(
+            rewrite("/api/", ""),
+            rewrite("/legacy", "/v2/"),
+            rewrite("/", "/root")));
+
+        assertEquals("http://backend-1:8081/users/7?x=1", builder.build(BASE_URL, "/api/users/7", "x=1").toString());
+        assertEquals("http://backend-1:8081/", builder.build(BASE_URL, "/api", null).toString());
+        assertEquals("http://backend-1:8081/v2/orders", builder.build(BASE_URL, "/legacy/orders", null).toString());
+        assertEquals("http://backend-1:8081/root/apix", builder.build(BASE_URL, "/apix", null).toString());
+    }
+
+    private PathRewrite rewrite(String prefix, String replacement) {
+        PathRewrite rewrite = new PathRewrite();
+        rewrite.setPrefix(prefix);
+        rewrite.setReplacement(replacement);
+        return rewrite;
+    }
+}
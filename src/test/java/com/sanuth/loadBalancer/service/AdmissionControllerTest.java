@@ -0,0 +1,66 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.service.AdmissionController.Priority;
+
+class AdmissionControllerTest {
+
+    @Test
+    void classifiesByHeaderFromTrustedProxiesBeforePath() {
+        AdmissionController admission = admission(10);
+        MockHttpServletRequest checkout = new MockHttpServletRequest("POST", "/checkout/pay");
+        MockHttpServletRequest report = new MockHttpServletRequest("GET", "/reports/daily");
+        MockHttpServletRequest flagged = new MockHttpServletRequest("GET", "/reports/daily");
+        flagged.setRemoteAddr("10.1.2.3");
+        flagged.addHeader("X-Request-Priority", "critical");
+        MockHttpServletRequest spoofed = new MockHttpServletRequest("GET", "/reports/daily");
+        spoofed.setRemoteAddr("203.0.113.7");
+        spoofed.addHeader("X-Request-Priority", "critical");
+
+        assertEquals(Priority.CRITICAL, admission.classify(checkout));
+        assertEquals(Priority.SHEDDABLE, admission.classify(report));
+        assertEquals(Priority.CRITICAL, admission.classify(flagged));
+        assertEquals(Priority.SHEDDABLE, admission.classify(spoofed));
+        assertEquals(Priority.NORMAL, admission.classify(new MockHttpServletRequest("GET", "/items")));
+    }
+
+    @Test
+    void shedsLowPriorityFirstAndLetsCriticalUseHeadroom() {
+        AdmissionController admission = admission(10);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(admission.tryAcquire(Priority.NORMAL));
+        }
+        assertFalse(admission.tryAcquire(Priority.SHEDDABLE));
+        assertTrue(admission.tryAcquire(Priority.NORMAL));
+        assertTrue(admission.tryAcquire(Priority.NORMAL));
+        assertFalse(admission.tryAcquire(Priority.NORMAL));
+        assertTrue(admission.tryAcquire(Priority.CRITICAL));
+        assertTrue(admission.tryAcquire(Priority.CRITICAL));
+        assertFalse(admission.tryAcquire(Priority.CRITICAL));
+
+        assertEquals(1, admission.getShed(Priority.SHEDDABLE));
+        admission.release();
+        assertTrue(admission.tryAcquire(Priority.CRITICAL));
+    }
+
+    private AdmissionController admission(int limit) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        LoadBalancerProperties.AdaptiveConcurrency config = properties.getAdaptiveConcurrency();
+        config.setEnabled(true);
+        config.setGlobalInitialLimit(limit);
+        config.setCriticalPaths(List.of("/checkout/**"));
+        config.setSheddablePaths(List.of("/reports/**"));
+        config.setPriorityTrustedProxies(List.of("10.0.0.0/8"));
+        return new AdmissionController(properties);
+    }
+}
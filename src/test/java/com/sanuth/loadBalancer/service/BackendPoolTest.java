@@ -2,12 +2,24 @@ package com.sanuth.loadBalancer.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 
 import com.sanuth.loadBalancer.config.LoadBalancerProperties;
 import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.StrategyType;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sanuth.loadBalancer.model.CircuitBreaker;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
 
 class BackendPoolTest {
 
@@ -56,6 +68,177 @@ class BackendPoolTest {
         assertFalse(pool.selectNextHealthyBackend().isPresent());
     }
 
+    @Test
+    void spreadsWeightedPicksSmoothly() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("heavy", 8081, 5));
+        properties.getBackends().add(backend("light-1", 8082, 1));
+        properties.getBackends().add(backend("light-2", 8083, 1));
+        BackendPool pool = new BackendPool(properties);
+
+        List<String> picks = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            picks.add(pool.selectNextHealthyBackend().orElseThrow().getHost());
+        }
+
+        assertEquals(List.of("heavy", "heavy", "light-1", "heavy", "light-2", "heavy", "heavy"), picks);
+    }
+
+    @Test
+    void rebuildsWeightedScheduleWhenHealthChanges() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("heavy", 8081, 3));
+        properties.getBackends().add(backend("light", 8082, 1));
+        BackendPool pool = new BackendPool(properties);
+
+        pool.allBackends().get(0).setHealthy(false);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("light", pool.selectNextHealthyBackend().orElseThrow().getHost());
+        }
+
+        pool.allBackends().get(0).setHealthy(true);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            counts.merge(pool.selectNextHealthyBackend().orElseThrow().getHost(), 1, Integer::sum);
+        }
+        assertEquals(300, counts.get("heavy"));
+        assertEquals(100, counts.get("light"));
+    }
+
+    @Test
+    void neverSelectsZeroWeightBackends() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("active", 8081, 1));
+        properties.getBackends().add(backend("drained", 8082, 0));
+        BackendPool pool = new BackendPool(properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("active", pool.selectNextHealthyBackend().orElseThrow().getHost());
+        }
+    }
+
+    @Test
+    void reconfigureKeepsUnchangedNodesAndDrainsRemovedOnes() {
+        BackendPool pool = new BackendPool(propertiesWithThreeBackends());
+        BackendNode kept = pool.allBackends().get(0);
+        BackendNode removed = pool.allBackends().get(2);
+        kept.setHealthy(false);
+        assertNotNull(removed.tryBeginRequest());
+
+        BackendPool.Reconfiguration result = pool.reconfigure(List.of(
+            backend("backend-1", 8081), backend("backend-2", 8082, 3), backend("backend-4", 8084)));
+
+        assertSame(kept, pool.allBackends().get(0));
+        assertFalse(pool.allBackends().get(0).isHealthy());
+        assertEquals(List.of("backend-2", "backend-4"), result.added().stream().map(BackendNode::getHost).toList());
+        assertEquals(2, result.removed().size());
+        assertEquals(List.of(removed), pool.drainingBackends());
+        for (int i = 0; i < 8; i++) {
+            String host = pool.selectNextHealthyBackend().orElseThrow().getHost();
+            assertTrue(host.equals("backend-2") || host.equals("backend-4"), host);
+        }
+
+        removed.endRequest();
+        assertTrue(pool.drainingBackends().isEmpty());
+    }
+
+    @Test
+    void reconfigureRejectsInvalidListsWithoutChangingThePool() {
+        BackendPool pool = new BackendPool(propertiesWithThreeBackends());
+        List<BackendNode> before = pool.allBackends();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> pool.reconfigure(List.of(backend("backend-1", 8081), backend("backend-1", 8081))));
+        assertThrows(IllegalArgumentException.class, () -> pool.reconfigure(List.of(backend("backend-1", 0))));
+
+        assertSame(before, pool.allBackends());
+    }
+
+    @Test
+    void recoveredBackendIsRampedUpUnderAnyStrategy() {
+        for (StrategyType strategy : StrategyType.values()) {
+            LoadBalancerProperties properties = new LoadBalancerProperties();
+            properties.getBackends().add(backend("steady", 8081));
+            properties.getBackends().add(backend("recovered", 8082));
+            properties.setStrategy(strategy);
+            properties.getSlowStart().setWindowMs(60_000);
+            BackendPool pool = new BackendPool(properties);
+            BackendNode recovered = pool.allBackends().get(1);
+            recovered.setHealthy(false);
+            recovered.setHealthy(true);
+
+            int recoveredPicks = 0;
+            for (int i = 0; i < 2_000; i++) {
+                long hash = strategy == StrategyType.CONSISTENT_HASH ? i * 0x9E3779B97F4A7C15L : LoadBalancingStrategy.NO_KEY;
+                if (pool.selectNextHealthyBackend(hash).orElseThrow() == recovered) {
+                    recoveredPicks++;
+                }
+            }
+
+            assertTrue(recoveredPicks > 0 && recoveredPicks < 300, strategy + " sent " + recoveredPicks);
+        }
+    }
+
+    @Test
+    void slowStartRampsFromTheMinimumToFullWeight() {
+        LoadBalancerProperties.SlowStart config = new LoadBalancerProperties.SlowStart();
+        config.setWindowMs(1_000);
+        config.setMinWeightFraction(0.1);
+        SlowStart slowStart = new SlowStart(config);
+        BackendNode node = new BackendNode(backend("node", 8081));
+
+        assertEquals(1.0, slowStart.weightFraction(node, System.nanoTime()));
+        node.startWarming();
+        long since = node.getWarmingSinceNanos();
+
+        assertEquals(0.1, slowStart.weightFraction(node, since));
+        assertEquals(0.5, slowStart.weightFraction(node, since + 500_000_000L), 1e-9);
+        assertEquals(1.0, slowStart.weightFraction(node, since + 1_000_000_000L));
+    }
+
+    @Test
+    void leavesOpenCircuitsOutUntilTheyHalfOpenForOneTrial() throws InterruptedException {
+        LoadBalancerProperties properties = propertiesWithThreeBackends();
+        properties.getSlowStart().setWindowMs(0);
+        LoadBalancerProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        breaker.setEnabled(true);
+        breaker.setWindowSize(4);
+        breaker.setMinimumCalls(4);
+        breaker.setOpenDurationMs(100);
+        breaker.setHalfOpenCalls(1);
+        BackendPool pool = new BackendPool(properties);
+        BackendNode failing = pool.allBackends().get(0);
+
+        for (int i = 0; i < 4; i++) {
+            failing.recordCallOutcome(failing.tryBeginRequest(), true, 1_000_000);
+            failing.endRequest();
+        }
+        for (int i = 0; i < 10; i++) {
+            assertFalse(pool.selectNextHealthyBackend().orElseThrow() == failing);
+        }
+
+        Thread.sleep(150);
+        List<BackendNode> picks = new ArrayList<>();
+        CircuitBreaker.Permit trial = null;
+        for (int i = 0; i < 6; i++) {
+            BackendNode picked = pool.selectNextHealthyBackend().orElseThrow();
+            CircuitBreaker.Permit permit = picked.tryBeginRequest();
+            if (permit != null) {
+                picks.add(picked);
+                if (picked == failing) {
+                    trial = permit;
+                }
+            }
+        }
+        assertEquals(1, picks.stream().filter(node -> node == failing).count());
+        assertFalse(failing.isCallPermitted());
+
+        failing.recordCallOutcome(trial, false, 1_000_000);
+        failing.endRequest();
+        assertTrue(failing.isCallPermitted());
+        assertTrue(failing.isAvailable());
+    }
+
     private LoadBalancerProperties propertiesWithThreeBackends() {
         LoadBalancerProperties properties = new LoadBalancerProperties();
         properties.getBackends().add(backend("backend-1", 8081));
@@ -65,11 +248,15 @@ class BackendPoolTest {
     }
 
     private BackendDefinition backend(String host, int port) {
+        return backend(host, port, 1);
+    }
+
+    private BackendDefinition backend(String host, int port, int weight) {
         BackendDefinition backend = new BackendDefinition();
         backend.setHost(host);
         backend.setPort(port);
         backend.setScheme("http");
-        backend.setWeight(1);
+        backend.setWeight(weight);
         return backend;
     }
 }
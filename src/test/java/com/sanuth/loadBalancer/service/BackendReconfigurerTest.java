@@ -0,0 +1,108 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Group;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+class BackendReconfigurerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadsBackendsWhenTheFileChanges() throws IOException {
+        Path file = directory.resolve("backends.properties");
+        Files.writeString(file, """
+            lb.backends[0].host=alpha
+            lb.backends[0].port=8081
+            lb.backends[1].host=beta
+            lb.backends[1].port=8082
+            lb.backends[1].weight=2
+            """);
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("alpha", 8081));
+        properties.getDynamicBackends().setFile(file.toString());
+        BackendPool pool = new BackendPool(properties);
+        BackendNode alpha = pool.allBackends().get(0);
+        BackendReconfigurer reconfigurer = reconfigurer(pool, properties);
+
+        reconfigurer.checkFile();
+
+        assertEquals(List.of("alpha", "beta"), pool.allBackends().stream().map(BackendNode::getHost).toList());
+        assertSame(alpha, pool.allBackends().get(0));
+        assertEquals(2, pool.allBackends().get(1).getWeight());
+
+        Files.writeString(file, "lb.backends[0].host=gamma\nlb.backends[0].port=8083\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        reconfigurer.checkFile();
+
+        assertEquals(List.of("gamma"), pool.allBackends().stream().map(BackendNode::getHost).toList());
+    }
+
+    @Test
+    void ignoresAFileWithoutBackends() throws IOException {
+        Path file = directory.resolve("backends.properties");
+        Files.writeString(file, "");
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("alpha", 8081));
+        properties.getDynamicBackends().setFile(file.toString());
+        BackendPool pool = new BackendPool(properties);
+        BackendReconfigurer reconfigurer = reconfigurer(pool, properties);
+
+        reconfigurer.checkFile();
+
+        assertEquals(1, pool.allBackends().size());
+    }
+
+    @Test
+    void reloadsTheBackendsOfNamedGroups() throws IOException {
+        Path file = directory.resolve("backends.properties");
+        Files.writeString(file, "lb.groups.api.backends[0].host=delta\nlb.groups.api.backends[0].port=8084\n");
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("alpha", 8081));
+        Group api = new Group();
+        api.getBackends().add(backend("beta", 8082));
+        properties.getGroups().put("api", api);
+        properties.getDynamicBackends().setFile(file.toString());
+        BackendPool pool = new BackendPool(properties);
+        UpstreamRouter router = new UpstreamRouter(pool, new OutlierDetector(pool, properties),
+            HttpClient.newHttpClient(), properties);
+        BackendReconfigurer reconfigurer = new BackendReconfigurer(router,
+            new ConnectionWarmer(router, HttpClient.newHttpClient(), properties), properties);
+
+        reconfigurer.checkFile();
+
+        assertEquals(List.of("alpha"), pool.allBackends().stream().map(BackendNode::getHost).toList());
+        assertEquals(List.of("delta"),
+            router.group("api").getPool().allBackends().stream().map(BackendNode::getHost).toList());
+    }
+
+    private BackendReconfigurer reconfigurer(BackendPool pool, LoadBalancerProperties properties) {
+        UpstreamRouter router = new UpstreamRouter(pool, new OutlierDetector(pool, properties),
+            HttpClient.newHttpClient(), properties);
+        return new BackendReconfigurer(router, new ConnectionWarmer(router, HttpClient.newHttpClient(), properties),
+            properties);
+    }
+
+    private BackendDefinition backend(String host, int port) {
+        BackendDefinition backend = new BackendDefinition();
+        backend.setHost(host);
+        backend.setPort(port);
+        return backend;
+    }
+}
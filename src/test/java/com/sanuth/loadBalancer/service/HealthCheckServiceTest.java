@@ -0,0 +1,110 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.model.BackendNode;
+import com.sun.net.httpserver.HttpServer;
+
+class HealthCheckServiceTest {
+
+    private final AtomicInteger healthStatus = new AtomicInteger(200);
+    private HttpServer backendServer;
+    private BackendPool backendPool;
+    private HealthCheckService healthCheckService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backendServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        backendServer.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(healthStatus.get(), -1);
+            exchange.close();
+        });
+        backendServer.start();
+
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setHealthCheckTimeoutMs(1000);
+        properties.setHealthCheckRise(2);
+        properties.setHealthCheckFall(3);
+        properties.getBackends().add(backend(backendServer.getAddress().getPort()));
+
+        backendPool = new BackendPool(properties);
+        healthCheckService = new HealthCheckService(backendPool, HttpClient.newHttpClient(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backendServer.stop(0);
+    }
+
+    @Test
+    void marksBackendDownOnlyAfterFallConsecutiveFailures() {
+        BackendNode node = backendPool.allBackends().get(0);
+        healthStatus.set(500);
+
+        healthCheckService.probeAll().join();
+        healthCheckService.probeAll().join();
+        assertTrue(node.isHealthy());
+
+        healthCheckService.probeAll().join();
+        assertFalse(node.isHealthy());
+    }
+
+    @Test
+    void marksBackendUpOnlyAfterRiseConsecutiveSuccesses() {
+        BackendNode node = backendPool.allBackends().get(0);
+        node.setHealthy(false);
+
+        healthCheckService.probeAll().join();
+        assertFalse(node.isHealthy());
+
+        healthCheckService.probeAll().join();
+        assertTrue(node.isHealthy());
+    }
+
+    @Test
+    void failureResetsSuccessStreak() {
+        BackendNode node = backendPool.allBackends().get(0);
+        node.setHealthy(false);
+
+        healthCheckService.probeAll().join();
+        healthStatus.set(503);
+        healthCheckService.probeAll().join();
+        healthStatus.set(200);
+        healthCheckService.probeAll().join();
+
+        assertFalse(node.isHealthy());
+    }
+
+    @Test
+    void treatsUnreachableBackendAsFailure() {
+        backendServer.stop(0);
+        BackendNode node = backendPool.allBackends().get(0);
+
+        for (int i = 0; i < 3; i++) {
+            healthCheckService.probeAll().join();
+        }
+
+        assertFalse(node.isHealthy());
+    }
+
+    private BackendDefinition backend(int port) {
+        BackendDefinition backend = new BackendDefinition();
+        backend.setHost("localhost");
+        backend.setPort(port);
+        backend.setScheme("http");
+        backend.setWeight(1);
+        return backend;
+    }
+}
@@ -0,0 +1,142 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+class OutlierDetectorTest {
+
+    private LoadBalancerProperties properties;
+    private BackendPool backendPool;
+    private OutlierDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LoadBalancerProperties();
+        properties.getOutlierDetection().setConsecutiveFailures(3);
+        properties.getOutlierDetection().setMinimumRequests(10);
+        properties.getOutlierDetection().setMaxEjectionPercent(50);
+        for (int i = 1; i <= 4; i++) {
+            properties.getBackends().add(backend("backend-" + i, 8080 + i));
+        }
+        backendPool = new BackendPool(properties);
+        detector = new OutlierDetector(backendPool, properties);
+    }
+
+    @Test
+    void ejectsAfterConsecutiveFailuresAndStopsRoutingToNode() {
+        BackendNode node = backendPool.allBackends().get(0);
+
+        detector.recordFailure(node);
+        detector.recordResponse(node, 502);
+        assertFalse(node.isEjected());
+
+        detector.recordFailure(node);
+        assertTrue(node.isEjected());
+        for (int i = 0; i < 6; i++) {
+            assertFalse(backendPool.selectNextHealthyBackend().orElseThrow() == node);
+        }
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        BackendNode node = backendPool.allBackends().get(0);
+
+        detector.recordFailure(node);
+        detector.recordFailure(node);
+        detector.recordResponse(node, 200);
+        detector.recordFailure(node);
+
+        assertFalse(node.isEjected());
+    }
+
+    @Test
+    void ejectsNodeWithHighErrorRateOnEvaluation() {
+        BackendNode node = backendPool.allBackends().get(1);
+        for (int i = 0; i < 10; i++) {
+            detector.recordResponse(node, i % 2 == 0 ? 503 : 200);
+        }
+        assertFalse(node.isEjected());
+
+        detector.evaluate();
+
+        assertTrue(node.isEjected());
+    }
+
+    @Test
+    void neverEjectsMoreThanMaxPercentOfPool() {
+        for (BackendNode node : backendPool.allBackends()) {
+            for (int i = 0; i < 3; i++) {
+                detector.recordFailure(node);
+            }
+        }
+
+        long ejected = backendPool.allBackends().stream().filter(BackendNode::isEjected).count();
+        assertEquals(2, ejected);
+    }
+
+    @Test
+    void returnsNodeToRotationWhenEjectionExpires() {
+        properties.getOutlierDetection().setBaseEjectionTimeMs(0);
+        BackendNode node = backendPool.allBackends().get(0);
+        for (int i = 0; i < 3; i++) {
+            detector.recordFailure(node);
+        }
+        assertTrue(node.isEjected());
+
+        detector.evaluate();
+
+        assertFalse(node.isEjected());
+        assertTrue(node.isAvailable());
+    }
+
+    @Test
+    void repeatedEjectionsGrowLongerUntilTheNodeStaysCleanForABaseEjectionTime() throws InterruptedException {
+        properties.getOutlierDetection().setBaseEjectionTimeMs(100);
+        BackendNode node = backendPool.allBackends().get(0);
+
+        ejectAndReadmit(node, 100);
+        // Evaluations right after re-admission must not wipe out the backoff.
+        detector.evaluate();
+        detector.evaluate();
+
+        ejectAndReadmit(node, 200);
+
+        ejectThreeTimes(node);
+        Thread.sleep(250);
+        detector.evaluate();
+        assertTrue(node.isEjected());
+    }
+
+    private void ejectAndReadmit(BackendNode node, long expectedEjectionMs) throws InterruptedException {
+        ejectThreeTimes(node);
+        Thread.sleep(expectedEjectionMs - 50);
+        detector.evaluate();
+        assertTrue(node.isEjected());
+        Thread.sleep(100);
+        detector.evaluate();
+        assertFalse(node.isEjected());
+    }
+
+    private void ejectThreeTimes(BackendNode node) {
+        for (int i = 0; i < 3; i++) {
+            detector.recordFailure(node);
+        }
+    }
+
+    private BackendDefinition backend(String host, int port) {
+        BackendDefinition backend = new BackendDefinition();
+        backend.setHost(host);
+        backend.setPort(port);
+        backend.setScheme("http");
+        backend.setWeight(1);
+        return backend;
+    }
+}
@@ -2,10 +2,14 @@ package com.sanuth.loadBalancer.service;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.Authenticator;
+import java.net.ConnectException;
 import java.net.CookieHandler;
 import java.net.InetSocketAddress;
 import java.net.ProxySelector;
@@ -16,14 +20,20 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.PushPromiseHandler;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLParameters;
@@ -31,13 +41,25 @@ import javax.net.ssl.SSLSession;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import com.sanuth.loadBalancer.cache.ResponseCache;
 import com.sanuth.loadBalancer.config.LoadBalancerProperties;
 import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ForwardedMode;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Group;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.HashKeySource;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.PathRewrite;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.Route;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.StrategyType;
 import com.sanuth.loadBalancer.exception.BackendProxyException;
 import com.sanuth.loadBalancer.exception.NoHealthyBackendException;
+import com.sanuth.loadBalancer.exception.ProxyOverloadedException;
+import com.sanuth.loadBalancer.exception.ResponseAbortedException;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 
 class ProxyServiceTest {
 
@@ -54,7 +76,7 @@ class ProxyServiceTest {
 
         backendPool = new BackendPool(properties);
         fakeHttpClient = new FakeHttpClient();
-        proxyService = new ProxyService(backendPool, fakeHttpClient, properties);
+        proxyService = new ProxyService(backendPool, fakeHttpClient, properties, new OutlierDetector(backendPool, properties));
     }
 
     @Test
@@ -66,21 +88,195 @@ class ProxyServiceTest {
             assertEquals("/echo", request.uri().getPath());
             if (currentCall == 0) {
                 assertEquals(8081, request.uri().getPort());
-                return new FakeHttpResponse(200, "backend-1".getBytes(StandardCharsets.UTF_8), request);
+                return new FakeReply(200, "backend-1".getBytes(StandardCharsets.UTF_8));
             }
             assertEquals(8082, request.uri().getPort());
-            return new FakeHttpResponse(200, "backend-2".getBytes(StandardCharsets.UTF_8), request);
+            return new FakeReply(200, "backend-2".getBytes(StandardCharsets.UTF_8));
         });
 
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/echo");
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
 
-        ResponseEntity<byte[]> first = proxyService.forward(request, null);
-        ResponseEntity<byte[]> second = proxyService.forward(request, null);
+        proxyService.forward(request, first);
+        proxyService.forward(request, second);
 
-        assertEquals(200, first.getStatusCode().value());
-        assertEquals(200, second.getStatusCode().value());
-        assertArrayEquals("backend-1".getBytes(StandardCharsets.UTF_8), first.getBody());
-        assertArrayEquals("backend-2".getBytes(StandardCharsets.UTF_8), second.getBody());
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertArrayEquals("backend-1".getBytes(StandardCharsets.UTF_8), first.getContentAsByteArray());
+        assertArrayEquals("backend-2".getBytes(StandardCharsets.UTF_8), second.getContentAsByteArray());
+        assertEquals("text/plain", first.getHeader("content-type"));
+    }
+
+    @Test
+    void routesMatchingRequestsToTheirGroup() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        Group api = new Group();
+        api.getBackends().add(backend("api-1", 9091));
+        api.setRequestTimeoutMs(1500L);
+        PathRewrite strip = new PathRewrite();
+        strip.setPrefix("/api");
+        api.getPathRewrites().add(strip);
+        properties.getGroups().put("api", api);
+        Route route = new Route();
+        route.setPathPrefix("/api");
+        route.setGroup("api");
+        properties.getRoutes().add(route);
+        BackendPool pool = new BackendPool(properties);
+        ProxyService routing = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+        List<String> targets = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            targets.add(request.uri() + " " + request.timeout().orElseThrow().toMillis());
+            return new FakeReply(200, new byte[0]);
+        });
+
+        routing.forward(new MockHttpServletRequest("GET", "/api/users"), new MockHttpServletResponse());
+        routing.forward(new MockHttpServletRequest("GET", "/apix"), new MockHttpServletResponse());
+
+        assertEquals(List.of("http://api-1:9091/users 1500", "http://backend-1:8081/apix 5000"), targets);
+    }
+
+    @Test
+    void hedgesAStalledRequestToAnotherBackend() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getBackends().add(backend("backend-2", 8082));
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setDelayMs(20);
+        BackendPool pool = new BackendPool(properties);
+        ProxyService hedging = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+        fakeHttpClient.setAsyncResponder(request -> request.uri().getPort() == 8081
+            ? new CompletableFuture<>()
+            : CompletableFuture.completedFuture(new FakeReply(200, "backend-2".getBytes(StandardCharsets.UTF_8))));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        hedging.forward(new MockHttpServletRequest("GET", "/slow"), response);
+
+        assertArrayEquals("backend-2".getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+        assertEquals(2, fakeHttpClient.asyncExchanges.size());
+        assertTrue(fakeHttpClient.asyncExchanges.get(0).isCancelled());
+        assertEquals(0, pool.allBackends().get(0).getInFlight());
+        assertEquals(0, pool.allBackends().get(1).getInFlight());
+    }
+
+    @Test
+    void doesNotHedgeRequestsWithABody() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getBackends().add(backend("backend-2", 8082));
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().getMethods().add("POST");
+        properties.getHedging().setDelayMs(20);
+        BackendPool pool = new BackendPool(properties);
+        ProxyService hedging = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+        fakeHttpClient.setAsyncResponder(request -> new CompletableFuture<>());
+        fakeHttpClient.setResponder(request -> new FakeReply(200, new byte[0]));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+
+        hedging.forward(request, new MockHttpServletResponse());
+
+        assertTrue(fakeHttpClient.asyncExchanges.isEmpty());
+    }
+
+    @Test
+    void filtersHopByHopHeadersAndAppliesHeaderRules() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getHeaders().setForwarded(ForwardedMode.X_FORWARDED);
+        properties.getHeaders().getRequest().getRemove().add("Cookie");
+        properties.getHeaders().getRequest().getSet().put("X-Env", "prod");
+        properties.getHeaders().getResponse().getRemove().add("X-Powered-By");
+        properties.getHeaders().getResponse().getAdd().put("X-Served-By", "lb");
+        BackendPool pool = new BackendPool(properties);
+        ProxyService filtering = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        fakeHttpClient.setResponder(request -> {
+            HttpHeaders sent = request.headers();
+            assertEquals(List.of("application/json"), sent.allValues("accept"));
+            assertEquals(List.of("prod"), sent.allValues("x-env"));
+            assertEquals(List.of("10.0.0.1, 127.0.0.1"), sent.allValues("x-forwarded-for"));
+            assertEquals(List.of("http"), sent.allValues("x-forwarded-proto"));
+            for (String dropped : List.of("connection", "keep-alive", "x-trace-hop", "cookie")) {
+                assertTrue(sent.allValues(dropped).isEmpty(), dropped);
+            }
+            return new FakeReply(200, new byte[0], HttpHeaders.of(Map.of(
+                "content-type", List.of("text/plain"),
+                "connection", List.of("close"),
+                "keep-alive", List.of("timeout=5"),
+                "x-powered-by", List.of("framework")), (name, value) -> true));
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/headers");
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Connection", "keep-alive, X-Trace-Hop");
+        request.addHeader("Keep-Alive", "timeout=5");
+        request.addHeader("X-Trace-Hop", "1");
+        request.addHeader("Cookie", "session=abc");
+        request.addHeader("X-ENV", "staging");
+        request.addHeader("X-Forwarded-For", "10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtering.forward(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/plain", response.getHeader("Content-Type"));
+        assertEquals("lb", response.getHeader("X-Served-By"));
+        assertFalse(response.containsHeader("Connection"));
+        assertFalse(response.containsHeader("Keep-Alive"));
+        assertFalse(response.containsHeader("X-Powered-By"));
+    }
+
+    @Test
+    void compressesResponsesForClientsThatAcceptGzip() throws IOException {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getCompression().setEnabled(true);
+        BackendPool pool = new BackendPool(properties);
+        ProxyService compressing = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+        byte[] json = "{\"id\":1,\"name\":\"item\"}".repeat(500).getBytes(StandardCharsets.UTF_8);
+        fakeHttpClient.setResponder(request -> new FakeReply(200, json, HttpHeaders.of(Map.of(
+            "content-type", List.of("application/json"),
+            "content-length", List.of(Integer.toString(json.length)),
+            "etag", List.of("\"v1\"")), (name, value) -> true)));
+
+        MockHttpServletRequest gzipClient = new MockHttpServletRequest("GET", "/items");
+        gzipClient.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse compressed = new MockHttpServletResponse();
+        compressing.forward(gzipClient, compressed);
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        compressing.forward(new MockHttpServletRequest("GET", "/items"), plain);
+
+        assertEquals("gzip", compressed.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", compressed.getHeader("Vary"));
+        assertEquals("W/\"v1\"", compressed.getHeader("ETag"));
+        assertFalse(compressed.containsHeader("Content-Length"));
+        try (GZIPInputStream decoded = new GZIPInputStream(new ByteArrayInputStream(compressed.getContentAsByteArray()))) {
+            assertArrayEquals(json, decoded.readAllBytes());
+        }
+        assertFalse(plain.containsHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", plain.getHeader("Vary"));
+        assertArrayEquals(json, plain.getContentAsByteArray());
+    }
+
+    @Test
+    void streamsBodiesLargerThanTheProxyBuffer() {
+        byte[] payload = new byte[256 * 1024];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        fakeHttpClient.setResponder(request -> {
+            assertEquals(payload.length, request.bodyPublisher().orElseThrow().contentLength());
+            return new FakeReply(200, readBody(request));
+        });
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/upload");
+        request.setContent(payload);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxyService.forward(request, response);
+
+        assertArrayEquals(payload, response.getContentAsByteArray());
     }
 
     @Test
@@ -88,7 +284,7 @@ class ProxyServiceTest {
         backendPool.allBackends().forEach(backend -> backend.setHealthy(false));
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/echo");
 
-        assertThrows(NoHealthyBackendException.class, () -> proxyService.forward(request, null));
+        assertThrows(NoHealthyBackendException.class, () -> proxyService.forward(request, new MockHttpServletResponse()));
     }
 
     @Test
@@ -96,7 +292,394 @@ class ProxyServiceTest {
         fakeHttpClient.setFailure(new IOException("connection failed"));
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/echo");
 
-        assertThrows(BackendProxyException.class, () -> proxyService.forward(request, null));
+        assertThrows(BackendProxyException.class, () -> proxyService.forward(request, new MockHttpServletResponse()));
+    }
+
+    @Test
+    void abortsInsteadOfReportingAFailureAfterTheResponseWasCommitted() {
+        fakeHttpClient.setResponder(request -> new FakeReply(200, new byte[256 * 1024]));
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            // Commits with the first bytes of the body, then fails like a connection reset.
+            private final ServletOutputStream failing = new ServletOutputStream() {
+                private int written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (++written > 1024) {
+                        throw new IOException("connection reset");
+                    }
+                    setCommitted(true);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                }
+            };
+
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return failing;
+            }
+        };
+
+        assertThrows(ResponseAbortedException.class,
+            () -> proxyService.forward(new MockHttpServletRequest("GET", "/download"), response));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void retriesIdempotentRequestOnAnotherBackend() {
+        List<Integer> ports = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            ports.add(request.uri().getPort());
+            if (request.uri().getPort() == 8081) {
+                throw new HttpTimeoutException("backend-1 timed out");
+            }
+            return new FakeReply(200, "backend-2".getBytes(StandardCharsets.UTF_8));
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxyService.forward(new MockHttpServletRequest("GET", "/echo"), response);
+
+        assertEquals(List.of(8081, 8082), ports);
+        assertArrayEquals("backend-2".getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+    }
+
+    @Test
+    void retriesNonIdempotentRequestOnlyAfterConnectFailure() {
+        List<Integer> ports = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            ports.add(request.uri().getPort());
+            if (request.uri().getPort() == 8081) {
+                throw new ConnectException("connection refused");
+            }
+            return new FakeReply(201, readBody(request));
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setContent("order".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        proxyService.forward(request, response);
+
+        assertEquals(List.of(8081, 8082), ports);
+        assertEquals(201, response.getStatus());
+        assertArrayEquals("order".getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+    }
+
+    @Test
+    void doesNotRetryNonIdempotentRequestAfterItReachedBackend() {
+        AtomicInteger calls = new AtomicInteger(0);
+        fakeHttpClient.setResponder(request -> {
+            calls.incrementAndGet();
+            throw new HttpTimeoutException("request timed out");
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+
+        assertThrows(BackendProxyException.class, () -> proxyService.forward(request, new MockHttpServletResponse()));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void doesNotReplayBodyThatWasAlreadyStreamed() {
+        AtomicInteger calls = new AtomicInteger(0);
+        fakeHttpClient.setResponder(request -> {
+            calls.incrementAndGet();
+            readBody(request);
+            throw new IOException("connection reset");
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/orders/1");
+        request.setContent("order".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BackendProxyException.class, () -> proxyService.forward(request, new MockHttpServletResponse()));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shedsRequestsBeyondVirtualThreadConcurrencyLimit() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getVirtualThreads().setEnabled(true);
+        properties.getVirtualThreads().setMaxConcurrentRequests(1);
+        properties.getVirtualThreads().setAcquireTimeoutMs(0);
+        BackendPool pool = new BackendPool(properties);
+        ProxyService limited = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        fakeHttpClient.setResponder(request -> {
+            MockHttpServletRequest concurrent = new MockHttpServletRequest("GET", "/echo");
+            assertThrows(ProxyOverloadedException.class, () -> limited.forward(concurrent, new MockHttpServletResponse()));
+            return new FakeReply(200, new byte[0]);
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        limited.forward(new MockHttpServletRequest("GET", "/echo"), response);
+
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void skipsBackendsAtTheirConnectionLimit() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getUpstream().setMaxConnectionsPerBackend(1);
+        properties.getBackends().add(backend("backend-1", 8081));
+        properties.getBackends().add(backend("backend-2", 8082));
+        BackendPool pool = new BackendPool(properties);
+        ProxyService limited = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        List<Integer> ports = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            ports.add(request.uri().getPort());
+            if (ports.size() == 1) {
+                limited.forward(new MockHttpServletRequest("GET", "/nested"), new MockHttpServletResponse());
+            } else if (ports.size() == 2) {
+                MockHttpServletRequest third = new MockHttpServletRequest("GET", "/third");
+                assertThrows(ProxyOverloadedException.class, () -> limited.forward(third, new MockHttpServletResponse()));
+            }
+            return new FakeReply(200, new byte[0]);
+        });
+
+        limited.forward(new MockHttpServletRequest("GET", "/echo"), new MockHttpServletResponse());
+
+        assertEquals(List.of(8081, 8082), ports);
+        pool.allBackends().forEach(node -> assertEquals(0, node.getInFlight()));
+    }
+
+    @Test
+    void consistentHashKeepsAKeyOnOneBackend() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setStrategy(StrategyType.CONSISTENT_HASH);
+        properties.getConsistentHash().setKeySource(HashKeySource.COOKIE);
+        properties.getConsistentHash().setKeyName("session");
+        for (int port = 8081; port <= 8084; port++) {
+            properties.getBackends().add(backend("backend-" + port, port));
+        }
+        BackendPool pool = new BackendPool(properties);
+        ProxyService sticky = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        List<Integer> ports = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            ports.add(request.uri().getPort());
+            return new FakeReply(200, new byte[0]);
+        });
+        for (int i = 0; i < 8; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/item/" + i);
+            request.addHeader("Cookie", "theme=dark; session=user-42; lang=en");
+            sticky.forward(request, new MockHttpServletResponse());
+        }
+
+        assertEquals(1, ports.stream().distinct().count());
+    }
+
+    @Test
+    void servesRepeatedCacheableGetsFromTheResponseCache() {
+        ProxyService caching = cachingProxy();
+        AtomicInteger calls = new AtomicInteger(0);
+        fakeHttpClient.setResponder(request -> {
+            calls.incrementAndGet();
+            return new FakeReply(200, "cached".getBytes(StandardCharsets.UTF_8), cacheHeaders("public, max-age=60"));
+        });
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        caching.forward(new MockHttpServletRequest("GET", "/catalog"), first);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        caching.forward(new MockHttpServletRequest("GET", "/catalog"), second);
+
+        assertEquals(1, calls.get());
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals("HIT", second.getHeader(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals("0", second.getHeader("Age"));
+    }
+
+    @Test
+    void doesNotCacheResponsesMarkedNoStore() {
+        ProxyService caching = cachingProxy();
+        AtomicInteger calls = new AtomicInteger(0);
+        fakeHttpClient.setResponder(request -> {
+            calls.incrementAndGet();
+            return new FakeReply(200, new byte[] {1}, cacheHeaders("no-store, max-age=60"));
+        });
+
+        caching.forward(new MockHttpServletRequest("GET", "/private"), new MockHttpServletResponse());
+        caching.forward(new MockHttpServletRequest("GET", "/private"), new MockHttpServletResponse());
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void servesStaleWhileRevalidatingInTheBackground() throws Exception {
+        ProxyService caching = cachingProxy();
+        AtomicInteger calls = new AtomicInteger(0);
+        fakeHttpClient.setResponder(request -> {
+            int call = calls.incrementAndGet();
+            // Age equal to max-age makes the stored copy stale immediately.
+            HttpHeaders headers = HttpHeaders.of(Map.of(
+                "cache-control", List.of("max-age=5, stale-while-revalidate=60"),
+                "age", List.of(call == 1 ? "5" : "0")), (name, value) -> true);
+            return new FakeReply(200, ("v" + call).getBytes(StandardCharsets.UTF_8), headers);
+        });
+
+        caching.forward(new MockHttpServletRequest("GET", "/feed"), new MockHttpServletResponse());
+        MockHttpServletResponse stale = new MockHttpServletResponse();
+        caching.forward(new MockHttpServletRequest("GET", "/feed"), stale);
+        MockHttpServletResponse refreshed = new MockHttpServletResponse();
+        caching.forward(new MockHttpServletRequest("GET", "/feed"), refreshed);
+
+        assertEquals("STALE", stale.getHeader(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals("v1", stale.getContentAsString());
+        assertEquals("HIT", refreshed.getHeader(ResponseCache.CACHE_STATUS_HEADER));
+        assertEquals("v2", refreshed.getContentAsString());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void coalescesConcurrentMissesIntoOneBackendFetch() throws Exception {
+        ProxyService caching = cachingProxy();
+        AtomicInteger calls = new AtomicInteger(0);
+        MockHttpServletResponse follower = new MockHttpServletResponse();
+        Thread followerThread = new Thread(
+            () -> caching.forward(new MockHttpServletRequest("GET", "/hot"), follower));
+        fakeHttpClient.setResponder(request -> {
+            calls.incrementAndGet();
+            followerThread.start();
+            try {
+                // Give the follower time to find the fill in progress and wait on it.
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return new FakeReply(200, "hot".getBytes(StandardCharsets.UTF_8), cacheHeaders("max-age=60"));
+        });
+
+        caching.forward(new MockHttpServletRequest("GET", "/hot"), new MockHttpServletResponse());
+        followerThread.join(5000);
+
+        assertEquals(1, calls.get());
+        assertEquals("hot", follower.getContentAsString());
+    }
+
+    @Test
+    void sharesOneUpstreamCallBetweenIdenticalConcurrentRequests() throws Exception {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setRequestTimeoutMs(3000);
+        properties.getSingleFlight().setEnabled(true);
+        properties.getSingleFlight().setPaths(List.of("/api/**"));
+        properties.getBackends().add(backend("backend-1", 8081));
+        BackendPool pool = new BackendPool(properties);
+        ProxyService coalescing = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        AtomicInteger calls = new AtomicInteger(0);
+        List<MockHttpServletResponse> followers = new ArrayList<>();
+        List<Thread> followerThreads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse follower = new MockHttpServletResponse();
+            followers.add(follower);
+            followerThreads.add(new Thread(
+                () -> coalescing.forward(new MockHttpServletRequest("GET", "/api/stock"), follower)));
+        }
+        fakeHttpClient.setResponder(request -> {
+            if (calls.incrementAndGet() == 1) {
+                followerThreads.forEach(Thread::start);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // No caching headers: the result must still be shared, just not stored.
+            return new FakeReply(200, "in-stock".getBytes(StandardCharsets.UTF_8));
+        });
+
+        MockHttpServletResponse leader = new MockHttpServletResponse();
+        coalescing.forward(new MockHttpServletRequest("GET", "/api/stock"), leader);
+        for (Thread thread : followerThreads) {
+            thread.join(5000);
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals("in-stock", leader.getContentAsString());
+        for (MockHttpServletResponse follower : followers) {
+            assertEquals(200, follower.getStatus());
+            assertEquals("in-stock", follower.getContentAsString());
+        }
+
+        coalescing.forward(new MockHttpServletRequest("GET", "/api/stock"), new MockHttpServletResponse());
+        coalescing.forward(new MockHttpServletRequest("GET", "/other"), new MockHttpServletResponse());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void shedsRequestsOverTheAdaptiveConcurrencyLimit() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.getAdaptiveConcurrency().setEnabled(true);
+        properties.getAdaptiveConcurrency().setGlobalInitialLimit(1);
+        properties.getAdaptiveConcurrency().setGlobalMaxLimit(1);
+        properties.getAdaptiveConcurrency().setCriticalHeadroom(1.0);
+        properties.getAdaptiveConcurrency().setPriorityTrustedProxies(List.of("127.0.0.1"));
+        properties.getBackends().add(backend("backend-1", 8081));
+        BackendPool pool = new BackendPool(properties);
+        ProxyService limited = new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+
+        List<Integer> nestedStatuses = new ArrayList<>();
+        fakeHttpClient.setResponder(request -> {
+            if (request.uri().getPath().equals("/outer")) {
+                MockHttpServletRequest normal = new MockHttpServletRequest("GET", "/inner");
+                assertThrows(ProxyOverloadedException.class, () -> limited.forward(normal, new MockHttpServletResponse()));
+                MockHttpServletRequest critical = new MockHttpServletRequest("GET", "/inner");
+                critical.addHeader("X-Request-Priority", "critical");
+                MockHttpServletResponse criticalResponse = new MockHttpServletResponse();
+                limited.forward(critical, criticalResponse);
+                nestedStatuses.add(criticalResponse.getStatus());
+            }
+            return new FakeReply(200, new byte[0]);
+        });
+
+        limited.forward(new MockHttpServletRequest("GET", "/outer"), new MockHttpServletResponse());
+
+        assertEquals(List.of(200), nestedStatuses);
+    }
+
+    private ProxyService cachingProxy() {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setRequestTimeoutMs(3000);
+        properties.getCache().setEnabled(true);
+        properties.getBackends().add(backend("backend-1", 8081));
+        BackendPool pool = new BackendPool(properties);
+        return new ProxyService(pool, fakeHttpClient, properties, new OutlierDetector(pool, properties));
+    }
+
+    private static HttpHeaders cacheHeaders(String cacheControl) {
+        return HttpHeaders.of(Map.of("content-type", List.of("text/plain"), "cache-control", List.of(cacheControl)),
+            (name, value) -> true);
+    }
+
+    private static byte[] readBody(HttpRequest request) {
+        HttpResponse.BodySubscriber<byte[]> subscriber = HttpResponse.BodySubscribers.ofByteArray();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                subscriber.onNext(List.of(item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+        return subscriber.getBody().toCompletableFuture().join();
     }
 
     private BackendDefinition backend(String host, int port) {
@@ -109,14 +692,24 @@ class ProxyServiceTest {
     }
 
     private static class FakeHttpClient extends HttpClient {
-        private java.util.function.Function<HttpRequest, HttpResponse<byte[]>> responder;
+        private Responder responder;
         private IOException failure;
+        private Function<HttpRequest, CompletableFuture<FakeReply>> asyncResponder;
+        private final List<CompletableFuture<?>> asyncExchanges = new ArrayList<>();
 
-        void setResponder(java.util.function.Function<HttpRequest, HttpResponse<byte[]>> responder) {
+        void setResponder(Responder responder) {
             this.responder = responder;
             this.failure = null;
         }
 
+        /**
+         * Answers {@code sendAsync} whenever the returned future completes, so tests
+         * can leave an exchange hanging.
+         */
+        void setAsyncResponder(Function<HttpRequest, CompletableFuture<FakeReply>> asyncResponder) {
+            this.asyncResponder = asyncResponder;
+        }
+
         void setFailure(IOException failure) {
             this.failure = failure;
             this.responder = null;
@@ -131,13 +724,50 @@ class ProxyServiceTest {
             if (responder == null) {
                 throw new IllegalStateException("No responder configured");
             }
-            @SuppressWarnings("unchecked")
-            HttpResponse<T> response = (HttpResponse<T>) responder.apply(request);
-            return response;
+            FakeReply reply = responder.respond(request);
+            return new FakeHttpResponse<>(reply.status(), reply.headers(), deliver(reply, responseBodyHandler), request);
+        }
+
+        private static <T> T deliver(FakeReply reply, BodyHandler<T> handler) {
+            HttpHeaders headers = reply.headers();
+            HttpResponse.BodySubscriber<T> subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+                @Override
+                public int statusCode() {
+                    return reply.status();
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return headers;
+                }
+
+                @Override
+                public HttpClient.Version version() {
+                    return HttpClient.Version.HTTP_1_1;
+                }
+            });
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onNext(List.of(ByteBuffer.wrap(reply.body())));
+            subscriber.onComplete();
+            return subscriber.getBody().toCompletableFuture().join();
         }
 
         @Override
         public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler) {
+            if (asyncResponder != null) {
+                CompletableFuture<HttpResponse<T>> exchange = asyncResponder.apply(request).thenApply(reply ->
+                    new FakeHttpResponse<>(reply.status(), reply.headers(), deliver(reply, responseBodyHandler), request));
+                asyncExchanges.add(exchange);
+                return exchange;
+            }
             try {
                 return CompletableFuture.completedFuture(send(request, responseBodyHandler));
             } catch (IOException ex) {
@@ -197,13 +827,28 @@ class ProxyServiceTest {
         }
     }
 
-    private static class FakeHttpResponse implements HttpResponse<byte[]> {
+    private record FakeReply(int status, byte[] body, HttpHeaders headers) {
+        FakeReply(int status, byte[] body) {
+            this(status, body, FakeHttpResponse.HEADERS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Responder {
+        FakeReply respond(HttpRequest request) throws IOException;
+    }
+
+    private static class FakeHttpResponse<T> implements HttpResponse<T> {
+        static final HttpHeaders HEADERS = HttpHeaders.of(Map.of("content-type", List.of("text/plain")), (k, v) -> true);
+
         private final int status;
-        private final byte[] body;
+        private final HttpHeaders headers;
+        private final T body;
         private final HttpRequest request;
 
-        FakeHttpResponse(int status, byte[] body, HttpRequest request) {
+        FakeHttpResponse(int status, HttpHeaders headers, T body, HttpRequest request) {
             this.status = status;
+            this.headers = headers;
             this.body = body;
             this.request = request;
         }
@@ -219,17 +864,17 @@ class ProxyServiceTest {
         }
 
         @Override
-        public Optional<HttpResponse<byte[]>> previousResponse() {
+        public Optional<HttpResponse<T>> previousResponse() {
             return Optional.empty();
         }
 
         @Override
         public HttpHeaders headers() {
-            return HttpHeaders.of(Map.of("content-type", List.of("text/plain")), (k, v) -> true);
+            return headers;
         }
 
         @Override
-        public byte[] body() {
+        public T body() {
             return body;
         }
 
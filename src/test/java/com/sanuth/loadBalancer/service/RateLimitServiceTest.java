@@ -0,0 +1,91 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.http.HttpClient;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.RateLimitKeySource;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.RateLimitRule;
+import com.sanuth.loadBalancer.exception.RateLimitedException;
+import com.sanuth.loadBalancer.ratelimit.RateLimitSync;
+
+class RateLimitServiceTest {
+
+    @Test
+    void rejectsClientsOverTheirLimitWithRetryAfter() {
+        RateLimitService service = service(rule(RateLimitKeySource.CLIENT_IP, null, "/**"));
+
+        service.check(request("10.0.0.1", "/items"));
+        service.check(request("10.0.0.1", "/items"));
+        RateLimitedException rejected = assertThrows(RateLimitedException.class,
+            () -> service.check(request("10.0.0.1", "/items")));
+        service.check(request("10.0.0.2", "/items"));
+
+        assertEquals(2, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    void keysByHeaderOnlyOnMatchingPaths() {
+        RateLimitService service = service(rule(RateLimitKeySource.HEADER, "X-Api-Key", "/api/**"));
+
+        for (int i = 0; i < 5; i++) {
+            service.check(request("10.0.0.1", "/static/app.js"));
+        }
+        MockHttpServletRequest keyed = request("10.0.0.1", "/api/orders");
+        keyed.addHeader("X-Api-Key", "abc");
+        service.check(keyed);
+        service.check(keyed);
+        assertThrows(RateLimitedException.class, () -> service.check(keyed));
+    }
+
+    @Test
+    void limitsRequestsWithoutTheHeaderByClientAddress() {
+        RateLimitService service = service(rule(RateLimitKeySource.HEADER, "X-Api-Key", "/**"));
+
+        service.check(request("10.0.0.1", "/api/orders"));
+        service.check(request("10.0.0.1", "/api/orders"));
+        assertThrows(RateLimitedException.class, () -> service.check(request("10.0.0.1", "/api/orders")));
+
+        MockHttpServletRequest spoofed = request("10.0.0.2", "/api/orders");
+        spoofed.addHeader("X-Api-Key", "client-ip:10.0.0.1");
+        service.check(spoofed);
+    }
+
+    private static RateLimitService service(RateLimitRule rule) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        LoadBalancerProperties.BackendDefinition backend = new LoadBalancerProperties.BackendDefinition();
+        backend.setHost("localhost");
+        backend.setPort(8081);
+        properties.getBackends().add(backend);
+        properties.getRateLimit().setEnabled(true);
+        properties.getRateLimit().getRules().add(rule);
+        BackendPool pool = new BackendPool(properties);
+        UpstreamRouter router = new UpstreamRouter(pool, new OutlierDetector(pool, properties),
+            HttpClient.newHttpClient(), properties);
+        return new RateLimitService(properties, router,
+            new StaticListableBeanFactory().getBeanProvider(RateLimitSync.class));
+    }
+
+    private static RateLimitRule rule(RateLimitKeySource source, String keyName, String path) {
+        RateLimitRule rule = new RateLimitRule();
+        rule.setKeySource(source);
+        rule.setKeyName(keyName);
+        rule.setRequestsPerSecond(0.5);
+        rule.setBurst(2);
+        rule.setPaths(List.of(path));
+        return rule;
+    }
+
+    private static MockHttpServletRequest request(String client, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(client);
+        return request;
+    }
+}
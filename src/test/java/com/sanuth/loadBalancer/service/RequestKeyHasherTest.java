@@ -0,0 +1,61 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.ConsistentHash;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.HashKeySource;
+import com.sanuth.loadBalancer.strategy.LoadBalancingStrategy;
+
+class RequestKeyHasherTest {
+
+    @Test
+    void hashesOnlyTheNamedCookie() {
+        RequestKeyHasher hasher = hasher(HashKeySource.COOKIE, "session");
+
+        long first = hasher.hash(withCookie("theme=dark; session=abc; lang=en"));
+        long second = hasher.hash(withCookie("session=abc"));
+        long other = hasher.hash(withCookie("session=xyz; theme=dark"));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals(LoadBalancingStrategy.NO_KEY, hasher.hash(withCookie("mysession=abc; sessionid=abc")));
+        assertEquals(LoadBalancingStrategy.NO_KEY, hasher.hash(new MockHttpServletRequest("GET", "/")));
+    }
+
+    @Test
+    void hashesTheConfiguredPathSegment() {
+        ConsistentHash config = new ConsistentHash();
+        config.setKeySource(HashKeySource.PATH_SEGMENT);
+        config.setPathSegment(1);
+        RequestKeyHasher hasher = new RequestKeyHasher(config);
+
+        long tenant = hasher.hash(new MockHttpServletRequest("GET", "/tenants/acme/orders"));
+
+        assertEquals(tenant, hasher.hash(new MockHttpServletRequest("GET", "/tenants/acme")));
+        assertNotEquals(tenant, hasher.hash(new MockHttpServletRequest("GET", "/tenants/globex/orders")));
+        assertEquals(LoadBalancingStrategy.NO_KEY, hasher.hash(new MockHttpServletRequest("GET", "/tenants")));
+    }
+
+    @Test
+    void requiresKeyNameForHeaderAndCookieSources() {
+        assertThrows(IllegalArgumentException.class, () -> hasher(HashKeySource.HEADER, null));
+    }
+
+    private RequestKeyHasher hasher(HashKeySource source, String keyName) {
+        ConsistentHash config = new ConsistentHash();
+        config.setKeySource(source);
+        config.setKeyName(keyName);
+        return new RequestKeyHasher(config);
+    }
+
+    private MockHttpServletRequest withCookie(String cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Cookie", cookie);
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.sanuth.loadBalancer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+
+class SingleFlightTest {
+
+    @Test
+    void keysOnMethodUriAndConfiguredHeaders() {
+        SingleFlight singleFlight = singleFlight(List.of("/**"), List.of("Accept"));
+        MockHttpServletRequest json = request("GET", "/items", "Accept", "application/json");
+        MockHttpServletRequest jsonAgain = request("GET", "/items", "Accept", "application/json");
+        jsonAgain.addHeader("User-Agent", "other");
+        MockHttpServletRequest xml = request("GET", "/items", "Accept", "application/xml");
+        MockHttpServletRequest head = request("HEAD", "/items", "Accept", "application/json");
+
+        assertEquals(singleFlight.keyFor("default", json), singleFlight.keyFor("default", jsonAgain));
+        assertNotEquals(singleFlight.keyFor("default", json), singleFlight.keyFor("default", xml));
+        assertNotEquals(singleFlight.keyFor("default", json), singleFlight.keyFor("default", head));
+        assertNotEquals(singleFlight.keyFor("default", json), singleFlight.keyFor("canary", json));
+    }
+
+    @Test
+    void onlySharesIdempotentUncredentialedRequestsOnConfiguredPaths() {
+        SingleFlight singleFlight = singleFlight(List.of("/api/**"), List.of());
+
+        assertNotNull(singleFlight.keyFor("default", request("GET", "/api/items")));
+        assertNull(singleFlight.keyFor("default", request("GET", "/static/app.js")));
+        assertNull(singleFlight.keyFor("default", request("POST", "/api/items")));
+        assertNull(singleFlight.keyFor("default", request("GET", "/api/items", "Authorization", "Bearer abc")));
+        assertNull(singleFlight.keyFor("default", request("GET", "/api/items", "Cookie", "session=1")));
+    }
+
+    @Test
+    void credentialsAreSharedOnlyWhenPartOfTheKey() {
+        SingleFlight singleFlight = singleFlight(List.of("/**"), List.of("Authorization"));
+
+        String alice = singleFlight.keyFor("default", request("GET", "/me", "Authorization", "Bearer alice"));
+        String bob = singleFlight.keyFor("default", request("GET", "/me", "Authorization", "Bearer bob"));
+
+        assertNotNull(alice);
+        assertNotEquals(alice, bob);
+    }
+
+    @Test
+    void followersJoinTheLeadersFlightUntilItLands() {
+        SingleFlight singleFlight = singleFlight(List.of("/**"), List.of());
+
+        assertNull(singleFlight.join("k"));
+        assertNotNull(singleFlight.join("k"));
+        singleFlight.land("k", null);
+        assertNull(singleFlight.join("k"));
+    }
+
+    @Test
+    void capturesOnlyShareableResponsesSomeoneIsWaitingFor() {
+        SingleFlight singleFlight = singleFlight(List.of("/**"), List.of());
+        HttpHeaders plain = headers(Map.of());
+
+        singleFlight.join("alone");
+        assertEquals(-1, singleFlight.captureLimit("alone", 200, plain));
+        assertTrue(singleFlight.join("alone").isDone());
+
+        for (Map<String, List<String>> personal : List.of(Map.of("Set-Cookie", List.of("session=abc")),
+            Map.of("Cache-Control", List.of("private, max-age=60")), Map.of("Cache-Control", List.of("no-store")))) {
+            singleFlight.join("personal");
+            CompletableFuture<SingleFlight.SharedResponse> follower = singleFlight.join("personal");
+            assertEquals(-1, singleFlight.captureLimit("personal", 200, headers(personal)));
+            assertNull(follower.join());
+            singleFlight.land("personal", null);
+        }
+
+        singleFlight.join("shared");
+        singleFlight.join("shared");
+        assertEquals(new LoadBalancerProperties.SingleFlight().getMaxBodyBytes(),
+            singleFlight.captureLimit("shared", 200, plain));
+    }
+
+    private SingleFlight singleFlight(List<String> paths, List<String> keyHeaders) {
+        LoadBalancerProperties.SingleFlight config = new LoadBalancerProperties.SingleFlight();
+        config.setEnabled(true);
+        config.setPaths(paths);
+        config.setKeyHeaders(keyHeaders);
+        return new SingleFlight(config);
+    }
+
+    private static HttpHeaders headers(Map<String, List<String>> values) {
+        return HttpHeaders.of(values, (name, value) -> true);
+    }
+
+    private MockHttpServletRequest request(String method, String uri, String... header) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (header.length == 2) {
+            request.addHeader(header[0], header[1]);
+        }
+        return request;
+    }
+}
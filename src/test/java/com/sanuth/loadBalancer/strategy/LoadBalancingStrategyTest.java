@@ -0,0 +1,145 @@
+package com.sanuth.loadBalancer.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.model.BackendNode;
+
+class LoadBalancingStrategyTest {
+
+    @Test
+    void leastRequestsPicksNodeWithFewestOutstandingRequests() {
+        BackendNode busy = node("busy", 1);
+        BackendNode idle = node("idle", 1);
+        busy.tryBeginRequest();
+        busy.tryBeginRequest();
+
+        LeastRequestsStrategy strategy = new LeastRequestsStrategy();
+        List<BackendNode> candidates = List.of(busy, idle);
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(idle, strategy.select(candidates));
+        }
+    }
+
+    @Test
+    void leastRequestsAccountsForWeight() {
+        BackendNode big = node("big", 4);
+        BackendNode small = node("small", 1);
+        big.tryBeginRequest();
+        big.tryBeginRequest();
+
+        assertSame(big, new LeastRequestsStrategy().select(List.of(big, small)));
+    }
+
+    @Test
+    void powerOfTwoChoicesAvoidsLoadedNodeWhenOnlyTwoCandidates() {
+        BackendNode loaded = node("loaded", 1);
+        BackendNode free = node("free", 1);
+        for (int i = 0; i < 10; i++) {
+            loaded.tryBeginRequest();
+        }
+
+        PowerOfTwoChoicesStrategy strategy = new PowerOfTwoChoicesStrategy();
+        List<BackendNode> candidates = List.of(loaded, free);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(free, strategy.select(candidates));
+        }
+    }
+
+    @Test
+    void peakEwmaPrefersFasterNode() {
+        BackendNode slow = node("slow", 1);
+        BackendNode fast = node("fast", 1);
+        slow.recordLatency(System.nanoTime() - 500_000_000L);
+        fast.recordLatency(System.nanoTime() - 1_000_000L);
+
+        PeakEwmaStrategy strategy = new PeakEwmaStrategy();
+        List<BackendNode> candidates = List.of(slow, fast);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, strategy.select(candidates));
+        }
+    }
+
+    @Test
+    void singleCandidateIsAlwaysSelected() {
+        BackendNode only = node("only", 1);
+
+        assertEquals("only", new PowerOfTwoChoicesStrategy().select(List.of(only)).getHost());
+        assertEquals("only", new PeakEwmaStrategy().select(List.of(only)).getHost());
+    }
+
+    @Test
+    void consistentHashMovesOnlyKeysOfTheRemovedNode() {
+        List<BackendNode> nodes = List.of(node("a", 1), node("b", 1), node("c", 1), node("d", 1), node("e", 1));
+        List<BackendNode> withoutC = List.of(nodes.get(0), nodes.get(1), nodes.get(3), nodes.get(4));
+        ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+        int keys = 20_000;
+        BackendNode[] before = new BackendNode[keys];
+        for (int key = 0; key < keys; key++) {
+            before[key] = strategy.select(nodes, keyHash(key));
+            assertSame(before[key], strategy.select(nodes, keyHash(key)));
+        }
+        int needlesslyMoved = 0;
+        for (int key = 0; key < keys; key++) {
+            BackendNode after = strategy.select(withoutC, keyHash(key));
+            if (before[key] != nodes.get(2) && after != before[key]) {
+                needlesslyMoved++;
+            }
+        }
+
+        assertTrue(needlesslyMoved < keys / 50, "keys moved off healthy nodes: " + needlesslyMoved);
+    }
+
+    @Test
+    void consistentHashSharesKeysByWeight() {
+        BackendNode light = node("light", 1);
+        BackendNode heavy = node("heavy", 3);
+        ConsistentHashStrategy strategy = new ConsistentHashStrategy();
+
+        int heavyCount = 0;
+        for (int key = 0; key < 20_000; key++) {
+            if (strategy.select(List.of(light, heavy), keyHash(key)) == heavy) {
+                heavyCount++;
+            }
+        }
+
+        assertEquals(0.75, heavyCount / 20_000.0, 0.03);
+    }
+
+    @Test
+    void weightedScheduleStaysBoundedForCoprimeWeights() {
+        BackendNode heavy = node("heavy", Integer.MAX_VALUE);
+        BackendNode light = node("light", Integer.MAX_VALUE / 3);
+        WeightedSchedule schedule = WeightedSchedule.build(List.of(heavy, light));
+
+        int heavyCount = 0;
+        for (int i = 0; i < WeightedSchedule.MAX_SLOTS; i++) {
+            if (schedule.pick(i) == heavy) {
+                heavyCount++;
+            }
+        }
+        assertEquals(0.75, heavyCount / (double) WeightedSchedule.MAX_SLOTS, 0.01);
+    }
+
+    private static long keyHash(int key) {
+        return MaglevTable.mix(key * 0x9E3779B97F4A7C15L + 1);
+    }
+
+    private BackendNode node(String host, int weight) {
+        BackendDefinition definition = new BackendDefinition();
+        definition.setHost(host);
+        definition.setPort(8080);
+        definition.setWeight(weight);
+        return new BackendNode(definition);
+    }
+}
@@ -0,0 +1,139 @@
+package com.sanuth.loadBalancer.tcp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.sanuth.loadBalancer.config.LoadBalancerProperties;
+import com.sanuth.loadBalancer.config.LoadBalancerProperties.BackendDefinition;
+import com.sanuth.loadBalancer.service.BackendPool;
+import com.sanuth.loadBalancer.service.OutlierDetector;
+import com.sanuth.loadBalancer.service.UpstreamRouter;
+
+class TcpProxyServerTest {
+
+    private ServerSocket echoBackend;
+    private TcpProxyServer server;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (server != null) {
+            server.stop();
+        }
+        if (echoBackend != null) {
+            echoBackend.close();
+        }
+    }
+
+    @Test
+    void splicesBytesAndPassesOnHalfClose() throws IOException {
+        startEchoBackend();
+        server = startServer(echoBackend.getLocalPort());
+
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+            client.setSoTimeout(5000);
+            byte[] payload = "hello through layer four".repeat(10_000).getBytes(StandardCharsets.US_ASCII);
+            OutputStream out = client.getOutputStream();
+            out.write(payload);
+            client.shutdownOutput();
+
+            // The backend only sees end of stream, and closes, after the client's half-close.
+            assertArrayEquals(payload, client.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void failsOverToTheNextBackendWhenConnectIsRefused() throws IOException {
+        startEchoBackend();
+        int closedPort;
+        try (ServerSocket unused = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = unused.getLocalPort();
+        }
+        server = startServer(closedPort, echoBackend.getLocalPort());
+
+        for (int i = 0; i < 4; i++) {
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+                client.setSoTimeout(5000);
+                client.getOutputStream().write("ping".getBytes(StandardCharsets.US_ASCII));
+                client.shutdownOutput();
+                assertEquals("ping", new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    @Test
+    void closesTheClientWhenNoBackendIsAvailable() throws IOException {
+        startEchoBackend();
+        LoadBalancerProperties properties = properties(echoBackend.getLocalPort());
+        BackendPool pool = new BackendPool(properties);
+        pool.allBackends().get(0).setHealthy(false);
+        server = new TcpProxyServer(router(pool, properties), properties);
+        server.start();
+
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+            client.setSoTimeout(5000);
+            assertEquals(-1, client.getInputStream().read());
+        }
+    }
+
+    private TcpProxyServer startServer(int... backendPorts) {
+        LoadBalancerProperties properties = properties(backendPorts);
+        BackendPool pool = new BackendPool(properties);
+        TcpProxyServer started = new TcpProxyServer(router(pool, properties), properties);
+        started.start();
+        return started;
+    }
+
+    private UpstreamRouter router(BackendPool pool, LoadBalancerProperties properties) {
+        return new UpstreamRouter(pool, new OutlierDetector(pool, properties), HttpClient.newHttpClient(), properties);
+    }
+
+    private LoadBalancerProperties properties(int... backendPorts) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        for (int port : backendPorts) {
+            BackendDefinition backend = new BackendDefinition();
+            backend.setHost("127.0.0.1");
+            backend.setPort(port);
+            properties.getBackends().add(backend);
+        }
+        properties.getTcp().setEnabled(true);
+        properties.getTcp().setBindAddress("127.0.0.1");
+        properties.getTcp().setPort(0);
+        properties.getTcp().setIoThreads(1);
+        properties.getTcp().setBufferSize(4096);
+        return properties;
+    }
+
+    private void startEchoBackend() throws IOException {
+        echoBackend = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofPlatform().daemon().start(() -> {
+            while (!echoBackend.isClosed()) {
+                try {
+                    Socket socket = echoBackend.accept();
+                    Thread.ofPlatform().daemon().start(() -> echo(socket));
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        });
+    }
+
+    private static void echo(Socket socket) {
+        try (socket; InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+            in.transferTo(out);
+        } catch (IOException ex) {
+            // Test client went away.
+        }
+    }
+}